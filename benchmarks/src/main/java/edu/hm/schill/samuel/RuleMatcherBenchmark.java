@@ -0,0 +1,136 @@
+package edu.hm.schill.samuel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the applicable productions in sentential forms, rule by rule and position by position
+ * versus with the RuleMatcher, for growing numbers of random left sides.
+ * One operation is one sentential form.
+ * Lives in the package of RuleMatcher, which is not public.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleMatcherBenchmark {
+    /**
+     * Symbols of the random left sides and sentential forms.
+     */
+    private static final byte[] SYMBOLS = "ABCDEFGHabcdefgh".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Length of the random sentential forms.
+     */
+    private static final int FORM_LENGTH = 24;
+    /**
+     * Number of random sentential forms.
+     */
+    private static final int FORMS = 1000;
+
+    /**
+     * Number of productions.
+     */
+    @Param({"10", "50", "100", "200", "400", "800"})
+    public int rules;
+
+    /**
+     * The sentential forms.
+     */
+    private byte[][] forms;
+    /**
+     * The left sides of the productions, 1 to 3 symbols each.
+     */
+    private byte[][] leftSides;
+    /**
+     * The automaton over the left sides.
+     */
+    private RuleMatcher matcher;
+
+    /**
+     * Draws forms and left sides, the same for every run.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        forms = new byte[FORMS][];
+        for (int index = 0; index < FORMS; index++)
+            forms[index] = randomString(random, FORM_LENGTH);
+        leftSides = new byte[rules][];
+        for (int index = 0; index < rules; index++)
+            leftSides[index] = randomString(random, 1 + random.nextInt(3));
+        matcher = new RuleMatcher(leftSides);
+    }
+
+    /**
+     * Compares every left side at every position.
+     * @return Sum of the match positions.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FORMS)
+    public long naive() {
+        long matches = 0;
+        for (byte[] form : forms)
+            for (byte[] leftSide : leftSides)
+                for (int index = 0; index <= form.length - leftSide.length; index++)
+                    if (startsWith(form, index, leftSide))
+                        matches += index;
+        return matches;
+    }
+
+    /**
+     * Runs the automaton once over every form.
+     * @return Sum of the match positions.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FORMS)
+    public long matcher() {
+        final long[] matches = {0};
+        for (byte[] form : forms)
+            matcher.forEachMatch(form, (rule, index) -> matches[0] += index);
+        return matches[0];
+    }
+
+    /**
+     * Checks whether a left side occurs in a form at a position.
+     * @param form The sentential form.
+     * @param index The position.
+     * @param leftSide The left side.
+     * @return true if the left side is there.
+     */
+    private static boolean startsWith(byte[] form, int index, byte[] leftSide) {
+        for (int offset = 0; offset < leftSide.length; offset++)
+            if (form[index + offset] != leftSide[offset])
+                return false;
+        return true;
+    }
+
+    /**
+     * A random string of symbols.
+     * @param random The source of randomness.
+     * @param length The length.
+     * @return The symbols.
+     */
+    private static byte[] randomString(Random random, int length) {
+        final byte[] string = new byte[length];
+        for (int index = 0; index < length; index++)
+            string[index] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+        return string;
+    }
+}
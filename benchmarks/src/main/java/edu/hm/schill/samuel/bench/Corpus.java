@@ -0,0 +1,215 @@
+package edu.hm.schill.samuel.bench;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Fixed inputs for the benchmarks. Generated inputs use fixed seeds,
+ * so every run measures exactly the same data.
+ */
+public final class Corpus {
+    /**
+     * Type-1 grammars for the language generator, with the length to generate up to.
+     */
+    public static final Map<String, Map.Entry<String, Integer>> LANGUAGE_GRAMMARS;
+    /**
+     * LL(1) grammars for the parser generator, with a valid input for the generated parser.
+     */
+    public static final Map<String, Map.Entry<String, String>> PARSER_GRAMMARS;
+    /**
+     * Sources for the preprocessor. All of them end outside of comments.
+     */
+    public static final Map<String, String> SOURCES;
+    /**
+     * Short records for batch parsing with the prefix-expressions grammar, about every fifth one invalid.
+     */
+    public static final List<String> RECORDS;
+    /**
+     * Number of RECORDS.
+     */
+    public static final int RECORD_COUNT = 100_000;
+
+    static {
+        final Map<String, Map.Entry<String, Integer>> languages = new LinkedHashMap<>();
+        languages.put("small", entry("=,S=Sa,S=x", 64));
+        languages.put("ambiguous-cf", entry("=,S=SS,S=(S),S=()", 14));
+        languages.put("ambiguous-type1", entry("=,S=ABC,AB=BA,BC=CB,BA=AB,CB=BC,A=a,B=b,C=c,S=SS", 9));
+        languages.put("deep-recursion", entry("=,S=aSb,S=ab", 64));
+        languages.put("context-sensitive", entry("=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc", 18));
+        languages.put("many-rules", entry(manyRules(), 8));
+        LANGUAGE_GRAMMARS = Collections.unmodifiableMap(languages);
+
+        final Map<String, Map.Entry<String, String>> parsers = new LinkedHashMap<>();
+        parsers.put("small", entry("=,S=aSb,S=c", "aacbb"));
+        parsers.put("deep", entry("=,S=aSb,S=c", repeat("a", 2_000) + "c" + repeat("b", 2_000)));
+        parsers.put("very-deep", entry("=,S=aSb,S=c", repeat("a", 100_000) + "c" + repeat("b", 100_000)));
+        parsers.put("wide", entry(IntStream.rangeClosed('a', 'y')
+                                          .mapToObj(chr -> "S=" + (char) chr + "S")
+                                          .collect(Collectors.joining(",", "=,", ",S=z")),
+                                  randomWord(new Random(7), "abcdefghijklmnopqrstuvwxy", 2_000) + "z"));
+        parsers.put("prefix-expressions", entry("=,E=+EE,E=*EE,E=-E,E=(E),E=a,E=b,E=c", prefixExpression(12)));
+        parsers.put("chain", chain(new Random(19)));
+        PARSER_GRAMMARS = Collections.unmodifiableMap(parsers);
+
+        final Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("comment-heavy", commentHeavy(new Random(11), 200_000));
+        sources.put("large", large(new Random(13), 2_000_000));
+        sources.put("pathological", pathological(new Random(17), 200_000));
+        SOURCES = Collections.unmodifiableMap(sources);
+
+        final Random random = new Random(23);
+        final List<String> records = new ArrayList<>();
+        for (int index = 0; index < RECORD_COUNT; index++) {
+            final String record = prefixExpression(random.nextInt(4));
+            records.add(random.nextInt(5) == 0 ? record.substring(1) + "+" : record);
+        }
+        RECORDS = Collections.unmodifiableList(records);
+    }
+
+    /**
+     * No instances.
+     */
+    private Corpus() { }
+
+    /**
+     * A map entry.
+     * @param key The key.
+     * @param value The value.
+     * @param <K> Type of the key.
+     * @param <V> Type of the value.
+     * @return An immutable entry.
+     */
+    private static <K, V> Map.Entry<K, V> entry(K key, V value) {
+        return new AbstractMap.SimpleImmutableEntry<>(key, value);
+    }
+
+    /**
+     * Permutations of four letters plus a few hundred productions that never apply.
+     * Stresses the search for applicable productions.
+     * @return The grammar.
+     */
+    private static String manyRules() {
+        final StringBuilder grammar = new StringBuilder("=,S=ABCD,AB=BA,BC=CB,CD=DC,A=a,B=b,C=c,D=d");
+        final String unused = "TUVWXYZ";
+        for (char first : unused.toCharArray())
+            for (char second : unused.toCharArray())
+                for (char third : "efghij".toCharArray())
+                    grammar.append(',').append(first).append(second).append('=')
+                            .append(second).append(first).append(third);
+        return grammar.toString();
+    }
+
+    /**
+     * A string repeated.
+     * @param string The string.
+     * @param times Number of repetitions.
+     * @return The concatenation.
+     */
+    private static String repeat(String string, int times) {
+        return String.join("", Collections.nCopies(times, string));
+    }
+
+    /**
+     * A random word.
+     * @param random Random source.
+     * @param alphabet Characters of the word.
+     * @param length Length of the word.
+     * @return The word.
+     */
+    private static String randomWord(Random random, String alphabet, int length) {
+        final StringBuilder word = new StringBuilder();
+        for (int index = 0; index < length; index++)
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return word.toString();
+    }
+
+    /**
+     * A chain of 25 nonterminals, each with two terminals of its own and a production to the next one.
+     * The FIRST sets grow along the whole chain.
+     * @param random Random source.
+     * @return The grammar and an input that passes through all nonterminals.
+     */
+    private static Map.Entry<String, String> chain(Random random) {
+        final String terminals = "abcdefghijklmnopqrstuvwxy0123456789!#$%&()*+-./:;<>?";
+        final StringBuilder grammar = new StringBuilder("=");
+        final StringBuilder input = new StringBuilder();
+        for (char nonterminal = 'A'; nonterminal < 'Z'; nonterminal++) {
+            final String own = terminals.substring(2 * (nonterminal - 'A'), 2 * (nonterminal - 'A') + 2);
+            for (char chr : own.toCharArray())
+                grammar.append(',').append(nonterminal).append('=').append(chr).append(nonterminal);
+            grammar.append(',').append(nonterminal).append('=').append((char) (nonterminal + 1));
+            input.append(randomWord(random, own, 40));
+        }
+        return entry(grammar.append(",Z=z").toString(), input.append('z').toString());
+    }
+
+    /**
+     * A complete binary prefix expression.
+     * @param depth Depth of the tree.
+     * @return The expression, 2^depth leaves.
+     */
+    private static String prefixExpression(int depth) {
+        return depth == 0 ? "a" : (depth % 2 == 0 ? "+" : "*") + prefixExpression(depth - 1) + prefixExpression(depth - 1);
+    }
+
+    /**
+     * Short code lines, most of them followed or interrupted by comments.
+     * @param random Random source.
+     * @param length Minimum length.
+     * @return The source.
+     */
+    private static String commentHeavy(Random random, int length) {
+        final StringBuilder source = new StringBuilder();
+        while (source.length() < length) {
+            source.append("x := y + ").append(random.nextInt(1000)).append(';');
+            switch (random.nextInt(3)) {
+                case 0:
+                    source.append(" // ").append(randomWord(random, "abc def ghi", 40)).append('\n');
+                    break;
+                case 1:
+                    source.append(" /* ").append(randomWord(random, "abc\ndef ghi", 80)).append(" */\n");
+                    break;
+                default:
+                    source.append('\n');
+            }
+        }
+        return source.toString();
+    }
+
+    /**
+     * Long code lines with few comments.
+     * @param random Random source.
+     * @param length Minimum length.
+     * @return The source.
+     */
+    private static String large(Random random, int length) {
+        final StringBuilder source = new StringBuilder();
+        while (source.length() < length) {
+            source.append("print (").append(randomWord(random, "abcdefghij", 12)).append(" * 42 / 7 % 3) ** 2;\n");
+            if (random.nextInt(50) == 0)
+                source.append("// a rare comment\n");
+        }
+        return source.toString();
+    }
+
+    /**
+     * Many short fragments that switch between the preprocessor states.
+     * @param random Random source.
+     * @param length Minimum length.
+     * @return The source.
+     */
+    private static String pathological(Random random, int length) {
+        final String[] fragments = {"/", "a/b", "//\n", "/**/", "/*/*/", "/*\n*/", "/ *", "*/*x*/", "//*\n"};
+        final StringBuilder source = new StringBuilder();
+        while (source.length() < length)
+            source.append(fragments[random.nextInt(fragments.length)]).append(' ');
+        return source.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.schill.samuel.Grammar;
+import edu.hm.schill.samuel.MyLanguageGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyLanguageGenerator on the language grammars of the Corpus:
+ * from scratch, resumed from a cached shorter length, and fully cached.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+    /**
+     * Number of grammars the caching generator keeps.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * Name of the grammar in Corpus.LANGUAGE_GRAMMARS.
+     */
+    @Param({"small", "ambiguous-cf", "ambiguous-type1", "deep-recursion", "context-sensitive", "many-rules"})
+    public String grammar;
+
+    /**
+     * Generator without cache.
+     */
+    private MyLanguageGenerator cold;
+    /**
+     * Generator with cache.
+     */
+    private MyLanguageGenerator caching;
+    /**
+     * The grammar as string.
+     */
+    private String rules;
+    /**
+     * The translated grammar.
+     */
+    private Grammar compiled;
+    /**
+     * Length to generate up to.
+     */
+    private int length;
+
+    /**
+     * Creates the generators.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Map.Entry<String, Integer> entry = Corpus.LANGUAGE_GRAMMARS.get(grammar);
+        rules = entry.getKey();
+        length = entry.getValue();
+        compiled = Grammar.parse(rules);
+        cold = new MyLanguageGenerator(Runtime.getRuntime().availableProcessors(), 0);
+        caching = new MyLanguageGenerator(Runtime.getRuntime().availableProcessors(), CACHE_SIZE);
+    }
+
+    /**
+     * Stops the workers of the generators.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cold.close();
+        caching.close();
+    }
+
+    /**
+     * A cache that holds the words up to two less than the length, fresh for every invocation of extend.
+     */
+    @State(Scope.Benchmark)
+    public static class Shorter {
+        /**
+         * Fills the cache.
+         * @param benchmark The benchmark with the generator and grammar.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(GeneratorBenchmark benchmark) {
+            benchmark.caching.clearCache();
+            benchmark.caching.generate(benchmark.compiled, benchmark.length - 2).count();
+        }
+    }
+
+    /**
+     * Reads the grammar and generates all words without cache.
+     * @return Number of words.
+     */
+    @Benchmark
+    public long generate() {
+        return cold.generate(cold.read(rules), length).count();
+    }
+
+    /**
+     * Generates the last two lengths after the cached shorter ones.
+     * @param shorter The prepared cache.
+     * @return Number of words.
+     */
+    @Benchmark
+    public long extend(Shorter shorter) {
+        return caching.generate(compiled, length).count();
+    }
+
+    /**
+     * Generates from a cache that already holds all words.
+     * @return Number of words.
+     */
+    @Benchmark
+    public long cached() {
+        return caching.generate(compiled, length).count();
+    }
+}
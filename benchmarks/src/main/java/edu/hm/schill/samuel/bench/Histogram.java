@@ -0,0 +1,148 @@
+package edu.hm.schill.samuel.bench;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Latencies in buckets of fixed relative width, so that any number of values fits in constant space.
+ * Each power of two is split into SUB_BUCKETS buckets, which bounds the error of a percentile to about 3%.
+ * Not thread-safe: each thread records into its own histogram and they are added up afterwards.
+ */
+public final class Histogram {
+    /**
+     * Bits of a value below its highest set bit that select the bucket.
+     */
+    private static final int SUB_BITS = 5;
+    /**
+     * Buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Number of values per bucket.
+     */
+    private final long[] counts = new long[(Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS];
+    /**
+     * Number of values.
+     */
+    private long count;
+    /**
+     * Largest value.
+     */
+    private long max;
+
+    /**
+     * Records a value.
+     * @param value A non-negative value, e.g. nanoseconds.
+     */
+    public void record(long value) {
+        counts[index(value)]++;
+        count++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values of another histogram.
+     * @param other The other histogram.
+     */
+    public void add(Histogram other) {
+        for (int index = 0; index < counts.length; index++)
+            counts[index] += other.counts[index];
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Number of values.
+     * @return The number.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Largest value.
+     * @return The value, exact, or 0 if empty.
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * A percentile.
+     * @param fraction The percentile as fraction, e.g. 0.99.
+     * @return Upper bound of the bucket holding the percentile, at most max, or 0 if empty.
+     */
+    public long percentile(double fraction) {
+        final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank)
+                return Math.min(max, upper(index));
+        }
+        return max;
+    }
+
+    /**
+     * Prints one line per power of two with values: range, count, cumulative share and a bar.
+     * @param out Where to print.
+     * @param unit Divisor for the printed ranges, e.g. 1000 for microseconds from nanoseconds.
+     * @param unitName Name of the printed unit.
+     */
+    public void print(PrintStream out, long unit, String unitName) {
+        long seen = 0;
+        long widest = 1;
+        for (int power = 0; power < Long.SIZE; power++)
+            widest = Math.max(widest, range(power));
+        for (int power = 0; power < Long.SIZE; power++) {
+            final long inRange = range(power);
+            if (inRange == 0)
+                continue;
+            seen += inRange;
+            final long from = power == 0 ? 0 : 1L << power - 1;
+            out.printf(Locale.ROOT, "  %12.1f - %12.1f %s %12d %7.3f%% %s%n",
+                       (double) from / unit, (double) ((1L << power) - 1) / unit, unitName, inRange,
+                       seen * 100.0 / count, "#".repeat((int) (inRange * 40 / widest)));
+        }
+    }
+
+    /**
+     * Number of values whose highest set bit is a given one.
+     * @param power Number of significant bits, 0 for the value 0.
+     * @return The number.
+     */
+    private long range(int power) {
+        if (power == 0)
+            return counts[0];
+        long sum = 0;
+        for (int index = index(1L << power - 1), last = index((1L << power) - 1); index <= last; index++)
+            sum += counts[index];
+        return sum;
+    }
+
+    /**
+     * Bucket of a value.
+     * @param value The value.
+     * @return Index into counts.
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) Math.max(0, value);
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) (value >>> exponent - SUB_BITS & SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Largest value of a bucket.
+     * @param index Index into counts.
+     * @return The value.
+     */
+    private static long upper(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,452 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.schill.samuel.CompiledParser;
+import edu.hm.schill.samuel.Grammar;
+import edu.hm.schill.samuel.MyLanguageGenerator;
+import edu.hm.schill.samuel.MyParserGenerator;
+import edu.hm.schill.samuel.ParserCompiler;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Load test of the whole toolchain for one LL(1) grammar: MyLanguageGenerator produces a corpus of words,
+ * some of them are mutated into mostly invalid inputs, and the parser that MyParserGenerator generates
+ * for the same grammar parses the corpus in a closed loop on several threads.
+ * Reports throughput, a latency histogram, the allocation rate and how many inputs were accepted
+ * or rejected with a SyntaxErrorException, and writes the result as a JSON line, see Result.
+ * Unlike the JMH benchmarks it keeps all threads busy for a long time on data of realistic size.
+ * The same options and seed give the same corpus, so runs can be compared.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>--grammar GRAMMAR: The grammar, as for the generators. Required.</li>
+ * <li>--length N: Generate words up to this length, default 12.</li>
+ * <li>--words N: Keep a uniform sample of at most this many words, default 100000.</li>
+ * <li>--invalid FRACTION: Share of mutated inputs in the corpus, default 0.1.</li>
+ * <li>--threads N: Parsing threads, default all processors.</li>
+ * <li>--warmup MILLIS: Warm-up time, default 2000.</li>
+ * <li>--time MILLIS: Measurement time, default 10000.</li>
+ * <li>--strategy RECURSIVE|TABLE: Strategy of the generated parser, default RECURSIVE.</li>
+ * <li>--output NODES|EVENTS: Output of the generated parser, default NODES. EVENTS parses into flat trees.</li>
+ * <li>--spill DIR: Generate the words with sentential forms spilled to this directory.</li>
+ * <li>--budget MB: Memory budget of the generator when spilling, default 64.</li>
+ * <li>--seed N: Seed for sampling and mutations, default 1.</li>
+ * <li>--name NAME: Name of the result, default "load".</li>
+ * <li>--out FILE: Write the JSON line to this file instead of stdout.</li>
+ * </ul>
+ */
+public final class LoadTest {
+    /**
+     * Stack size of the parsing threads. Generated recursive parsers recurse once per nesting level.
+     */
+    private static final long STACK_SIZE = 1L << 28;
+    /**
+     * Measures allocated bytes of the parsing threads.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * What one parsing thread measured.
+     */
+    private static final class Worker {
+        /**
+         * Latencies of the measured parses in nanoseconds.
+         */
+        private final Histogram latencies = new Histogram();
+        /**
+         * Accepted inputs.
+         */
+        private long accepted;
+        /**
+         * Inputs rejected with a SyntaxErrorException.
+         */
+        private long rejected;
+        /**
+         * Inputs that failed with another exception.
+         */
+        private long failed;
+        /**
+         * Generated words that were rejected. Points to a bug in one of the generators.
+         */
+        private long unexpected;
+        /**
+         * Mutated inputs that were accepted anyway, because the mutation hit another word of the language.
+         */
+        private long mutantsAccepted;
+        /**
+         * Chars of the measured inputs.
+         */
+        private long chars;
+        /**
+         * Bytes allocated during the measurement.
+         */
+        private long allocated;
+        /**
+         * The first generated word that was rejected, or null.
+         */
+        private String example;
+        /**
+         * What the thread threw, if it ended unexpectedly.
+         */
+        private Throwable failure;
+        /**
+         * Sink for parse trees.
+         */
+        private int blackhole;
+    }
+
+    /**
+     * The parser.
+     */
+    private final CompiledParser parser;
+    /**
+     * Whether the parser builds flat trees.
+     */
+    private final boolean flat;
+    /**
+     * The inputs.
+     */
+    private final String[] inputs;
+    /**
+     * Per input, whether it was mutated.
+     */
+    private final boolean[] mutated;
+
+    /**
+     * A load test on a prepared corpus.
+     * @param parser The parser.
+     * @param flat Whether the parser builds flat trees.
+     * @param inputs The inputs.
+     * @param mutated Per input, whether it was mutated.
+     */
+    private LoadTest(CompiledParser parser, boolean flat, String[] inputs, boolean[] mutated) {
+        this.parser = parser;
+        this.flat = flat;
+        this.inputs = inputs;
+        this.mutated = mutated;
+    }
+
+    /**
+     * Runs the load test.
+     * @param args Options, see class comment.
+     * @throws Exception If a parsing thread fails or an option is wrong.
+     */
+    public static void main(String... args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (int index = 0; index + 1 < args.length; index += 2)
+            options.put(args[index], args[index + 1]);
+        if (!options.containsKey("--grammar"))
+            throw new IllegalArgumentException("usage: LoadTest --grammar GRAMMAR [options], see class comment");
+        final String grammar = options.get("--grammar");
+        final int length = Integer.parseInt(options.getOrDefault("--length", "12"));
+        final int words = Integer.parseInt(options.getOrDefault("--words", "100000"));
+        final double invalid = Double.parseDouble(options.getOrDefault("--invalid", "0.1"));
+        final int threads = Integer.parseInt(options.getOrDefault("--threads",
+                                                                  String.valueOf(Runtime.getRuntime().availableProcessors())));
+        final long warmup = Long.parseLong(options.getOrDefault("--warmup", "2000"));
+        final long time = Long.parseLong(options.getOrDefault("--time", "10000"));
+        final MyParserGenerator.Strategy strategy =
+                MyParserGenerator.Strategy.valueOf(options.getOrDefault("--strategy", "RECURSIVE"));
+        final MyParserGenerator.Output output =
+                MyParserGenerator.Output.valueOf(options.getOrDefault("--output", "NODES"));
+        final Random random = new Random(Long.parseLong(options.getOrDefault("--seed", "1")));
+        if (invalid < 0 || invalid >= 1)
+            throw new IllegalArgumentException("--invalid must be at least 0 and below 1");
+
+        long started = System.nanoTime();
+        final List<String> sample = new ArrayList<>();
+        long generated = 0;
+        try (MyLanguageGenerator generator = options.containsKey("--spill")
+                ? new MyLanguageGenerator(Runtime.getRuntime().availableProcessors(),
+                                          Paths.get(options.get("--spill")),
+                                          Long.parseLong(options.getOrDefault("--budget", "64")) << 20)
+                : new MyLanguageGenerator(Runtime.getRuntime().availableProcessors(), 0);
+             Stream<String> language = generator.generate(Grammar.parse(grammar), length)) {
+            for (String word : (Iterable<String>) language::iterator)
+                sample(sample, words, word, ++generated, random);
+        }
+        if (sample.isEmpty())
+            throw new IllegalArgumentException("grammar has no words up to length " + length);
+        System.err.printf(Locale.ROOT, "generated %d words up to length %d in %d ms, sampled %d%n",
+                          generated, length, (System.nanoTime() - started) / 1_000_000, sample.size());
+
+        final int mutants = (int) Math.round(sample.size() * invalid / (1 - invalid));
+        final String alphabet = alphabet(grammar);
+        final List<Map.Entry<String, Boolean>> corpus = new ArrayList<>();
+        sample.forEach(word -> corpus.add(Map.entry(word, false)));
+        for (int count = 0; count < mutants; count++)
+            corpus.add(Map.entry(mutate(sample.get(random.nextInt(sample.size())), alphabet, random), true));
+        Collections.shuffle(corpus, random);
+
+        started = System.nanoTime();
+        final CompiledParser parser = new ParserCompiler(strategy, output, null).compile(grammar);
+        System.err.printf(Locale.ROOT, "compiled %s parser in %d ms%n",
+                          strategy, (System.nanoTime() - started) / 1_000_000);
+
+        final boolean[] mutated = new boolean[corpus.size()];
+        for (int index = 0; index < corpus.size(); index++)
+            mutated[index] = corpus.get(index).getValue();
+        final Result result = new LoadTest(parser, output == MyParserGenerator.Output.EVENTS,
+                                           corpus.stream().map(Map.Entry::getKey).toArray(String[]::new), mutated)
+                .run(threads, warmup, time, options.getOrDefault("--name", "load"));
+
+        final Path out = options.containsKey("--out") ? Paths.get(options.get("--out")) : null;
+        try (PrintStream json = out == null ? new PrintStream(System.out, true) : new PrintStream(out.toFile())) {
+            json.println(result.toJson());
+        }
+    }
+
+    /**
+     * Keeps a uniform sample of the words seen so far, by reservoir sampling.
+     * @param sample The sample.
+     * @param size Size of the sample.
+     * @param word The next word.
+     * @param seen Number of words seen including this one.
+     * @param random Source of randomness.
+     */
+    private static void sample(List<String> sample, int size, String word, long seen, Random random) {
+        if (sample.size() < size)
+            sample.add(word);
+        else {
+            final long slot = (long) (random.nextDouble() * seen);
+            if (slot < size)
+                sample.set((int) slot, word);
+        }
+    }
+
+    /**
+     * The terminals of a grammar.
+     * @param grammar The grammar.
+     * @return All chars on right sides that are not nonterminals, or "?" if there are none.
+     */
+    private static String alphabet(String grammar) {
+        final StringBuilder alphabet = new StringBuilder();
+        Grammar.parse(grammar).productions()
+                .flatMapToInt(rule -> rule[1].chars())
+                .filter(chr -> chr < 'A' || chr > 'Z')
+                .distinct()
+                .forEach(alphabet::appendCodePoint);
+        return alphabet.length() == 0 ? "?" : alphabet.toString();
+    }
+
+    /**
+     * Changes a word at a random place: deletes, inserts, replaces or swaps chars.
+     * @param word The word.
+     * @param alphabet Chars to insert.
+     * @param random Source of randomness.
+     * @return The mutated word, never the word itself. May still be a word of the language.
+     */
+    private static String mutate(String word, String alphabet, Random random) {
+        final StringBuilder result = new StringBuilder(word);
+        final char chr = alphabet.charAt(random.nextInt(alphabet.length()));
+        final int kind = word.isEmpty() ? 1 : random.nextInt(word.length() > 1 ? 4 : 3);
+        final int at = random.nextInt(word.length() + (kind == 1 ? 1 : 0) - (kind == 3 ? 1 : 0));
+        switch (kind) {
+            case 0:
+                result.deleteCharAt(at);
+                break;
+            case 1:
+                result.insert(at, chr);
+                break;
+            case 2:
+                result.setCharAt(at, chr);
+                break;
+            default:
+                result.setCharAt(at, word.charAt(at + 1));
+                result.setCharAt(at + 1, word.charAt(at));
+        }
+        /* Equal chars swapped or replaced: insert instead, which always changes the word. */
+        final String mutant = result.toString();
+        return mutant.equals(word) ? new StringBuilder(word).insert(at, chr).toString() : mutant;
+    }
+
+    /**
+     * Parses the corpus on several threads and reports.
+     * @param threads Number of threads.
+     * @param warmupMillis Warm-up time.
+     * @param measureMillis Measurement time.
+     * @param name Name of the result.
+     * @return The result.
+     * @throws Exception If a parsing thread fails.
+     */
+    private Result run(int threads, long warmupMillis, long measureMillis, String name) throws Exception {
+        final Worker[] workers = new Worker[threads];
+        final Thread[] running = new Thread[threads];
+        final long start = System.nanoTime() + 10_000_000;
+        final long measured = start + warmupMillis * 1_000_000;
+        final long end = measured + measureMillis * 1_000_000;
+        System.gc();
+        final long gcCountBefore = gcCount();
+        final long gcMillisBefore = gcMillis();
+        for (int index = 0; index < threads; index++) {
+            final Worker worker = workers[index] = new Worker();
+            final int first = (int) ((long) inputs.length * index / threads);
+            running[index] = new Thread(null, () -> {
+                try {
+                    work(worker, first, start, measured, end);
+                } catch (Throwable throwable) {
+                    worker.failure = throwable;
+                }
+            }, "load-" + index, STACK_SIZE);
+            running[index].start();
+        }
+        for (Thread thread : running)
+            thread.join();
+
+        final Worker total = new Worker();
+        for (Worker worker : workers) {
+            if (worker.failure != null)
+                throw new IllegalStateException("parsing thread failed", worker.failure);
+            total.latencies.add(worker.latencies);
+            total.accepted += worker.accepted;
+            total.rejected += worker.rejected;
+            total.failed += worker.failed;
+            total.unexpected += worker.unexpected;
+            total.mutantsAccepted += worker.mutantsAccepted;
+            total.chars += worker.chars;
+            total.allocated += worker.allocated;
+            if (total.example == null)
+                total.example = worker.example;
+        }
+        final long operations = total.latencies.count();
+        final long nanos = end - measured;
+        final Result result = new Result("load", name, operations,
+                                         Math.max(1, Math.round((double) total.chars / Math.max(1, operations))),
+                                         nanos,
+                                         total.latencies.percentile(0.50),
+                                         total.latencies.percentile(0.90),
+                                         total.latencies.percentile(0.99),
+                                         total.latencies.percentile(0.999),
+                                         total.latencies.max(),
+                                         (double) total.allocated / Math.max(1, operations),
+                                         gcCount() - gcCountBefore,
+                                         gcMillis() - gcMillisBefore);
+        report(total, threads, nanos, result);
+        return result;
+    }
+
+    /**
+     * Parses inputs in a closed loop, from the first of this thread on and wrapping around.
+     * @param worker Collects the measurements.
+     * @param first Index of the first input.
+     * @param start System.nanoTime of the start, so that all threads start together.
+     * @param measured System.nanoTime when the warm-up ends and the measurement begins.
+     * @param end System.nanoTime when the measurement ends.
+     */
+    private void work(Worker worker, int first, long start, long measured, long end) {
+        final long threadId = Thread.currentThread().getId();
+        while (System.nanoTime() < start)
+            Thread.onSpinWait();
+        int index = first;
+        while (System.nanoTime() < measured) {
+            worker.blackhole ^= System.identityHashCode(parse(inputs[index]));
+            index = index + 1 == inputs.length ? 0 : index + 1;
+        }
+        final long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        for (long now = System.nanoTime(); now < end; ) {
+            final String input = inputs[index];
+            final Object tree = parse(input);
+            final long after = System.nanoTime();
+            worker.latencies.record(after - now);
+            worker.chars += input.length();
+            if (tree instanceof Exception) {
+                if (!"SyntaxErrorException".equals(tree.getClass().getSimpleName()))
+                    worker.failed++;
+                else
+                    worker.rejected++;
+                if (!mutated[index]) {
+                    worker.unexpected++;
+                    if (worker.example == null)
+                        worker.example = input + " -> " + tree;
+                }
+            } else {
+                worker.accepted++;
+                if (mutated[index])
+                    worker.mutantsAccepted++;
+            }
+            worker.blackhole ^= System.identityHashCode(tree);
+            index = index + 1 == inputs.length ? 0 : index + 1;
+            now = after;
+        }
+        worker.allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    }
+
+    /**
+     * Parses an input.
+     * @param input The input.
+     * @return The parse tree, or the exception of the parser.
+     */
+    private Object parse(String input) {
+        try {
+            return flat ? parser.parseFlat(input) : parser.parse(input);
+        } catch (Exception exception) {
+            return exception;
+        }
+    }
+
+    /**
+     * Prints a readable report.
+     * @param total The measurements of all threads.
+     * @param threads Number of threads.
+     * @param nanos Measurement time.
+     * @param result The result.
+     */
+    private void report(Worker total, int threads, long nanos, Result result) {
+        final long operations = Math.max(1, total.latencies.count());
+        final double seconds = nanos / 1e9;
+        int invalid = 0;
+        for (boolean mutant : mutated)
+            invalid += mutant ? 1 : 0;
+        System.err.printf(Locale.ROOT, "corpus    %d inputs, %d mutated, %d threads, %.1f s%n",
+                          inputs.length, invalid, threads, seconds);
+        System.err.printf(Locale.ROOT, "throughput %.1f parses/s, %.1f chars/s%n",
+                          result.getOperationsPerSecond(), total.chars / seconds);
+        System.err.printf(Locale.ROOT, "parses    %d accepted (%.2f%%), %d SyntaxErrorException (%.2f%%), %d other%n",
+                          total.accepted, total.accepted * 100.0 / operations,
+                          total.rejected, total.rejected * 100.0 / operations, total.failed);
+        System.err.printf(Locale.ROOT, "          %d parses of mutated inputs accepted, %d of generated words rejected%n",
+                          total.mutantsAccepted, total.unexpected);
+        if (total.example != null)
+            System.err.println("          first rejected word: " + total.example);
+        System.err.printf(Locale.ROOT, "allocation %.1f B/parse, %.1f MB/s%n",
+                          result.getBytesPerOperation(), total.allocated / seconds / (1 << 20));
+        System.err.printf(Locale.ROOT, "latency   p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n",
+                          total.latencies.percentile(0.50), total.latencies.percentile(0.90),
+                          total.latencies.percentile(0.99), total.latencies.percentile(0.999),
+                          total.latencies.max());
+        total.latencies.print(System.err, 1000, "us");
+    }
+
+    /**
+     * Total number of garbage collections so far.
+     * @return Number of collections of all collectors.
+     */
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .sum();
+    }
+
+    /**
+     * Total time spent in garbage collections so far.
+     * @return Milliseconds of all collectors.
+     */
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+}
@@ -0,0 +1,100 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.schill.samuel.CompiledParser;
+import edu.hm.schill.samuel.ParserCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of short records parsed one after the other and with CompiledParser.parseAll,
+ * and ParserCompiler with and without a cached parser.
+ * Batch results are per record.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBatchBenchmark {
+    /**
+     * Compiler with the parsers of earlier calls.
+     */
+    private ParserCompiler compiler;
+    /**
+     * Parser for the records.
+     */
+    private CompiledParser records;
+    /**
+     * The small grammar.
+     */
+    private String small;
+
+    /**
+     * Compiles the parsers.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        compiler = new ParserCompiler();
+        records = compiler.compile(Corpus.PARSER_GRAMMARS.get("prefix-expressions").getKey());
+        small = Corpus.PARSER_GRAMMARS.get("small").getKey();
+        compiler.compile(small);
+    }
+
+    /**
+     * Parses the records one after the other.
+     * @return Number of valid records.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.RECORD_COUNT)
+    public long sequential() {
+        return Corpus.RECORDS.stream().filter(input -> {
+            try {
+                return records.parse(input) != null;
+            } catch (Exception exception) {
+                return false;
+            }
+        }).count();
+    }
+
+    /**
+     * Parses the records in parallel.
+     * @return The outcomes.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.RECORD_COUNT)
+    public List<CompiledParser.Outcome> parallel() {
+        return records.parseAll(Corpus.RECORDS);
+    }
+
+    /**
+     * Generates, compiles and loads a parser with a new compiler.
+     * @return The parser.
+     */
+    @Benchmark
+    public CompiledParser compileCold() {
+        return new ParserCompiler().compile(small);
+    }
+
+    /**
+     * Looks up a parser compiled before.
+     * @return The parser.
+     */
+    @Benchmark
+    public CompiledParser compileCached() {
+        return compiler.compile(small);
+    }
+}
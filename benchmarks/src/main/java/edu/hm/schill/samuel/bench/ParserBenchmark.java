@@ -0,0 +1,97 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.schill.samuel.CompiledParser;
+import edu.hm.schill.samuel.MyParserGenerator;
+import edu.hm.schill.samuel.ParserCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyParserGenerator and the parsers it generates on the parser grammars of the Corpus,
+ * for each strategy and output. Generated recursive parsers recurse once per nesting level,
+ * hence the large thread stacks.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss1g")
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    /**
+     * Name of the grammar in Corpus.PARSER_GRAMMARS.
+     */
+    @Param({"small", "deep", "very-deep", "wide", "prefix-expressions", "chain"})
+    public String grammar;
+    /**
+     * How the generated parser selects productions.
+     */
+    @Param({"RECURSIVE", "TABLE"})
+    public MyParserGenerator.Strategy strategy;
+    /**
+     * What the generated parser builds.
+     */
+    @Param({"NODES", "EVENTS"})
+    public MyParserGenerator.Output output;
+
+    /**
+     * The generator.
+     */
+    private MyParserGenerator generator;
+    /**
+     * The grammar as string.
+     */
+    private String rules;
+    /**
+     * A valid input.
+     */
+    private String input;
+    /**
+     * The generated parser.
+     */
+    private CompiledParser parser;
+
+    /**
+     * Generates and compiles the parser.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Map.Entry<String, String> entry = Corpus.PARSER_GRAMMARS.get(grammar);
+        rules = entry.getKey();
+        input = entry.getValue();
+        generator = new MyParserGenerator(strategy, output);
+        parser = new ParserCompiler(strategy, output, null).compile(rules);
+    }
+
+    /**
+     * Generates the source of the parser.
+     * @return The source.
+     */
+    @Benchmark
+    public String generate() {
+        return generator.generate(rules);
+    }
+
+    /**
+     * Parses the valid input, into Node trees or a flat tree depending on the output.
+     * @return The parse tree.
+     * @throws Exception If the input does not parse.
+     */
+    @Benchmark
+    public Object parse() throws Exception {
+        return output == MyParserGenerator.Output.EVENTS ? parser.parseFlat(input) : parser.parse(input);
+    }
+}
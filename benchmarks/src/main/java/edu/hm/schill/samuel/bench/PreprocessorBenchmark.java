@@ -0,0 +1,150 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import edu.hm.cs.rs.compiler.toys.base.Source;
+import edu.hm.schill.samuel.MyPreprocessor;
+import edu.hm.schill.samuel.ParallelPreprocessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyPreprocessor on the sources of the Corpus: through Source objects, on char arrays,
+ * and ParallelPreprocessor from file to file.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreprocessorBenchmark {
+    /**
+     * Name of the source in Corpus.SOURCES.
+     */
+    @Param({"comment-heavy", "large", "pathological"})
+    public String source;
+
+    /**
+     * The source.
+     */
+    private String text;
+    /**
+     * The source as chars.
+     */
+    private char[] input;
+    /**
+     * Room for the output.
+     */
+    private char[] output;
+    /**
+     * The parallel preprocessor.
+     */
+    private ParallelPreprocessor parallel;
+    /**
+     * The source as file.
+     */
+    private Path inputFile;
+    /**
+     * The output file.
+     */
+    private Path outputFile;
+
+    /**
+     * Prepares the inputs.
+     * @throws IOException If the files cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = Corpus.SOURCES.get(source);
+        input = text.toCharArray();
+        output = new char[input.length + 2];
+        parallel = new ParallelPreprocessor();
+        inputFile = Files.createTempFile("benchmark-" + source, ".in");
+        outputFile = Files.createTempFile("benchmark-" + source, ".out");
+        Files.write(inputFile, text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Stops the threads of the parallel preprocessor and deletes the files.
+     * @throws IOException If the files cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parallel.close();
+        Files.deleteIfExists(inputFile);
+        Files.deleteIfExists(outputFile);
+    }
+
+    /**
+     * The source as a new Source for every invocation, because preprocessing consumes it.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        /**
+         * The Source.
+         */
+        private Source source;
+
+        /**
+         * Fills the Source.
+         * @param benchmark The benchmark with the source.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(PreprocessorBenchmark benchmark) {
+            source = new Source();
+            for (int index = 0; index < benchmark.text.length(); index++)
+                source.append(benchmark.text.charAt(index));
+        }
+    }
+
+    /**
+     * Preprocesses a Source into a new Source.
+     * @param fresh The input.
+     * @return The output.
+     * @throws LexicalError Never, the sources end outside of comments.
+     */
+    @Benchmark
+    public Source process(Fresh fresh) throws LexicalError {
+        return new MyPreprocessor().process(fresh.source);
+    }
+
+    /**
+     * Preprocesses char arrays, the core of process.
+     * @return Length of the output.
+     * @throws LexicalError Never, the sources end outside of comments.
+     */
+    @Benchmark
+    public int core() throws LexicalError {
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        return preprocessor.finish(output, preprocessor.process(input, 0, input.length, output, 0));
+    }
+
+    /**
+     * Preprocesses the file in parallel chunks.
+     * @return The output file.
+     * @throws LexicalError Never, the sources end outside of comments.
+     * @throws IOException If the files cannot be read or written.
+     */
+    @Benchmark
+    public Path parallel() throws LexicalError, IOException {
+        parallel.process(inputFile, outputFile);
+        return outputFile;
+    }
+}
@@ -0,0 +1,197 @@
+package edu.hm.schill.samuel.bench;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The measurements of one run of LoadTest.
+ * Written and read as one JSON object per line, so that runs can be compared.
+ */
+public final class Result {
+    /**
+     * Matches a "key": value pair of a flat JSON object.
+     */
+    private static final Pattern FIELD = Pattern.compile("\"(\\w+)\"\\s*:\\s*(\"[^\"]*\"|[-0-9.eE]+)");
+
+    /**
+     * The measured component.
+     */
+    private final String component;
+    /**
+     * Name of the benchmark within the component.
+     */
+    private final String name;
+    /**
+     * Number of measured operations.
+     */
+    private final long operations;
+    /**
+     * Units processed per operation.
+     */
+    private final long units;
+    /**
+     * Total measured time in nanoseconds.
+     */
+    private final long nanos;
+    /**
+     * Median latency in nanoseconds.
+     */
+    private final long p50;
+    /**
+     * 90th percentile latency in nanoseconds.
+     */
+    private final long p90;
+    /**
+     * 99th percentile latency in nanoseconds.
+     */
+    private final long p99;
+    /**
+     * 99.9th percentile latency in nanoseconds.
+     */
+    private final long p999;
+    /**
+     * Maximum latency in nanoseconds.
+     */
+    private final long max;
+    /**
+     * Allocated bytes per operation.
+     */
+    private final double bytesPerOperation;
+    /**
+     * Garbage collections during the measurement.
+     */
+    private final long gcCount;
+    /**
+     * Milliseconds spent in garbage collections during the measurement.
+     */
+    private final long gcMillis;
+
+    /**
+     * A result.
+     * @param component The measured component.
+     * @param name Name of the benchmark within the component.
+     * @param operations Number of measured operations.
+     * @param units Units processed per operation.
+     * @param nanos Total measured time in nanoseconds.
+     * @param p50 Median latency in nanoseconds.
+     * @param p90 90th percentile latency in nanoseconds.
+     * @param p99 99th percentile latency in nanoseconds.
+     * @param p999 99.9th percentile latency in nanoseconds.
+     * @param max Maximum latency in nanoseconds.
+     * @param bytesPerOperation Allocated bytes per operation.
+     * @param gcCount Garbage collections during the measurement.
+     * @param gcMillis Milliseconds spent in garbage collections during the measurement.
+     */
+    public Result(String component, String name, long operations, long units, long nanos,
+                  long p50, long p90, long p99, long p999, long max,
+                  double bytesPerOperation, long gcCount, long gcMillis) {
+        this.component = component;
+        this.name = name;
+        this.operations = operations;
+        this.units = units;
+        this.nanos = nanos;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+        this.bytesPerOperation = bytesPerOperation;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    /**
+     * Unique key of the benchmark.
+     * @return component/name.
+     */
+    public String getKey() {
+        return component + "/" + name;
+    }
+
+    /**
+     * Throughput.
+     * @return Operations per second.
+     */
+    public double getOperationsPerSecond() {
+        return operations * 1e9 / nanos;
+    }
+
+    /**
+     * Throughput in processed units, e.g. chars.
+     * @return Units per second.
+     */
+    public double getUnitsPerSecond() {
+        return getOperationsPerSecond() * units;
+    }
+
+    /**
+     * Allocation rate.
+     * @return Allocated bytes per operation.
+     */
+    public double getBytesPerOperation() {
+        return bytesPerOperation;
+    }
+
+    /**
+     * Median latency.
+     * @return Nanoseconds.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * 99th percentile latency.
+     * @return Nanoseconds.
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Writes the result as a single line JSON object.
+     * @return The JSON object.
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                             "{\"component\": \"%s\", \"name\": \"%s\", \"operations\": %d, \"units\": %d, "
+                             + "\"nanos\": %d, \"opsPerSecond\": %.3f, \"unitsPerSecond\": %.3f, "
+                             + "\"p50Nanos\": %d, \"p90Nanos\": %d, \"p99Nanos\": %d, \"p999Nanos\": %d, "
+                             + "\"maxNanos\": %d, \"bytesPerOp\": %.1f, \"gcCount\": %d, \"gcMillis\": %d}",
+                             component, name, operations, units, nanos,
+                             getOperationsPerSecond(), getUnitsPerSecond(),
+                             p50, p90, p99, p999, max, bytesPerOperation, gcCount, gcMillis);
+    }
+
+    /**
+     * Reads a result written by toJson.
+     * @param json A single line JSON object.
+     * @return The result.
+     */
+    public static Result fromJson(String json) {
+        final Map<String, String> fields = new HashMap<>();
+        final Matcher matcher = FIELD.matcher(json);
+        while (matcher.find())
+            fields.put(matcher.group(1), matcher.group(2).replace("\"", ""));
+        return new Result(fields.get("component"), fields.get("name"),
+                          Long.parseLong(fields.get("operations")),
+                          Long.parseLong(fields.get("units")),
+                          Long.parseLong(fields.get("nanos")),
+                          Long.parseLong(fields.get("p50Nanos")),
+                          Long.parseLong(fields.get("p90Nanos")),
+                          Long.parseLong(fields.get("p99Nanos")),
+                          Long.parseLong(fields.get("p999Nanos")),
+                          Long.parseLong(fields.get("maxNanos")),
+                          Double.parseDouble(fields.get("bytesPerOp")),
+                          Long.parseLong(fields.get("gcCount")),
+                          Long.parseLong(fields.get("gcMillis")));
+    }
+
+    @Override public String toString() {
+        return String.format(Locale.ROOT, "%-44s %12.1f ops/s %14.1f units/s  p50 %10d ns  p99 %10d ns  %12.1f B/op",
+                             getKey(), getOperationsPerSecond(), getUnitsPerSecond(), p50, p99, bytesPerOperation);
+    }
+}
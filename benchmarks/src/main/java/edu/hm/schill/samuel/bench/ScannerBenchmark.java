@@ -0,0 +1,214 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import edu.hm.cs.rs.compiler.toys.base.Source;
+import edu.hm.schill.samuel.DenseScanner;
+import edu.hm.schill.samuel.IncrementalLexer;
+import edu.hm.schill.samuel.MyPreprocessor;
+import edu.hm.schill.samuel.MyScanner;
+import edu.hm.schill.samuel.TokenCursor;
+import edu.hm.schill.samuel.TokenPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scanners on the sources of the Corpus: the interpreted description, the dense DFA
+ * into token lists and through a cursor, preprocessing and scanning in two passes or fused
+ * in the pipeline, and the incremental lexer from scratch and after a small edit.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+    /**
+     * Name of the source in Corpus.SOURCES.
+     */
+    @Param({"comment-heavy", "large", "pathological"})
+    public String source;
+
+    /**
+     * The source.
+     */
+    private String text;
+    /**
+     * The source without comments.
+     */
+    private String code;
+    /**
+     * The source without comments as chars.
+     */
+    private char[] chars;
+    /**
+     * Interprets the description of MyScanner.
+     */
+    private ScannerInterpreter interpreter;
+    /**
+     * The DFA of MyScanner.
+     */
+    private DenseScanner dense;
+    /**
+     * A cursor over the dense scanner.
+     */
+    private TokenCursor cursor;
+    /**
+     * The incremental lexer that gets edited.
+     */
+    private IncrementalLexer lexer;
+    /**
+     * Where the edit happens.
+     */
+    private int middle;
+
+    /**
+     * Builds the scanners and strips the comments.
+     * @throws LexicalError Never, the sources end outside of comments.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws LexicalError {
+        text = Corpus.SOURCES.get(source);
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        final char[] output = new char[text.length() + 2];
+        code = new String(output, 0,
+                          preprocessor.finish(output, preprocessor.process(text.toCharArray(), 0, text.length(),
+                                                                           output, 0)));
+        chars = code.toCharArray();
+        interpreter = new ScannerInterpreter();
+        MyScanner.configure(interpreter);
+        dense = MyScanner.compiled();
+        cursor = new TokenCursor(dense);
+        lexer = new IncrementalLexer(dense, text);
+        middle = text.indexOf(' ', text.length() / 2) + 1;
+    }
+
+    /**
+     * The source as a new Source for every invocation, because preprocessing consumes it.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        /**
+         * The Source.
+         */
+        private Source source;
+
+        /**
+         * Fills the Source.
+         * @param benchmark The benchmark with the source.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(ScannerBenchmark benchmark) {
+            source = new Source();
+            for (int index = 0; index < benchmark.text.length(); index++)
+                source.append(benchmark.text.charAt(index));
+        }
+    }
+
+    /**
+     * Scans with the interpreted description.
+     * @return The tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public List<DenseScanner.Token> interpreted() throws LexicalError {
+        return interpreter.scan(code);
+    }
+
+    /**
+     * Scans with the DFA into a token list.
+     * @return The tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public List<DenseScanner.Token> dense() throws LexicalError {
+        return dense.scan(code);
+    }
+
+    /**
+     * Scans with the DFA through a cursor, without token objects.
+     * @return Sum over kinds and ends of the tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public long cursor() throws LexicalError {
+        final TokenCursor tokens = cursor.reset(chars, 0, chars.length);
+        long sum = 0;
+        while (tokens.next())
+            sum += tokens.kind() + tokens.end();
+        return sum;
+    }
+
+    /**
+     * Preprocesses into a Source and scans that.
+     * @param fresh The input.
+     * @return Number of tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public int twoPass(Fresh fresh) throws LexicalError {
+        return dense.scan(new MyPreprocessor().process(fresh.source)).size();
+    }
+
+    /**
+     * Preprocesses and scans in one pass.
+     * @return Sum over kinds and ends of the tokens.
+     * @throws LexicalError Never.
+     * @throws IOException Never.
+     */
+    @Benchmark
+    public long pipeline() throws LexicalError, IOException {
+        final TokenPipeline pipeline = new TokenPipeline(dense, new StringReader(text));
+        long sum = 0;
+        while (pipeline.next())
+            sum += pipeline.kind() + pipeline.end();
+        return sum;
+    }
+
+    /**
+     * Lexes the whole source incrementally from scratch.
+     * @return Number of tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public int incrementalFull() throws LexicalError {
+        return new IncrementalLexer(dense, text).size();
+    }
+
+    /**
+     * Inserts a statement in the middle and removes it again.
+     * @return Number of tokens.
+     * @throws LexicalError Never.
+     */
+    @Benchmark
+    public int incrementalEdit() throws LexicalError {
+        final String insertion = " q := 1;";
+        lexer.edit(middle, 0, insertion);
+        lexer.edit(middle, insertion.length(), "");
+        return lexer.size();
+    }
+
+    /**
+     * Builds the scanner from its description.
+     * @return The scanner.
+     */
+    @Benchmark
+    public MyScanner configure() {
+        return new MyScanner();
+    }
+}
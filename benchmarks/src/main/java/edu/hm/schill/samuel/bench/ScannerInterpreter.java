@@ -0,0 +1,94 @@
+package edu.hm.schill.samuel.bench;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import edu.hm.schill.samuel.DenseScanner;
+import edu.hm.schill.samuel.ScannerTarget;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs a scanner configuration the way BaseScanner keeps it: states by name,
+ * one map lookup by state name and char per char. The baseline for DenseScanner.
+ */
+public final class ScannerInterpreter implements ScannerTarget {
+    /**
+     * The start state.
+     */
+    private String start;
+    /**
+     * Next state by state and char.
+     */
+    private final Map<String, Map<Character, String>> transitions = new HashMap<>();
+    /**
+     * Token names by accepting state, null for ignored states.
+     */
+    private final Map<String, String> accepting = new HashMap<>();
+    /**
+     * Token names with an attribute.
+     */
+    private final Set<String> attributed = new HashSet<>();
+
+    @Override public void start(String state) {
+        start = state;
+    }
+
+    @Override public void transition(String from, String chars, String to) {
+        final Map<Character, String> row = transitions.computeIfAbsent(from, state -> new HashMap<>());
+        for (char chr : chars.toCharArray())
+            row.put(chr, to);
+    }
+
+    @Override public void accept(String state, String token) {
+        accepting.put(state, token);
+    }
+
+    @Override public void acceptAndIgnore(String state) {
+        accepting.put(state, null);
+    }
+
+    @Override public void accept(String token, boolean attribute) {
+        if (attribute)
+            attributed.add(token);
+        else
+            attributed.remove(token);
+    }
+
+    /**
+     * Scans a string with longest matches, like DenseScanner.scan.
+     * @param input The input.
+     * @return The tokens.
+     * @throws LexicalError If no token matches somewhere.
+     */
+    public List<DenseScanner.Token> scan(String input) throws LexicalError {
+        final List<DenseScanner.Token> result = new ArrayList<>();
+        int start = 0;
+        while (start < input.length()) {
+            String state = this.start;
+            String accepted = null;
+            int end = start;
+            for (int index = start; index < input.length(); index++) {
+                final Map<Character, String> row = transitions.get(state);
+                state = row == null ? null : row.get(input.charAt(index));
+                if (state == null)
+                    break;
+                if (accepting.containsKey(state)) {
+                    accepted = state;
+                    end = index + 1;
+                }
+            }
+            if (accepted == null)
+                throw new LexicalError();
+            final String token = accepting.get(accepted);
+            if (token != null)
+                result.add(new DenseScanner.Token(token, attributed.contains(token)
+                                                         ? input.substring(start, end) : null));
+            start = end;
+        }
+        return result;
+    }
+}
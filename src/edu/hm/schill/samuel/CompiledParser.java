@@ -0,0 +1,310 @@
+package edu.hm.schill.samuel;
+
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ein generierter Parser, uebersetzt und geladen.
+ * Generierte Parser halten ihren Zustand pro Aufruf, deshalb teilen sich alle Aufrufe eine Instanz
+ * und duerfen aus beliebig vielen Threads gleichzeitig kommen.
+ * Die Methoden reichen Exceptions des generierten Parsers unveraendert durch,
+ * insbesondere dessen SyntaxErrorException.
+ */
+public final class CompiledParser {
+    /**
+     * Hoechstens so viele Eingaben parst eine Aufgabe von parseAll.
+     */
+    private static final int CHUNK = 256;
+    /**
+     * Aufgaben pro Prozessor, auf die parseAll eine Collection mindestens verteilt.
+     */
+    private static final int TASKS_PER_PROCESSOR = 4;
+    /**
+     * Aufgaben pro Thread des Executors, die parseAll hoechstens gleichzeitig in Arbeit hat.
+     */
+    private static final int TASKS_IN_FLIGHT = 2;
+
+    /**
+     * Ergebnis einer Eingabe von parseAll: entweder ein Parsebaum oder eine Exception.
+     */
+    public static final class Outcome {
+        /**
+         * Die Eingabe.
+         */
+        private final String input;
+        /**
+         * Der Parsebaum, oder null.
+         */
+        private final Object tree;
+        /**
+         * Die Exception, oder null.
+         */
+        private final Exception error;
+
+        /**
+         * @param input Die Eingabe.
+         * @param tree Der Parsebaum, oder null.
+         * @param error Die Exception, oder null.
+         */
+        private Outcome(String input, Object tree, Exception error) {
+            this.input = input;
+            this.tree = tree;
+            this.error = error;
+        }
+
+        /**
+         * Die Eingabe.
+         * @return Die Eingabe.
+         */
+        public String getInput() {
+            return input;
+        }
+
+        /**
+         * Der Parsebaum.
+         * @return Ein Node des generierten Parsers, oder null bei einem Fehler.
+         */
+        public Object getTree() {
+            return tree;
+        }
+
+        /**
+         * Der Fehler.
+         * @return Meist eine SyntaxErrorException des generierten Parsers, eine IllegalStateException bei
+         *         Stackueberlauf, oder null, wenn die Eingabe passt.
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * Prueft, ob die Eingabe zur Grammatik passt.
+         * @return true, wenn es einen Parsebaum gibt.
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return input + " -> " + (error == null ? tree : error.getMessage());
+        }
+    }
+
+    /**
+     * Die Klasse des generierten Parsers.
+     */
+    private final Class<?> type;
+    /**
+     * Ihre Methode parse(String), gebunden an die gemeinsame Instanz.
+     */
+    private final MethodHandle parseString;
+    /**
+     * Ihre Methode parse(Reader), gebunden an die gemeinsame Instanz.
+     */
+    private final MethodHandle parseReader;
+    /**
+     * Ihre Methode parseFlat(String), gebunden an die gemeinsame Instanz,
+     * oder null, wenn der Parser Node-Baeume baut.
+     */
+    private final MethodHandle parseFlat;
+
+    /**
+     * @param type Die Klasse des generierten Parsers.
+     * @throws ReflectiveOperationException Wenn die Klasse nicht wie ein generierter Parser aussieht.
+     */
+    CompiledParser(Class<?> type) throws ReflectiveOperationException {
+        this.type = type;
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        final Class<?> node = type.getMethod("parse", String.class).getReturnType();
+        final Object instance = type.getConstructor().newInstance();
+        parseString = lookup.findVirtual(type, "parse", MethodType.methodType(node, String.class)).bindTo(instance);
+        parseReader = lookup.findVirtual(type, "parse", MethodType.methodType(node, Reader.class)).bindTo(instance);
+        MethodHandle flat;
+        try {
+            flat = lookup.findVirtual(type, "parseFlat", MethodType.methodType(int[].class, String.class))
+                    .bindTo(instance);
+        } catch (NoSuchMethodException exception) {
+            flat = null;
+        }
+        parseFlat = flat;
+    }
+
+    /**
+     * Die Klasse des generierten Parsers.
+     * @return Die Klasse.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Parst eine Eingabe.
+     * @param input Die Eingabe.
+     * @return Der Parsebaum, ein Node des generierten Parsers.
+     * @throws Exception SyntaxErrorException des generierten Parsers bei Syntaxfehlern.
+     */
+    public Object parse(String input) throws Exception {
+        return invoke(parseString, input);
+    }
+
+    /**
+     * Parst eine Eingabe aus einem Reader.
+     * @param input Die Eingabe.
+     * @return Der Parsebaum, ein Node des generierten Parsers.
+     * @throws Exception SyntaxErrorException des generierten Parsers bei Syntaxfehlern,
+     *         IOException beim Lesen.
+     */
+    public Object parse(Reader input) throws Exception {
+        return invoke(parseReader, input);
+    }
+
+    /**
+     * Parst eine Eingabe in einen flachen Baum, ohne Node-Objekte.
+     * @param input Die Eingabe.
+     * @return Der Parsebaum wie bei MyParserGenerator.Output.EVENTS beschrieben.
+     * @throws UnsupportedOperationException Wenn der Parser nicht mit Output.EVENTS generiert wurde.
+     * @throws Exception SyntaxErrorException des generierten Parsers bei Syntaxfehlern.
+     */
+    public int[] parseFlat(String input) throws Exception {
+        if (parseFlat == null)
+            throw new UnsupportedOperationException("parser builds Node trees, generate it with Output.EVENTS");
+        return (int[]) invoke(parseFlat, input);
+    }
+
+    /**
+     * Parst viele Eingaben parallel im gemeinsamen ForkJoinPool.
+     * @param inputs Die Eingaben.
+     * @return Ein Ergebnis pro Eingabe, in derselben Reihenfolge.
+     */
+    public List<Outcome> parseAll(Collection<String> inputs) {
+        return parseAll(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parst viele Eingaben parallel.
+     * Die Eingaben werden zu Aufgaben gebuendelt,
+     * damit der Executor auch bei sehr kurzen Eingaben nicht ins Gewicht faellt.
+     * @param inputs Die Eingaben.
+     * @param executor Fuehrt die Aufgaben aus, etwa ein Thread-Pool oder ein Executor mit virtuellen Threads.
+     * @return Ein Ergebnis pro Eingabe, in derselben Reihenfolge.
+     */
+    public List<Outcome> parseAll(Collection<String> inputs, Executor executor) {
+        final int tasks = TASKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        return parseAll(inputs.iterator(), Math.max(1, Math.min(CHUNK, inputs.size() / tasks)), executor)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Parst viele Eingaben parallel.
+     * Die Ergebnisse kommen der Reihe nach, waehrend der Stream noch Eingaben liefert.
+     * Es sind hoechstens einige Aufgaben pro Thread des Executors gleichzeitig in Arbeit,
+     * ein langer oder unendlicher Stream belegt also nur begrenzt Speicher.
+     * Das Ergebnis ist ein sequentieller Stream und wird erst beim Verbrauchen geparst.
+     * @param inputs Die Eingaben.
+     * @param executor Fuehrt die Aufgaben aus, etwa ein Thread-Pool oder ein Executor mit virtuellen Threads.
+     * @return Ein Ergebnis pro Eingabe, in derselben Reihenfolge.
+     */
+    public Stream<Outcome> parseAll(Stream<String> inputs, Executor executor) {
+        return parseAll(inputs.iterator(), CHUNK, executor).onClose(inputs::close);
+    }
+
+    /**
+     * Parst viele Eingaben parallel, gebuendelt zu Aufgaben fester Groesse.
+     * Holt erst dann weitere Eingaben, wenn die aelteste Aufgabe abgeholt wird.
+     * @param inputs Die Eingaben.
+     * @param chunk Eingaben pro Aufgabe.
+     * @param executor Fuehrt die Aufgaben aus.
+     * @return Ein Ergebnis pro Eingabe, in derselben Reihenfolge.
+     */
+    private Stream<Outcome> parseAll(Iterator<String> inputs, int chunk, Executor executor) {
+        final int window = TASKS_IN_FLIGHT * (executor instanceof ForkJoinPool pool
+                ? pool.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+        final Deque<CompletableFuture<Outcome[]>> tasks = new ArrayDeque<>(window);
+        final Iterator<Outcome[]> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                submit();
+                return !tasks.isEmpty();
+            }
+
+            @Override
+            public Outcome[] next() {
+                submit();
+                final CompletableFuture<Outcome[]> oldest = tasks.pollFirst();
+                if (oldest == null)
+                    throw new NoSuchElementException();
+                submit();
+                return oldest.join();
+            }
+
+            /**
+             * Fuellt das Fenster mit neuen Aufgaben auf.
+             */
+            private void submit() {
+                while (tasks.size() < window && inputs.hasNext()) {
+                    final List<String> group = new ArrayList<>(chunk);
+                    while (group.size() < chunk && inputs.hasNext())
+                        group.add(inputs.next());
+                    tasks.addLast(CompletableFuture.supplyAsync(() -> group.stream()
+                            .map(CompiledParser.this::outcome)
+                            .toArray(Outcome[]::new), executor));
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(Arrays::stream);
+    }
+
+    /**
+     * Parst eine Eingabe und faengt Exceptions ab.
+     * Auch ein Stackueberlauf bei zu tief verschachtelten Eingaben betrifft nur diese Eingabe.
+     * @param input Die Eingabe.
+     * @return Das Ergebnis.
+     */
+    private Outcome outcome(String input) {
+        try {
+            return new Outcome(input, parse(input), null);
+        } catch (Exception exception) {
+            return new Outcome(input, null, exception);
+        } catch (StackOverflowError overflow) {
+            return new Outcome(input, null, new IllegalStateException("input nested too deeply for the stack", overflow));
+        }
+    }
+
+    /**
+     * Ruft eine parse-Methode auf der gemeinsamen Parser-Instanz auf.
+     * @param parse Die Methode.
+     * @param input Die Eingabe.
+     * @return Der Parsebaum.
+     * @throws Exception Was der Parser wirft.
+     */
+    private static Object invoke(MethodHandle parse, Object input) throws Exception {
+        try {
+            return parse.invoke(input);
+        } catch (Exception | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package edu.hm.schill.samuel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Die Sprache einer kontextfreien Grammatik ohne leere rechte Seiten, Laenge fuer Laenge.
+ * Fuer jedes Nichtterminal und jede Laenge n werden seine Woerter der Laenge n aus den Woertern
+ * kuerzerer Laengen zusammengesetzt (dynamische Programmierung).
+ * Der Aufwand richtet sich damit nach der Anzahl verschiedener Woerter,
+ * nicht nach der Anzahl der Reihenfolgen, in denen sich eine Ableitung durchfuehren laesst.
+ * Jede Laenge baut auf den kuerzeren auf, eine groessere Laenge rechnet also einfach weiter.
+ */
+final class ContextFreeLanguage implements Language {
+    /**
+     * Anzahl moeglicher Nichtterminale A-Z.
+     */
+    private static final int NONTERMINALS = 26;
+
+    /**
+     * Die Produktionen, je linke und rechte Seite als Bytes.
+     */
+    private final byte[][][] rules;
+    /**
+     * Das Startsymbol als Index.
+     */
+    private final int start;
+    /**
+     * Die Woerter pro Nichtterminal und Laenge, alphabetisch sortiert.
+     * Index 0 ist leer, weil keine rechte Seite leer ist.
+     */
+    private final List<List<List<String>>> words = new ArrayList<>();
+
+    /**
+     * Eine Sprache, von der noch keine Laenge berechnet ist.
+     * @param rules Kontextfreie Produktionen ohne leere rechte Seiten.
+     *              Die linke Seite der ersten Produktion ist das Startsymbol.
+     */
+    ContextFreeLanguage(byte[][][] rules) {
+        this.rules = rules;
+        start = rules[0][0][0] - 'A';
+        words.add(Collections.nCopies(NONTERMINALS, Collections.emptyList()));
+    }
+
+    /**
+     * Prueft, ob eine Grammatik fuer diese Klasse taugt.
+     * @param rules Die Produktionen.
+     * @return true, wenn jede linke Seite ein einzelnes Nichtterminal und keine rechte Seite leer ist.
+     */
+    static boolean isContextFree(byte[][][] rules) {
+        return Arrays.stream(rules)
+                .allMatch(rule -> rule[0].length == 1 && isNonterminal(rule[0][0]) && rule[1].length > 0);
+    }
+
+    @Override
+    public boolean reaches(int length) {
+        return true;
+    }
+
+    /**
+     * Liefert die Woerter des Startsymbols einer Laenge.
+     * Berechnet dazu alle noch fehlenden kuerzeren Laengen.
+     * @param length Die Laenge.
+     * @return Die Woerter dieser Laenge, alphabetisch sortiert.
+     */
+    @Override
+    public synchronized List<String> words(int length) {
+        while (words.size() <= length)
+            words.add(nextLength());
+        return Collections.unmodifiableList(words.get(length).get(start));
+    }
+
+    /**
+     * Berechnet die Woerter aller Nichtterminale fuer die naechste Laenge.
+     * Produktionen mit mehreren Symbolen bauen nur auf kuerzeren Woertern auf.
+     * Nur Produktionen A -> B haengen von derselben Laenge ab,
+     * die werden wiederholt, bis sich nichts mehr aendert.
+     * @return Die Woerter pro Nichtterminal.
+     */
+    private List<List<String>> nextLength() {
+        final int length = words.size();
+        final List<Set<String>> found = new ArrayList<>();
+        for (int nonterminal = 0; nonterminal < NONTERMINALS; nonterminal++)
+            found.add(new HashSet<>());
+        final byte[] word = new byte[length];
+        for (byte[][] rule : rules)
+            if (!isUnit(rule))
+                combine(rule[1], 0, word, 0, found.get(rule[0][0] - 'A'));
+
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (byte[][] rule : rules)
+                if (isUnit(rule))
+                    changed |= found.get(rule[0][0] - 'A').addAll(found.get(rule[1][0] - 'A'));
+        }
+
+        final List<List<String>> sorted = new ArrayList<>();
+        for (Set<String> set : found) {
+            final List<String> list = new ArrayList<>(set);
+            Collections.sort(list);
+            sorted.add(list);
+        }
+        return sorted;
+    }
+
+    /**
+     * Setzt Woerter aus den Symbolen einer rechten Seite zusammen,
+     * sodass sie den Rest des Wortes genau ausfuellen.
+     * @param rightSide Die rechte Seite.
+     * @param symbol Index des naechsten Symbols der rechten Seite.
+     * @param word Puffer fuer das Wort, so lang wie die aktuelle Laenge.
+     * @param filled Anzahl bereits belegter Zeichen im Puffer.
+     * @param found Nimmt fertige Woerter auf.
+     */
+    private void combine(byte[] rightSide, int symbol, byte[] word, int filled, Set<String> found) {
+        final int remainingSymbols = rightSide.length - symbol;
+        if (remainingSymbols == 0) {
+            if (filled == word.length)
+                found.add(new String(word, StandardCharsets.ISO_8859_1));
+            return;
+        }
+        final byte chr = rightSide[symbol];
+        if (!isNonterminal(chr)) {
+            if (filled < word.length) {
+                word[filled] = chr;
+                combine(rightSide, symbol + 1, word, filled + 1, found);
+            }
+            return;
+        }
+        /* Jedes weitere Symbol braucht mindestens ein Zeichen. */
+        final int maxLength = word.length - filled - (remainingSymbols - 1);
+        for (int length = 1; length <= maxLength && length < words.size(); length++)
+            for (String part : words.get(length).get(chr - 'A')) {
+                for (int index = 0; index < length; index++)
+                    word[filled + index] = (byte) part.charAt(index);
+                combine(rightSide, symbol + 1, word, filled + length, found);
+            }
+    }
+
+    /**
+     * Prueft, ob eine Produktion die Form A -> B hat.
+     * @param rule Die Produktion.
+     * @return true, wenn die rechte Seite ein einzelnes Nichtterminal ist.
+     */
+    private static boolean isUnit(byte[][] rule) {
+        return rule[1].length == 1 && isNonterminal(rule[1][0]);
+    }
+
+    /**
+     * Prueft, ob ein Zeichen ein Nichtterminal ist.
+     * @param chr Das Zeichen.
+     * @return true bei einem Grossbuchstaben.
+     */
+    private static boolean isNonterminal(byte chr) {
+        return chr >= 'A' && chr <= 'Z';
+    }
+}
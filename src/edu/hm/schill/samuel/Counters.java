@@ -0,0 +1,83 @@
+package edu.hm.schill.samuel;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics kept in memory: a sum per counter and the maximum and number of samples per level.
+ * Safe for many threads; counting takes a map lookup and an uncontended add.
+ */
+public final class Counters implements Metrics {
+    /**
+     * Sums by counter.
+     */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    /**
+     * Maxima by level.
+     */
+    private final Map<String, LongAccumulator> maxima = new ConcurrentHashMap<>();
+    /**
+     * Number of samples by level.
+     */
+    private final Map<String, LongAdder> samples = new ConcurrentHashMap<>();
+
+    @Override public void count(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    @Override public void sample(String name, long value) {
+        maxima.computeIfAbsent(name, key -> new LongAccumulator(Math::max, Long.MIN_VALUE)).accumulate(value);
+        samples.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * The sum of a counter.
+     * @param name The counter.
+     * @return The sum, 0 if nothing was counted.
+     */
+    public long get(String name) {
+        final LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * The largest sample of a level.
+     * @param name The level.
+     * @return The maximum, 0 if there were no samples.
+     */
+    public long maximum(String name) {
+        final LongAccumulator maximum = maxima.get(name);
+        return maximum == null ? 0 : maximum.get();
+    }
+
+    /**
+     * All counters, and for each level its maximum under name.max and its number of samples under name.samples.
+     * @return The values by name, sorted.
+     */
+    public SortedMap<String, Long> snapshot() {
+        final SortedMap<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        maxima.forEach((name, maximum) -> snapshot.put(name + ".max", maximum.get()));
+        samples.forEach((name, count) -> snapshot.put(name + ".samples", count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void reset() {
+        counters.clear();
+        maxima.clear();
+        samples.clear();
+    }
+
+    @Override public String toString() {
+        final StringBuilder result = new StringBuilder();
+        snapshot().forEach((name, value) -> result.append(name).append(' ').append(value).append('\n'));
+        return result.toString();
+    }
+}
@@ -0,0 +1,369 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import edu.hm.cs.rs.compiler.toys.base.Source;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A scanner compiled by ScannerSpec: a minimized DFA with integer states and a transition table
+ * indexed by char class. Scanning looks up one class and one table entry per char, no strings.
+ * <p>
+ * Tokens are the longest matches from the start state, like in BaseScanner.
+ * Matches of ignored states are dropped, a position where nothing matches is a LexicalError.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class DenseScanner {
+    /**
+     * In accepts: the state accepts nothing.
+     */
+    static final int NONE = -1;
+    /**
+     * In accepts: the state accepts, but its matches are dropped.
+     */
+    static final int IGNORE = -2;
+    /**
+     * Tokens per batch in scan to a List.
+     */
+    private static final int BATCH = 256;
+
+    /**
+     * A token: its name and, if the name has an attribute, the lexeme.
+     */
+    public static final class Token {
+        /**
+         * The name.
+         */
+        private final String name;
+        /**
+         * The lexeme, or null.
+         */
+        private final String attribute;
+
+        /**
+         * A token.
+         * @param name The name.
+         * @param attribute The lexeme, or null.
+         */
+        public Token(String name, String attribute) {
+            this.name = name;
+            this.attribute = attribute;
+        }
+
+        /**
+         * The name.
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The attribute.
+         * @return The lexeme, or null if tokens of this name have none.
+         */
+        public String getAttribute() {
+            return attribute;
+        }
+
+        @Override public boolean equals(Object other) {
+            return other instanceof Token && name.equals(((Token) other).name)
+                    && Objects.equals(attribute, ((Token) other).attribute);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(name, attribute);
+        }
+
+        @Override public String toString() {
+            return attribute == null ? name : name + "(" + attribute + ")";
+        }
+    }
+
+    /**
+     * Class of each char up to the largest one with a transition. Larger chars are in class 0.
+     */
+    private final int[] classes;
+    /**
+     * Number of char classes, the length of a table row.
+     */
+    private final int classCount;
+    /**
+     * Transitions. Row of the next state by row of the current state + class, -1 if there is none.
+     * Rows are state * classCount, the start state is row 0.
+     */
+    private final int[] next;
+    /**
+     * Token kind accepted by each state, NONE or IGNORE. Indexed by row like next.
+     */
+    private final int[] accepts;
+    /**
+     * Token names by kind.
+     */
+    private final String[] tokens;
+    /**
+     * Whether the tokens of a kind carry their lexeme.
+     */
+    private final boolean[] attributed;
+    /**
+     * By row: the state accepts IGNORE and a scan may restart from the start state after it
+     * with the same tokens, whatever follows. See skip.
+     */
+    private final boolean[] restartable;
+
+    /**
+     * A scanner, see ScannerSpec.compile.
+     * @param classes Class of each char.
+     * @param classCount Number of char classes.
+     * @param next Transitions by row.
+     * @param accepts Accepted kinds by row.
+     * @param tokens Token names by kind.
+     * @param attributed Attribute flags by kind.
+     */
+    DenseScanner(int[] classes, int classCount, int[] next, int[] accepts, String[] tokens, boolean[] attributed) {
+        this.classes = classes;
+        this.classCount = classCount;
+        this.next = next;
+        this.accepts = accepts;
+        this.tokens = tokens;
+        this.attributed = attributed;
+        restartable = restartable(classCount, next, accepts);
+    }
+
+    /**
+     * Finds the states after which ignored input can be dropped before its match is complete.
+     * That holds if every char either ends the match or leads to the same state as from the start state,
+     * and no state reachable from there accepts a kept token. Then the longest match from the start of the run
+     * and the one from the state's position yield the same tokens, e.g. in a run of blanks.
+     * @param classCount Number of char classes.
+     * @param next Transitions by row.
+     * @param accepts Accepted kinds by row.
+     * @return The flags by row.
+     */
+    private static boolean[] restartable(int classCount, int[] next, int[] accepts) {
+        final boolean[] kept = new boolean[accepts.length];
+        for (int row = 0; row < accepts.length; row += classCount)
+            kept[row] = accepts[row] >= 0;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int row = 0; row < accepts.length; row += classCount)
+                for (int chrClass = 0; chrClass < classCount && !kept[row]; chrClass++)
+                    if (next[row + chrClass] >= 0 && kept[next[row + chrClass]])
+                        changed = kept[row] = true;
+        }
+        final boolean[] restartable = new boolean[accepts.length];
+        for (int row = 0; row < accepts.length; row += classCount) {
+            restartable[row] = accepts[row] == IGNORE;
+            for (int chrClass = 0; chrClass < classCount && restartable[row]; chrClass++) {
+                final int target = next[row + chrClass];
+                restartable[row] = target < 0 || target == next[chrClass] && !kept[target];
+            }
+        }
+        return restartable;
+    }
+
+    /**
+     * Scans a Source.
+     * @param source The input.
+     * @return The tokens.
+     * @throws LexicalError If no token matches somewhere.
+     */
+    public List<Token> scan(Source source) throws LexicalError {
+        char[] input = new char[64];
+        int length = 0;
+        while (source.hasMore()) {
+            if (length == input.length)
+                input = Arrays.copyOf(input, length * 2);
+            input[length++] = source.getNextChar();
+        }
+        return scan(input, 0, length);
+    }
+
+    /**
+     * Scans a string.
+     * @param input The input.
+     * @return The tokens.
+     * @throws LexicalError If no token matches somewhere.
+     */
+    public List<Token> scan(String input) throws LexicalError {
+        return scan(input.toCharArray(), 0, input.length());
+    }
+
+    /**
+     * Scans a part of an array.
+     * @param input The input.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @return The tokens.
+     * @throws LexicalError If no token matches somewhere.
+     */
+    public List<Token> scan(char[] input, int from, int to) throws LexicalError {
+        final Events.LexerRun run = Events.LexerRun.start("scanner");
+        final List<Token> result = new ArrayList<>();
+        final TokenBuffer buffer = new TokenBuffer(BATCH);
+        int position = from;
+        while (position < to) {
+            buffer.clear();
+            position = scan(input, position, to, buffer);
+            for (int token = 0; token < buffer.size(); token++) {
+                final int kind = buffer.kind(token);
+                result.add(new Token(tokens[kind], attributed[kind]
+                        ? new String(input, buffer.start(token), buffer.end(token) - buffer.start(token)) : null));
+            }
+        }
+        if (run != null)
+            run.report(to - from, result.size());
+        return result;
+    }
+
+    /**
+     * Scans a part of an array into a buffer, until the input ends or the buffer is full.
+     * Allocates nothing. Tokens refer to the input by offsets, see TokenCursor for a pull interface.
+     * @param input The input.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param buffer Receives the tokens after those it holds already.
+     * @return Index after the last char scanned, where to continue.
+     *         Stops before a char where no token matches if tokens were added, so that they can be used.
+     * @throws LexicalError If no token matches at from, or after ignored matches only.
+     */
+    public int scan(char[] input, int from, int to, TokenBuffer buffer) throws LexicalError {
+        return scan(input, from, to, buffer, true);
+    }
+
+    /**
+     * Scans a part of an array into a buffer, like scan(input, from, to, buffer),
+     * but optionally on input that has more chars to come.
+     * @param input The input.
+     * @param from Index of the first char.
+     * @param to Index after the last char available.
+     * @param buffer Receives the tokens after those it holds already.
+     * @param end false if more chars may follow after to. Then a match that reaches to is not taken,
+     *            because it might go on, and scanning stops before it.
+     * @return Index after the last char scanned, where to continue.
+     * @throws LexicalError If no token matches at from, or after ignored matches only.
+     */
+    public int scan(char[] input, int from, int to, TokenBuffer buffer, boolean end) throws LexicalError {
+        final int added = buffer.size();
+        int start = from;
+        while (start < to && !buffer.isFull()) {
+            int row = 0;
+            int kind = NONE;
+            int match = start;
+            for (int index = start; index < to; index++) {
+                final char chr = input[index];
+                row = next[row + (chr < classes.length ? classes[chr] : 0)];
+                if (row < 0)
+                    break;
+                if (accepts[row] != NONE) {
+                    kind = accepts[row];
+                    match = index + 1;
+                }
+            }
+            if (row >= 0 && !end)
+                return start;
+            if (kind == NONE) {
+                if (buffer.size() > added)
+                    return start;
+                throw new LexicalError();
+            }
+            if (kind != IGNORE)
+                buffer.add(kind, start, match);
+            start = match;
+        }
+        return start;
+    }
+
+    /**
+     * Skips an ignored match that scan(input, from, to, buffer, false) left pending because it reaches to,
+     * if it can be dropped without knowing the chars after to. Streaming callers use this to discard
+     * long runs of blanks or newlines instead of keeping them until the run ends.
+     * @param input The input.
+     * @param from Index where the pending match starts.
+     * @param to Index after the last char available.
+     * @return to if the chars in between can be dropped, from otherwise.
+     */
+    public int skip(char[] input, int from, int to) {
+        int row = 0;
+        for (int index = from; index < to; index++) {
+            final char chr = input[index];
+            row = next[row + (chr < classes.length ? classes[chr] : 0)];
+            if (row < 0)
+                return from;
+        }
+        return restartable[row] ? to : from;
+    }
+
+    /**
+     * Finds the longest match at a position, for IncrementalLexer.
+     * @param input The input.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param result Receives the kind, NONE or IGNORE, the end of the match,
+     *               and its reach: the index after the last char read, or to + 1 if the match might go on.
+     */
+    void match(CharSequence input, int from, int to, int[] result) {
+        int row = 0;
+        int kind = NONE;
+        int match = from;
+        int index = from;
+        while (index < to) {
+            final char chr = input.charAt(index++);
+            row = next[row + (chr < classes.length ? classes[chr] : 0)];
+            if (row < 0)
+                break;
+            if (accepts[row] != NONE) {
+                kind = accepts[row];
+                match = index;
+            }
+        }
+        result[0] = kind;
+        result[1] = match;
+        result[2] = row < 0 ? index : to + 1;
+    }
+
+    /**
+     * The name of a token kind.
+     * @param kind The kind.
+     * @return The name.
+     */
+    public String name(int kind) {
+        return tokens[kind];
+    }
+
+    /**
+     * The kind of a token name.
+     * @param token The name.
+     * @return The kind, or -1 if no state accepts the name.
+     */
+    public int kind(String token) {
+        return Arrays.asList(tokens).indexOf(token);
+    }
+
+    /**
+     * The token names.
+     * @return The names, indexed by kind.
+     */
+    public String[] getTokens() {
+        return tokens.clone();
+    }
+
+    /**
+     * The number of states of the minimized DFA, without the dead state.
+     * @return The number of states.
+     */
+    public int getStates() {
+        return next.length / classCount;
+    }
+
+    /**
+     * The number of char classes, including class 0 for chars without transitions.
+     * @return The number of classes.
+     */
+    public int getClasses() {
+        return classCount;
+    }
+}
@@ -0,0 +1,269 @@
+package edu.hm.schill.samuel;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events of the components. They are committed while a flight recording runs,
+ * e.g. after java -XX:StartFlightRecording:filename=run.jfr, and otherwise cost the check of a flag.
+ * Each also reports to the installed Metrics, if any.
+ */
+final class Events {
+    /**
+     * Category of all events.
+     */
+    private static final String CATEGORY = "Compiler Toys";
+
+    /**
+     * No instances.
+     */
+    private Events() {
+    }
+
+    /**
+     * One layer of MyLanguageGenerator: all sentential forms of a length expanded until no new ones show up.
+     */
+    @Name("edu.hm.schill.samuel.GeneratorLayer")
+    @Label("Generator Layer")
+    @Description("Sentential forms of one length expanded by MyLanguageGenerator")
+    @Category({CATEGORY, "Language Generator"})
+    @StackTrace(false)
+    static final class GeneratorLayer extends Event {
+        @Label("Length")
+        int length;
+        @Label("Seeds")
+        @Description("Forms of this length waiting to be expanded at the start")
+        long seeds;
+        @Label("Expanded")
+        @Description("Forms expanded")
+        long expanded;
+        @Label("Added")
+        @Description("Expansions not seen before")
+        long added;
+        @Label("Duplicates")
+        @Description("Expansions already seen, dropped by the dedup sets")
+        long duplicates;
+
+        /**
+         * Starts timing a layer, if anybody listens.
+         * @param length The length of the forms.
+         * @return The event, or null if neither a recording nor Metrics want it.
+         */
+        static GeneratorLayer start(int length) {
+            if (!Instrumentation.enabled() && !new GeneratorLayer().isEnabled())
+                return null;
+            final GeneratorLayer event = new GeneratorLayer();
+            event.length = length;
+            event.begin();
+            return event;
+        }
+
+        /**
+         * Commits the event and reports it to the Metrics.
+         */
+        void report() {
+            if (shouldCommit())
+                commit();
+            if (Instrumentation.enabled()) {
+                Instrumentation.count("generator.layers", 1);
+                Instrumentation.count("generator.forms.expanded", expanded);
+                Instrumentation.count("generator.forms.added", added);
+                Instrumentation.count("generator.forms.duplicates", duplicates);
+            }
+        }
+    }
+
+    /**
+     * The backlog of a worker of MyLanguageGenerator, sampled every so many expanded forms.
+     */
+    @Name("edu.hm.schill.samuel.GeneratorQueue")
+    @Label("Generator Queue")
+    @Description("Forms on the stack of a worker and tasks waiting to be stolen")
+    @Category({CATEGORY, "Language Generator"})
+    @StackTrace(false)
+    static final class GeneratorQueue extends Event {
+        @Label("Layer")
+        int layer;
+        @Label("Forms")
+        @Description("Forms on the stack of the sampling worker")
+        int forms;
+        @Label("Tasks")
+        @Description("Tasks queued in the pool, each with a share of forms")
+        long tasks;
+
+        /**
+         * Samples the backlog.
+         * @param layer The current layer.
+         * @param forms Forms on the stack of the worker.
+         * @param tasks Tasks queued in the pool.
+         */
+        static void sample(int layer, int forms, long tasks) {
+            final GeneratorQueue event = new GeneratorQueue();
+            if (event.shouldCommit()) {
+                event.layer = layer;
+                event.forms = forms;
+                event.tasks = tasks;
+                event.commit();
+            }
+            if (Instrumentation.enabled()) {
+                Instrumentation.sample("generator.queue.forms", forms);
+                Instrumentation.sample("generator.queue.tasks", tasks);
+            }
+        }
+    }
+
+    /**
+     * The words of one length that MyLanguageGenerator emits.
+     */
+    @Name("edu.hm.schill.samuel.GeneratorWords")
+    @Label("Generator Words")
+    @Description("Words of one length emitted by MyLanguageGenerator")
+    @Category({CATEGORY, "Language Generator"})
+    @StackTrace(false)
+    static final class GeneratorWords extends Event {
+        @Label("Length")
+        int length;
+        @Label("Words")
+        int words;
+
+        /**
+         * Reports the words of a length.
+         * @param length The length.
+         * @param words The number of words.
+         */
+        static void emit(int length, int words) {
+            final GeneratorWords event = new GeneratorWords();
+            if (event.shouldCommit()) {
+                event.length = length;
+                event.words = words;
+                event.commit();
+            }
+            if (Instrumentation.enabled()) {
+                Instrumentation.count("generator.words", words);
+                Instrumentation.count("generator.words.length." + length, words);
+            }
+        }
+    }
+
+    /**
+     * One run of MyParserGenerator.generate.
+     */
+    @Name("edu.hm.schill.samuel.ParserGeneration")
+    @Label("Parser Generation")
+    @Description("A parser generated by MyParserGenerator")
+    @Category({CATEGORY, "Parser Generator"})
+    @StackTrace(false)
+    static final class ParserGeneration extends Event {
+        @Label("Start Symbol")
+        String start;
+        @Label("Rules")
+        int rules;
+        @Label("FIRST Iterations")
+        @Description("Nonterminals taken from the worklist while propagating FIRST sets")
+        int firstIterations;
+        @Label("Strategy")
+        String strategy;
+        /**
+         * System.nanoTime at the start if Metrics are installed.
+         */
+        private transient long started;
+
+        /**
+         * Starts timing a generation, if anybody listens.
+         * @return The event, or null if neither a recording nor Metrics want it.
+         */
+        static ParserGeneration start() {
+            if (!Instrumentation.enabled() && !new ParserGeneration().isEnabled())
+                return null;
+            final ParserGeneration event = new ParserGeneration();
+            event.begin();
+            if (Instrumentation.enabled())
+                event.started = System.nanoTime();
+            return event;
+        }
+
+        /**
+         * Commits the event and reports it to the Metrics.
+         * @param analysis The analysis of the grammar.
+         * @param strategy The strategy of the parser.
+         */
+        void report(GrammarAnalysis analysis, MyParserGenerator.Strategy strategy) {
+            if (shouldCommit()) {
+                start = String.valueOf(analysis.start());
+                rules = analysis.size();
+                firstIterations = analysis.firstIterations();
+                this.strategy = strategy.name();
+                commit();
+            }
+            if (started != 0) {
+                Instrumentation.count("parser.generated", 1);
+                Instrumentation.count("parser.first.iterations", analysis.firstIterations());
+                Instrumentation.count("parser.generate.nanos", System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * One run of a preprocessor or scanner over an input.
+     */
+    @Name("edu.hm.schill.samuel.LexerRun")
+    @Label("Lexer Run")
+    @Description("An input preprocessed or scanned, throughput is chars or tokens by duration")
+    @Category({CATEGORY, "Lexer"})
+    @StackTrace(false)
+    static final class LexerRun extends Event {
+        @Label("Stage")
+        @Description("preprocessor, parallel-preprocessor, scanner, cursor or pipeline")
+        String stage;
+        @Label("Chars")
+        @Description("Chars of the input, or bytes for parallel-preprocessor")
+        long chars;
+        @Label("Tokens")
+        @Description("Tokens produced, or 0 for a preprocessor")
+        long tokens;
+        /**
+         * System.nanoTime at the start if Metrics are installed.
+         */
+        private transient long started;
+
+        /**
+         * Starts timing a run, if anybody listens.
+         * @param stage The stage.
+         * @return The event, or null if neither a recording nor Metrics want it.
+         */
+        static LexerRun start(String stage) {
+            if (!Instrumentation.enabled() && !new LexerRun().isEnabled())
+                return null;
+            final LexerRun event = new LexerRun();
+            event.stage = stage;
+            event.begin();
+            if (Instrumentation.enabled())
+                event.started = System.nanoTime();
+            return event;
+        }
+
+        /**
+         * Commits the event and reports it to the Metrics under stage.runs, stage.chars, stage.tokens, stage.nanos.
+         * @param chars Chars of the input.
+         * @param tokens Tokens produced.
+         */
+        void report(long chars, long tokens) {
+            if (shouldCommit()) {
+                this.chars = chars;
+                this.tokens = tokens;
+                commit();
+            }
+            if (started != 0) {
+                final long nanos = System.nanoTime() - started;
+                Instrumentation.count(stage + ".runs", 1);
+                Instrumentation.count(stage + ".chars", chars);
+                Instrumentation.count(stage + ".tokens", tokens);
+                Instrumentation.count(stage + ".nanos", nanos);
+            }
+        }
+    }
+}
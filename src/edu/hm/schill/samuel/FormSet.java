@@ -0,0 +1,195 @@
+package edu.hm.schill.samuel;
+
+import java.util.function.Consumer;
+
+/**
+ * Eine Menge von Satzformen gleicher Laenge.
+ * Die Zeichen einer Grammatik sind druckende ASCII-Zeichen, jedes belegt also nur ein Byte.
+ * Je acht davon werden in ein long gepackt, die Satzformen liegen ohne eigene Objekte
+ * hintereinander in long-Arrays mit offener Adressierung.
+ * Die Menge ist in Segmente mit je eigener Sperre aufgeteilt,
+ * damit viele Worker gleichzeitig einfuegen koennen.
+ */
+final class FormSet {
+    /**
+     * Anzahl der Segmente. Zweierpotenz.
+     */
+    private static final int SEGMENTS = 64;
+    /**
+     * Markiert das erste Zeichen einer gepackten Satzform.
+     * Damit ist kein belegter Platz 0, auch nicht fuer die leere Satzform.
+     * Das oberste Bit ist frei, weil alle Zeichen kleiner als 128 sind.
+     */
+    private static final long OCCUPIED = 0x80L << 56;
+
+    /**
+     * Die Laenge der Satzformen.
+     */
+    private final int length;
+    /**
+     * Anzahl longs pro Satzform.
+     */
+    private final int width;
+    /**
+     * Die Segmente.
+     */
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * Eine leere Menge.
+     * @param length Die Laenge aller Satzformen dieser Menge.
+     */
+    FormSet(int length) {
+        this.length = length;
+        width = Math.max(1, (length + Long.BYTES - 1) / Long.BYTES);
+        for (int index = 0; index < SEGMENTS; index++)
+            segments[index] = new Segment();
+    }
+
+    /**
+     * Fuegt eine Satzform ein, falls sie noch fehlt. Atomar.
+     * @param form Satzform mit der Laenge dieser Menge.
+     * @return true, wenn die Satzform neu war.
+     */
+    boolean add(byte[] form) {
+        final long[] packed = pack(form);
+        final long hash = hash(packed);
+        final Segment segment = segments[(int) (hash >>> 58) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            return segment.add(packed, (int) hash);
+        }
+    }
+
+    /**
+     * Anzahl der Satzformen.
+     * @return Anzahl der Satzformen.
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size;
+            }
+        return size;
+    }
+
+    /**
+     * Liefert alle Satzformen, in keiner bestimmten Reihenfolge.
+     * Darf nicht gleichzeitig mit add laufen.
+     * @param action Bekommt jede Satzform als neues Array.
+     */
+    void forEach(Consumer<byte[]> action) {
+        for (Segment segment : segments)
+            for (int slot = 0; slot < segment.table.length; slot += width)
+                if (segment.table[slot] != 0)
+                    action.accept(unpack(segment.table, slot));
+    }
+
+    /**
+     * Packt eine Satzform in longs, das erste Zeichen in das hoechste Byte.
+     * @param form Die Satzform.
+     * @return Die gepackte Satzform.
+     */
+    private long[] pack(byte[] form) {
+        final long[] packed = new long[width];
+        for (int index = 0; index < length; index++)
+            packed[index / Long.BYTES] |= (form[index] & 0xFFL) << (Long.BYTES - 1 - index % Long.BYTES) * Byte.SIZE;
+        packed[0] |= OCCUPIED;
+        return packed;
+    }
+
+    /**
+     * Entpackt eine Satzform.
+     * @param table Array mit der gepackten Satzform.
+     * @param slot Index des ersten longs der Satzform.
+     * @return Die Satzform.
+     */
+    private byte[] unpack(long[] table, int slot) {
+        final byte[] form = new byte[length];
+        for (int index = 0; index < length; index++)
+            form[index] = (byte) (table[slot + index / Long.BYTES] >>> (Long.BYTES - 1 - index % Long.BYTES) * Byte.SIZE
+                                  & 0x7F);
+        return form;
+    }
+
+    /**
+     * Streut die Bits einer gepackten Satzform.
+     * @param packed Die gepackte Satzform.
+     * @return Hashwert.
+     */
+    private static long hash(long[] packed) {
+        long hash = 0;
+        for (long word : packed) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 32;
+        }
+        return hash;
+    }
+
+    /**
+     * Eine Hashtabelle mit offener Adressierung und linearem Sondieren.
+     */
+    private final class Segment {
+        /**
+         * Die Plaetze, je width longs. Ein freier Platz beginnt mit 0.
+         */
+        private long[] table = new long[16 * width];
+        /**
+         * Anzahl belegter Plaetze.
+         */
+        private int size;
+
+        /**
+         * Fuegt eine gepackte Satzform ein, falls sie noch fehlt.
+         * @param packed Die gepackte Satzform.
+         * @param hash Ihr Hashwert.
+         * @return true, wenn die Satzform neu war.
+         */
+        boolean add(long[] packed, int hash) {
+            final int mask = table.length / width - 1;
+            for (int slot = hash & mask; ; slot = slot + 1 & mask) {
+                final int base = slot * width;
+                if (table[base] == 0) {
+                    System.arraycopy(packed, 0, table, base, width);
+                    if (++size * 4 > (mask + 1) * 3)
+                        grow();
+                    return true;
+                }
+                if (matches(table, base, packed))
+                    return false;
+            }
+        }
+
+        /**
+         * Verdoppelt die Tabelle.
+         */
+        private void grow() {
+            final long[] old = table;
+            table = new long[old.length * 2];
+            final int mask = table.length / width - 1;
+            final long[] packed = new long[width];
+            for (int base = 0; base < old.length; base += width)
+                if (old[base] != 0) {
+                    System.arraycopy(old, base, packed, 0, width);
+                    int slot = (int) hash(packed) & mask;
+                    while (table[slot * width] != 0)
+                        slot = slot + 1 & mask;
+                    System.arraycopy(packed, 0, table, slot * width, width);
+                }
+        }
+
+        /**
+         * Vergleicht einen Platz mit einer gepackten Satzform.
+         * @param table Die Tabelle.
+         * @param base Index des ersten longs des Platzes.
+         * @param packed Die gepackte Satzform.
+         * @return true, wenn beide gleich sind.
+         */
+        private boolean matches(long[] table, int base, long[] packed) {
+            for (int index = 0; index < width; index++)
+                if (table[base + index] != packed[index])
+                    return false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package edu.hm.schill.samuel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Eine uebersetzte Typ-1-Grammatik, wie sie LanguageGenerator bekommt.
+ * Die Produktionen liegen als Bytes vor, dazu bei Bedarf ein RuleMatcher fuer ihre linken Seiten.
+ * Unveraenderlich, beliebig viele Threads duerfen ein Objekt teilen.
+ * Zwei Grammatiken mit denselben Produktionen in derselben Reihenfolge sind gleich,
+ * z.B. als Schluessel fuer den Cache von MyLanguageGenerator.
+ */
+public final class Grammar {
+    /**
+     * Die Produktionen, je linke und rechte Seite als Bytes. Wird nicht veraendert.
+     */
+    private final byte[][][] rules;
+    /**
+     * Findet alle anwendbaren Produktionen in einer Satzform mit einem Durchlauf, oder null, solange ihn niemand brauchte.
+     * Kontextfreie Grammatiken brauchen ihn nie.
+     */
+    private RuleMatcher matcher;
+    /**
+     * Hashwert der Produktionen.
+     */
+    private final int hash;
+
+    /**
+     * Eine Grammatik.
+     * @param rules Die Produktionen, werden uebernommen.
+     */
+    private Grammar(byte[][][] rules) {
+        if (rules.length == 0)
+            throw new IllegalArgumentException("grammar without rules");
+        this.rules = rules;
+        hash = Arrays.deepHashCode(rules);
+    }
+
+    /**
+     * Zerlegt einen String mit einer Grammatik wie LanguageGenerator.read, aber ohne regulaere Ausdruecke.
+     * @param grammarString String mit einer Grammatik: Seitentrenner, Produktionentrenner, Produktionen.
+     * @return Die Grammatik.
+     * @throws IllegalArgumentException Wenn eine Produktion keinen Seitentrenner hat oder es keine gibt.
+     */
+    public static Grammar parse(String grammarString) {
+        return of(split(grammarString).stream());
+    }
+
+    /**
+     * Zerlegt einen String mit einer Grammatik in Produktionen wie LanguageGenerator.read.
+     * @param grammarString String mit einer Grammatik.
+     * @return Je Produktion linke und rechte Seite, oder nur ein Element, wenn der Seitentrenner fehlt.
+     */
+    static List<String[]> split(String grammarString) {
+        final char deduct = grammarString.charAt(0);
+        final char separate = grammarString.charAt(1);
+        final List<String[]> rules = new ArrayList<>();
+        int end = grammarString.length();
+        /* Wie String.split: leere Produktionen am Ende fallen weg. */
+        while (end > 0 && grammarString.charAt(end - 1) == separate)
+            end--;
+        for (int from = grammarString.indexOf(separate, 1) + 1; from > 0 && from <= end; ) {
+            int to = grammarString.indexOf(separate, from);
+            if (to < 0 || to > end)
+                to = end;
+            final int split = grammarString.indexOf(deduct, from);
+            rules.add(split < 0 || split >= to
+                      ? new String[] {grammarString.substring(from, to)}
+                      : new String[] {grammarString.substring(from, split), grammarString.substring(split + 1, to)});
+            from = to + 1;
+        }
+        return rules;
+    }
+
+    /**
+     * Uebersetzt die Produktionen einer Grammatik.
+     * @param grammar Produktionen wie von LanguageGenerator.read, je linke und rechte Seite.
+     * @return Die Grammatik.
+     * @throws IllegalArgumentException Wenn eine Produktion nicht zwei Seiten hat oder es keine gibt.
+     */
+    public static Grammar of(Stream<String[]> grammar) {
+        return new Grammar(grammar
+                .map(rule -> {
+                    if (rule.length != 2)
+                        throw new IllegalArgumentException("not a rule: " + String.join("", rule));
+                    return new byte[][] {rule[0].getBytes(StandardCharsets.ISO_8859_1),
+                                         rule[1].getBytes(StandardCharsets.ISO_8859_1)};
+                })
+                .toArray(byte[][][]::new));
+    }
+
+    /**
+     * Die Produktionen.
+     * @return Je Produktion ein neues Array mit linker und rechter Seite.
+     */
+    public Stream<String[]> productions() {
+        return Stream.of(rules)
+                .map(rule -> new String[] {new String(rule[0], StandardCharsets.ISO_8859_1),
+                                           new String(rule[1], StandardCharsets.ISO_8859_1)});
+    }
+
+    /**
+     * Die Anzahl der Produktionen.
+     * @return Die Anzahl.
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * Die Produktionen als Bytes. Das Array gehoert der Grammatik und darf nicht veraendert werden.
+     * @return Je Produktion linke und rechte Seite.
+     */
+    byte[][][] rules() {
+        return rules;
+    }
+
+    /**
+     * Der Automat fuer die linken Seiten, beim ersten Aufruf gebaut.
+     * Bauen ihn zwei Threads gleichzeitig, gewinnt einer; weil alle Felder von RuleMatcher final sind,
+     * sieht jeder Thread einen vollstaendigen Automaten.
+     * @return Der Automat. Unveraenderlich.
+     */
+    RuleMatcher matcher() {
+        RuleMatcher result = matcher;
+        if (result == null) {
+            result = new RuleMatcher(Stream.of(rules).map(rule -> rule[0]).toArray(byte[][]::new));
+            matcher = result;
+        }
+        return result;
+    }
+
+    /**
+     * Die Startsatzform, die linke Seite der ersten Produktion.
+     * @return Die Startsatzform. Darf nicht veraendert werden.
+     */
+    byte[] start() {
+        return rules[0][0];
+    }
+
+    /**
+     * Prueft, ob keine Produktion ihre Satzform verkuerzt.
+     * @return true, wenn jede rechte Seite mindestens so lang ist wie die linke.
+     */
+    boolean isNoncontracting() {
+        return Stream.of(rules).allMatch(rule -> rule[1].length >= rule[0].length);
+    }
+
+    /**
+     * Um wie viel eine Produktion eine Satzform hoechstens verlaengert.
+     * @return Der groesste Unterschied zwischen rechter und linker Seite, mindestens 0.
+     */
+    int growth() {
+        return Math.max(0, Stream.of(rules).mapToInt(rule -> rule[1].length - rule[0].length).max().orElse(0));
+    }
+
+    @Override public boolean equals(Object other) {
+        return other instanceof Grammar && hash == ((Grammar) other).hash
+               && Arrays.deepEquals(rules, ((Grammar) other).rules);
+    }
+
+    @Override public int hashCode() {
+        return hash;
+    }
+
+    @Override public String toString() {
+        return productions()
+                .map(rule -> rule[0] + "->" + rule[1])
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,331 @@
+package edu.hm.schill.samuel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FIRST-Mengen einer epsilon-freien Grammatik, wie sie RDParserGenerator bekommt.
+ * Nichtterminale sind die Indizes 0-25 (A-Z), Mengen von Terminalen sind Bitmengen
+ * ueber ASCII aus je zwei longs.
+ * FOLLOW-Mengen braucht es nicht: Ohne leere rechte Seiten waehlt der Parser allein nach FIRST,
+ * und es gibt keine FIRST/FOLLOW-Konflikte.
+ * Die Mengen werden ueber Abhaengigkeiten zwischen Nichtterminalen mit einer Worklist propagiert:
+ * Ein Nichtterminal wird nur dann wieder betrachtet, wenn seine Menge gewachsen ist.
+ * Der Aufwand ist damit linear in der Groesse der Grammatik mal der Groesse des Alphabets.
+ */
+final class GrammarAnalysis {
+    /**
+     * Anzahl moeglicher Nichtterminale A-Z.
+     */
+    private static final int NONTERMINALS = 26;
+    /**
+     * Terminale muessen kleiner sein.
+     */
+    private static final int ALPHABET = 128;
+
+    /**
+     * Linke Seiten der Produktionen als Index.
+     */
+    private final int[] left;
+    /**
+     * Rechte Seiten der Produktionen.
+     */
+    private final String[] right;
+    /**
+     * Die Produktionen jedes Nichtterminals in Reihenfolge der Grammatik.
+     */
+    private final int[][] alternatives = new int[NONTERMINALS][];
+    /**
+     * Die vorkommenden Nichtterminale als Bitmenge.
+     */
+    private int nonterminals;
+    /**
+     * FIRST-Mengen pro Nichtterminal, je zwei longs ab Index 2 * Nichtterminal.
+     */
+    private final long[] first = new long[2 * NONTERMINALS];
+    /**
+     * FIRST-Mengen pro Produktion, je zwei longs ab Index 2 * Produktion.
+     */
+    private final long[] firstOfRule;
+    /**
+     * Wie oft ein Nichtterminal beim Propagieren der FIRST-Mengen aus der Worklist kam.
+     */
+    private int firstIterations;
+
+    /**
+     * Analysiert eine Grammatik.
+     * @param grammar Grammatik wie bei RDParserGenerator.generate.
+     * @throws IllegalArgumentException Wenn eine Produktion keine linke Seite A-Z hat,
+     *         eine rechte Seite leer ist oder ein Terminal nicht in ASCII liegt.
+     */
+    GrammarAnalysis(String grammar) {
+        final char deduct = grammar.charAt(0);
+        final String[][] rules = Grammar.split(grammar).toArray(String[][]::new);
+        left = new int[rules.length];
+        right = new String[rules.length];
+        firstOfRule = new long[2 * rules.length];
+        final int[] counts = new int[NONTERMINALS];
+        for (int rule = 0; rule < rules.length; rule++) {
+            final String[] sides = rules[rule];
+            if (sides.length < 2 || sides[0].length() != 1 || !isNonterminal(sides[0].charAt(0)))
+                throw new IllegalArgumentException("not a rule: " + String.join(String.valueOf(deduct), sides));
+            if (sides[1].isEmpty())
+                throw new IllegalArgumentException("empty right side: " + sides[0] + deduct);
+            left[rule] = sides[0].charAt(0) - 'A';
+            right[rule] = sides[1];
+            counts[left[rule]]++;
+            nonterminals |= 1 << left[rule];
+            for (char chr : right[rule].toCharArray())
+                if (isNonterminal(chr))
+                    nonterminals |= 1 << chr - 'A';
+                else if (chr >= ALPHABET)
+                    throw new IllegalArgumentException("terminal not in ASCII: " + (int) chr);
+        }
+        for (int nonterminal = 0; nonterminal < NONTERMINALS; nonterminal++)
+            alternatives[nonterminal] = new int[counts[nonterminal]];
+        Arrays.fill(counts, 0);
+        for (int rule = 0; rule < rules.length; rule++)
+            alternatives[left[rule]][counts[left[rule]]++] = rule;
+
+        computeFirst();
+    }
+
+    /**
+     * FIRST(A) enthaelt das erste Zeichen jeder rechten Seite von A, die mit einem Terminal beginnt,
+     * und FIRST(B) fuer jede, die mit einem Nichtterminal B beginnt.
+     */
+    private void computeFirst() {
+        final int[] sources = new int[left.length];
+        for (int rule = 0; rule < left.length; rule++) {
+            final char chr = right[rule].charAt(0);
+            if (isNonterminal(chr))
+                sources[rule] = chr - 'A';
+            else {
+                sources[rule] = -1;
+                add(first, left[rule], chr);
+            }
+        }
+        firstIterations = propagate(first, sources, left);
+        for (int rule = 0; rule < left.length; rule++) {
+            final char chr = right[rule].charAt(0);
+            if (isNonterminal(chr))
+                union(firstOfRule, rule, first, chr - 'A');
+            else
+                add(firstOfRule, rule, chr);
+        }
+    }
+
+    /**
+     * Vereinigt Mengen entlang von Kanten, bis sich nichts mehr aendert.
+     * Jede Kante sorgt dafuer, dass die Menge ihres Ziels die ihrer Quelle enthaelt.
+     * @param sets Die Mengen pro Nichtterminal.
+     * @param sources Quelle jeder Kante, -1 fuer keine Kante.
+     * @param targets Ziel jeder Kante.
+     * @return Anzahl der Nichtterminale, die aus der Worklist genommen wurden.
+     */
+    private static int propagate(long[] sets, int[] sources, int[] targets) {
+        final int[] head = new int[NONTERMINALS];
+        Arrays.fill(head, -1);
+        final int[] next = new int[sources.length];
+        for (int edge = 0; edge < sources.length; edge++)
+            if (sources[edge] >= 0) {
+                next[edge] = head[sources[edge]];
+                head[sources[edge]] = edge;
+            }
+
+        final int[] worklist = new int[NONTERMINALS];
+        final boolean[] queued = new boolean[NONTERMINALS];
+        int size = 0;
+        int iterations = 0;
+        for (int nonterminal = 0; nonterminal < NONTERMINALS; nonterminal++)
+            if (head[nonterminal] >= 0 && (sets[2 * nonterminal] | sets[2 * nonterminal + 1]) != 0) {
+                worklist[size++] = nonterminal;
+                queued[nonterminal] = true;
+            }
+        while (size > 0) {
+            final int source = worklist[--size];
+            queued[source] = false;
+            iterations++;
+            for (int edge = head[source]; edge >= 0; edge = next[edge]) {
+                final int target = targets[edge];
+                if (union(sets, target, sets, source) && !queued[target]) {
+                    worklist[size++] = target;
+                    queued[target] = true;
+                }
+            }
+        }
+        return iterations;
+    }
+
+    /**
+     * Aufwand der FIRST-Mengen.
+     * @return Wie oft ein Nichtterminal aus der Worklist kam.
+     */
+    int firstIterations() {
+        return firstIterations;
+    }
+
+    /**
+     * Das Startsymbol, die linke Seite der ersten Produktion.
+     * @return Das Startsymbol.
+     */
+    char start() {
+        return (char) ('A' + left[0]);
+    }
+
+    /**
+     * Die Nichtterminale, die in der Grammatik vorkommen, links oder rechts.
+     * @return Die Nichtterminale, alphabetisch.
+     */
+    String nonterminals() {
+        final StringBuilder result = new StringBuilder();
+        for (int nonterminal = 0; nonterminal < NONTERMINALS; nonterminal++)
+            if ((nonterminals & 1 << nonterminal) != 0)
+                result.append((char) ('A' + nonterminal));
+        return result.toString();
+    }
+
+    /**
+     * Die Anzahl der Produktionen.
+     * @return Die Anzahl.
+     */
+    int size() {
+        return left.length;
+    }
+
+    /**
+     * Die linke Seite einer Produktion.
+     * @param rule Index der Produktion.
+     * @return Das Nichtterminal.
+     */
+    char left(int rule) {
+        return (char) ('A' + left[rule]);
+    }
+
+    /**
+     * Die rechte Seite einer Produktion.
+     * @param rule Index der Produktion.
+     * @return Die rechte Seite.
+     */
+    String right(int rule) {
+        return right[rule];
+    }
+
+    /**
+     * Die Produktionen eines Nichtterminals.
+     * @param nonterminal Das Nichtterminal.
+     * @return Indizes der Produktionen in Reihenfolge der Grammatik.
+     */
+    int[] alternatives(char nonterminal) {
+        return alternatives[nonterminal - 'A'].clone();
+    }
+
+    /**
+     * FIRST-Menge einer Produktion.
+     * @param rule Index der Produktion.
+     * @return Die Terminale, aufsteigend.
+     */
+    String firstOfRule(int rule) {
+        return terminals(firstOfRule, rule);
+    }
+
+    /**
+     * FIRST-Menge eines Nichtterminals.
+     * @param nonterminal Das Nichtterminal.
+     * @return Die Terminale, aufsteigend.
+     */
+    String firstOf(char nonterminal) {
+        return terminals(first, nonterminal - 'A');
+    }
+
+    /**
+     * Die LL(1)-Konflikte: Produktionen desselben Nichtterminals mit gemeinsamen Terminalen in FIRST.
+     * Ohne leere rechte Seiten sind das alle.
+     * @return Eine Beschreibung pro Paar von Produktionen, leer fuer eine LL(1)-Grammatik.
+     */
+    List<String> conflicts() {
+        final List<String> result = new ArrayList<>();
+        final long[] seen = new long[2];
+        for (int[] rules : alternatives) {
+            seen[0] = 0;
+            seen[1] = 0;
+            for (int index = 0; index < rules.length; index++) {
+                final int rule = rules[index];
+                if ((seen[0] & firstOfRule[2 * rule]) != 0 || (seen[1] & firstOfRule[2 * rule + 1]) != 0)
+                    for (int other = 0; other < index; other++) {
+                        final long[] common = {firstOfRule[2 * rules[other]] & firstOfRule[2 * rule],
+                                               firstOfRule[2 * rules[other] + 1] & firstOfRule[2 * rule + 1]};
+                        if ((common[0] | common[1]) != 0)
+                            result.add(left(rule) + ": " + right[rules[other]] + " and " + right[rule]
+                                       + " both start with " + quoted(terminals(common, 0)));
+                    }
+                union(seen, 0, firstOfRule, rule);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Zeichen in Hochkommas, durch Kommas getrennt.
+     * @param terminals Die Zeichen.
+     * @return Zum Beispiel 'a', 'b'.
+     */
+    static String quoted(String terminals) {
+        final StringBuilder result = new StringBuilder();
+        for (char chr : terminals.toCharArray())
+            result.append(result.length() == 0 ? "'" : ", '").append(chr).append('\'');
+        return result.toString();
+    }
+
+    /**
+     * Fuegt ein Terminal zu einer Menge hinzu.
+     * @param sets Die Mengen.
+     * @param index Index der Menge.
+     * @param chr Das Terminal.
+     */
+    private static void add(long[] sets, int index, char chr) {
+        sets[2 * index + (chr >> 6)] |= 1L << chr;
+    }
+
+    /**
+     * Vereinigt eine Menge in eine andere.
+     * @param target Die Mengen des Ziels.
+     * @param targetIndex Index der Zielmenge.
+     * @param source Die Mengen der Quelle.
+     * @param sourceIndex Index der Quellmenge.
+     * @return true, wenn die Zielmenge gewachsen ist.
+     */
+    private static boolean union(long[] target, int targetIndex, long[] source, int sourceIndex) {
+        final long low = target[2 * targetIndex] | source[2 * sourceIndex];
+        final long high = target[2 * targetIndex + 1] | source[2 * sourceIndex + 1];
+        final boolean changed = low != target[2 * targetIndex] || high != target[2 * targetIndex + 1];
+        target[2 * targetIndex] = low;
+        target[2 * targetIndex + 1] = high;
+        return changed;
+    }
+
+    /**
+     * Die Terminale einer Menge.
+     * @param sets Die Mengen.
+     * @param index Index der Menge.
+     * @return Die Terminale, aufsteigend.
+     */
+    private static String terminals(long[] sets, int index) {
+        final StringBuilder result = new StringBuilder();
+        for (int half = 0; half < 2; half++)
+            for (long bits = sets[2 * index + half]; bits != 0; bits &= bits - 1)
+                result.append((char) (half * 64 + Long.numberOfTrailingZeros(bits)));
+        return result.toString();
+    }
+
+    /**
+     * Prueft auf ein Nichtterminal.
+     * @param chr Das Zeichen.
+     * @return true fuer A-Z.
+     */
+    private static boolean isNonterminal(char chr) {
+        return chr >= 'A' && chr <= 'Z';
+    }
+}
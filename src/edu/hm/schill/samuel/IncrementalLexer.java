@@ -0,0 +1,636 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+
+import java.util.Arrays;
+
+/**
+ * Preprocesses and scans a text and keeps the result up to date while the text is edited.
+ * <p>
+ * During a run, checkpoints record the State of the MyPreprocessor and the output offset
+ * every few chars, and every token records its reach, the chars the scanner read to find it.
+ * An edit resumes preprocessing at the last checkpoint before it and stops at the first old checkpoint
+ * after it where the State is the same as in the old run. Scanning resumes after the last token
+ * whose reach ends before the changed output and stops at the first old token boundary after it.
+ * The new output, tokens and checkpoints are then patched into the old ones.
+ * <p>
+ * All of them are kept in gap buffers with the gap at the last edit. Offsets after the gap are stored
+ * relative to a delta per buffer, so shifting them is a single addition. An edit thus costs
+ * in proportion to its size and its distance from the last edit, not to the size of the text,
+ * unless it opens or closes a comment.
+ * <p>
+ * Token offsets count chars of the output of the preprocessor. It is not thread-safe.
+ */
+public final class IncrementalLexer {
+    /**
+     * Default number of source chars between checkpoints.
+     */
+    private static final int INTERVAL = 256;
+    /**
+     * Ints per checkpoint: source offset, State, output offset.
+     */
+    private static final int CHECKPOINT = 3;
+    /**
+     * Ints per token: kind, start, end, reach.
+     * The reach includes the reach of ignored matches between the previous token and this one.
+     */
+    private static final int TOKEN = 4;
+
+    /**
+     * A growable array of ints, for the results of an edit.
+     */
+    private static final class Ints {
+        /**
+         * The ints.
+         */
+        private int[] data = new int[64];
+        /**
+         * Number of ints used.
+         */
+        private int size;
+
+        /**
+         * Appends an int.
+         * @param value The int.
+         */
+        void add(int value) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, 2 * size);
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * Records of ints in a gap buffer. Fields of records after the gap are stored minus a delta per field.
+     */
+    private static final class Records {
+        /**
+         * Ints per record.
+         */
+        private final int width;
+        /**
+         * Added to each field of the records after the gap.
+         */
+        private final int[] deltas;
+        /**
+         * The records before the gap, the gap, the records after the gap.
+         */
+        private int[] data;
+        /**
+         * Index of the gap, the number of ints before it.
+         */
+        private int front;
+        /**
+         * Index of the first int after the gap.
+         */
+        private int back;
+
+        /**
+         * No records.
+         * @param width Ints per record.
+         */
+        Records(int width) {
+            this.width = width;
+            deltas = new int[width];
+            data = new int[64 * width];
+            back = data.length;
+        }
+
+        /**
+         * The number of ints.
+         * @return The number of ints.
+         */
+        int size() {
+            return front + data.length - back;
+        }
+
+        /**
+         * An int.
+         * @param index Index of the int, record * width + field.
+         * @return The int.
+         */
+        int get(int index) {
+            return index < front ? data[index] : data[index - front + back] + deltas[index % width];
+        }
+
+        /**
+         * Changes an int.
+         * @param index Index of the int, record * width + field.
+         * @param value The int.
+         */
+        void set(int index, int value) {
+            if (index < front)
+                data[index] = value;
+            else
+                data[index - front + back] = value - deltas[index % width];
+        }
+
+        /**
+         * Replaces records and leaves the gap after the new ones.
+         * @param from Index of the first int to replace.
+         * @param to Index after the last int to replace.
+         * @param values The new records.
+         */
+        void splice(int from, int to, Ints values) {
+            move(to);
+            front = from;
+            if (back - front < values.size) {
+                final int[] larger = new int[Math.max(2 * data.length, size() + values.size)];
+                System.arraycopy(data, 0, larger, 0, front);
+                System.arraycopy(data, back, larger, larger.length - (data.length - back), data.length - back);
+                back = larger.length - (data.length - back);
+                data = larger;
+            }
+            System.arraycopy(values.data, 0, data, front, values.size);
+            front += values.size;
+        }
+
+        /**
+         * Adds a value to a field of all records after the gap.
+         * @param field The field.
+         * @param delta The value.
+         */
+        void shift(int field, int delta) {
+            deltas[field] += delta;
+        }
+
+        /**
+         * Moves the gap.
+         * @param index Number of ints before the gap afterwards.
+         */
+        private void move(int index) {
+            while (front > index) {
+                front--;
+                back--;
+                data[back] = data[front] - deltas[front % width];
+            }
+            while (front < index) {
+                data[front] = data[back] + deltas[front % width];
+                front++;
+                back++;
+            }
+        }
+    }
+
+    /**
+     * Chars in a gap buffer.
+     */
+    private static final class Chars implements CharSequence {
+        /**
+         * The chars before the gap, the gap, the chars after the gap.
+         */
+        private char[] data = new char[64];
+        /**
+         * Index of the gap, the number of chars before it.
+         */
+        private int front;
+        /**
+         * Index of the first char after the gap.
+         */
+        private int back = data.length;
+
+        @Override public int length() {
+            return front + data.length - back;
+        }
+
+        @Override public char charAt(int index) {
+            return index < front ? data[index] : data[index - front + back];
+        }
+
+        @Override public String subSequence(int start, int end) {
+            final char[] chars = new char[end - start];
+            for (int index = start; index < end; index++)
+                chars[index - start] = charAt(index);
+            return new String(chars);
+        }
+
+        @Override public String toString() {
+            return subSequence(0, length());
+        }
+
+        /**
+         * Index in data of a char after the gap.
+         * @param index Index of the char, at least the index of the gap.
+         * @return Index in data.
+         */
+        int behind(int index) {
+            return index - front + back;
+        }
+
+        /**
+         * Replaces chars and leaves the gap after the new ones.
+         * @param from Index of the first char to replace.
+         * @param to Index after the last char to replace.
+         * @param values The new chars.
+         * @param offset Index of the first new char in values.
+         * @param count Number of new chars.
+         */
+        void splice(int from, int to, char[] values, int offset, int count) {
+            move(to);
+            front = from;
+            if (back - front < count) {
+                final char[] larger = new char[Math.max(2 * data.length, length() + count)];
+                System.arraycopy(data, 0, larger, 0, front);
+                System.arraycopy(data, back, larger, larger.length - (data.length - back), data.length - back);
+                back = larger.length - (data.length - back);
+                data = larger;
+            }
+            System.arraycopy(values, offset, data, front, count);
+            front += count;
+        }
+
+        /**
+         * Moves the gap.
+         * @param index Number of chars before the gap afterwards.
+         */
+        void move(int index) {
+            if (index < front)
+                System.arraycopy(data, index, data, back - (front - index), front - index);
+            else
+                System.arraycopy(data, back, data, front, index - front);
+            back += index - front;
+            front = index;
+        }
+    }
+
+    /**
+     * The scanner.
+     */
+    private final DenseScanner scanner;
+    /**
+     * Source chars between checkpoints.
+     */
+    private final int interval;
+    /**
+     * Strips the comments, resumed at checkpoints.
+     */
+    private final MyPreprocessor preprocessor = new MyPreprocessor();
+    /**
+     * The text.
+     */
+    private final Chars text = new Chars();
+    /**
+     * The output of the preprocessor.
+     */
+    private final Chars output = new Chars();
+    /**
+     * Checkpoints in order, see CHECKPOINT.
+     */
+    private final Records checkpoints = new Records(CHECKPOINT);
+    /**
+     * Tokens in order, see TOKEN.
+     */
+    private final Records tokens = new Records(TOKEN);
+    /**
+     * Output of the preprocessor during an edit.
+     */
+    private char[] fresh = new char[64];
+    /**
+     * Number of chars in fresh.
+     */
+    private int freshSize;
+    /**
+     * Checkpoints recorded during an edit.
+     */
+    private final Ints freshCheckpoints = new Ints();
+    /**
+     * Tokens scanned during an edit.
+     */
+    private final Ints freshTokens = new Ints();
+    /**
+     * Result of DenseScanner.match.
+     */
+    private final int[] match = new int[3];
+
+    /**
+     * Processes a text.
+     * @param scanner The scanner, e.g. MyScanner.compiled().
+     * @param text The text.
+     * @throws LexicalError If the text ends inside a comment or no token matches somewhere.
+     */
+    public IncrementalLexer(DenseScanner scanner, CharSequence text) throws LexicalError {
+        this(scanner, text, INTERVAL);
+    }
+
+    /**
+     * Processes a text.
+     * @param scanner The scanner, e.g. MyScanner.compiled().
+     * @param text The text.
+     * @param interval Source chars between checkpoints.
+     * @throws LexicalError If the text ends inside a comment or no token matches somewhere.
+     */
+    public IncrementalLexer(DenseScanner scanner, CharSequence text, int interval) throws LexicalError {
+        if (interval < 1)
+            throw new IllegalArgumentException("interval must be positive");
+        this.scanner = scanner;
+        this.interval = interval;
+        freshCheckpoints.add(0);
+        freshCheckpoints.add(MyPreprocessor.CODE);
+        freshCheckpoints.add(0);
+        checkpoints.splice(0, 0, freshCheckpoints);
+        edit(0, 0, text);
+    }
+
+    /**
+     * Replaces a part of the text and updates output and tokens.
+     * If the new text is invalid, nothing changes.
+     * @param offset Index of the first char to replace.
+     * @param removed Number of chars to remove.
+     * @param inserted The chars to insert.
+     * @throws LexicalError If the new text ends inside a comment or no token matches somewhere.
+     * @throws IndexOutOfBoundsException If the range is not in the text.
+     */
+    public void edit(int offset, int removed, CharSequence inserted) throws LexicalError {
+        if (offset < 0 || removed < 0 || offset + removed > text.length())
+            throw new IndexOutOfBoundsException("edit " + offset + "+" + removed + " of " + text.length());
+        final char[] insertion = inserted.toString().toCharArray();
+        final int delta = insertion.length - removed;
+        final int length = text.length() + delta;
+
+        // preprocess from the last checkpoint at or before the edit to the first old one with the same State
+        text.move(offset + removed);
+        final int resumed = lastAtOrBefore(checkpoints, CHECKPOINT, 0, offset);
+        final int resume = checkpoints.get(resumed);
+        final int outStart = checkpoints.get(resumed + 2);
+        int candidate = firstAtOrAfter(checkpoints, CHECKPOINT, 0, offset + removed);
+        preprocessor.resume(checkpoints.get(resumed + 1));
+        freshSize = 0;
+        freshCheckpoints.size = 0;
+        int position = resume;
+        int synced = -1;
+        while (true) {
+            final int target = candidate < checkpoints.size() ? checkpoints.get(candidate) + delta : Integer.MAX_VALUE;
+            final int stop = Math.min(Math.min(position + interval, target), length);
+            preprocess(position, stop, offset, removed, insertion);
+            position = stop;
+            if (position > resume) {
+                freshCheckpoints.add(position);
+                freshCheckpoints.add(preprocessor.state());
+                freshCheckpoints.add(outStart + freshSize);
+            }
+            if (position == target) {
+                if (preprocessor.state() == checkpoints.get(candidate + 1)) {
+                    synced = candidate;
+                    break;
+                }
+                candidate += CHECKPOINT;
+            }
+            if (position == length) {
+                reserve(1);
+                freshSize = preprocessor.finish(fresh, freshSize);
+                break;
+            }
+        }
+        final int outEnd = synced < 0 ? output.length() : checkpoints.get(synced + 2);
+        final int outDelta = outStart + freshSize - outEnd;
+
+        // patch the output, scan it from the last token that did not read the changed part
+        final String replaced = output.subSequence(outStart, outEnd);
+        output.splice(outStart, outEnd, fresh, 0, freshSize);
+        final int first;
+        final int retained;
+        try {
+            int token = firstEndAfter(outStart);
+            while (token > 0 && tokens.get(token - TOKEN + 3) > outStart)
+                token -= TOKEN;
+            first = token;
+            retained = rescan(first, outStart + freshSize, outDelta);
+        } catch (LexicalError error) {
+            output.splice(outStart, outStart + freshSize, replaced.toCharArray(), 0, replaced.length());
+            throw error;
+        }
+
+        text.splice(offset, offset + removed, insertion, 0, insertion.length);
+        checkpoints.splice(resumed + CHECKPOINT, synced < 0 ? checkpoints.size() : synced + CHECKPOINT,
+                           freshCheckpoints);
+        checkpoints.shift(0, delta);
+        checkpoints.shift(2, outDelta);
+        tokens.splice(first, retained, freshTokens);
+        for (int field = 1; field < TOKEN; field++)
+            tokens.shift(field, outDelta);
+    }
+
+    /**
+     * Makes room in fresh.
+     * @param more Number of chars to add.
+     */
+    private void reserve(int more) {
+        if (freshSize + more > fresh.length)
+            fresh = Arrays.copyOf(fresh, Math.max(freshSize + more, 2 * fresh.length));
+    }
+
+    /**
+     * Preprocesses a range of the edited text into fresh, without building the edited text.
+     * The gap of the text must be at the end of the removed chars.
+     * @param from Index of the first char in the edited text.
+     * @param to Index after the last char in the edited text.
+     * @param offset Where the edit starts.
+     * @param removed Number of chars removed by the edit.
+     * @param insertion The chars inserted by the edit.
+     */
+    private void preprocess(int from, int to, int offset, int removed, char[] insertion) {
+        reserve(to - from + 1);
+        final int inserted = offset + insertion.length;
+        if (from < offset) {
+            final int end = Math.min(to, offset);
+            freshSize = preprocessor.process(text.data, from, end, fresh, freshSize);
+            from = end;
+        }
+        if (from < to && from < inserted) {
+            final int end = Math.min(to, inserted);
+            freshSize = preprocessor.process(insertion, from - offset, end - offset, fresh, freshSize);
+            from = end;
+        }
+        if (from < to) {
+            final int shift = removed - insertion.length;
+            freshSize = preprocessor.process(text.data, text.behind(from + shift), text.behind(to + shift),
+                                             fresh, freshSize);
+        }
+    }
+
+    /**
+     * Scans the patched output into freshTokens, until a token boundary of the old run after the change.
+     * @param first Index of the first old token to replace, its start or the end of the token before
+     *              is where scanning starts.
+     * @param changed Index after the changed part of the patched output.
+     * @param outDelta Change of the output length.
+     * @return Index of the first old token to keep.
+     * @throws LexicalError If no token matches somewhere.
+     */
+    private int rescan(int first, int changed, int outDelta) throws LexicalError {
+        freshTokens.size = 0;
+        int position = first == 0 ? 0 : tokens.get(first - TOKEN + 2);
+        int reach = 0;
+        while (position < output.length()) {
+            scanner.match(output, position, output.length(), match);
+            if (match[0] == DenseScanner.NONE)
+                throw new LexicalError();
+            reach = Math.max(reach, match[2]);
+            if (match[0] != DenseScanner.IGNORE) {
+                freshTokens.add(match[0]);
+                freshTokens.add(position);
+                freshTokens.add(match[1]);
+                freshTokens.add(reach);
+                reach = 0;
+            }
+            position = match[1];
+            if (position >= changed) {
+                final int retained = boundary(position - outDelta, first);
+                if (retained >= 0) {
+                    // ignored matches before the first kept token may have changed their reach
+                    if (retained < tokens.size())
+                        tokens.set(retained + 3, Math.max(tokens.get(retained + 3), reach - outDelta));
+                    return retained;
+                }
+            }
+        }
+        return tokens.size();
+    }
+
+    /**
+     * Checks whether an offset is a token boundary of the old run.
+     * @param offset Offset in the old output.
+     * @param first Index of the first old token to consider.
+     * @return Index of the first old token at or after the offset, or -1 if it is no boundary.
+     */
+    private int boundary(int offset, int first) {
+        final int token = Math.max(first, firstEndAfter(offset));
+        if (token > first && tokens.get(token - TOKEN + 2) == offset)
+            return token;
+        if (token < tokens.size() && tokens.get(token + 1) == offset)
+            return token;
+        return -1;
+    }
+
+    /**
+     * Finds the first old token that ends after an offset.
+     * @param offset Offset in the output.
+     * @return Index of the token in tokens, or tokens.size().
+     */
+    private int firstEndAfter(int offset) {
+        int low = 0;
+        int high = tokens.size() / TOKEN;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (tokens.get(middle * TOKEN + 2) > offset)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low * TOKEN;
+    }
+
+    /**
+     * Finds the last record whose field is at or before a value.
+     * @param records The records, sorted by the field.
+     * @param width Ints per record.
+     * @param field Index of the field in a record.
+     * @param value The value.
+     * @return Index of the record, 0 if there is none.
+     */
+    private static int lastAtOrBefore(Records records, int width, int field, int value) {
+        return Math.max(0, firstAtOrAfter(records, width, field, value + 1) - width);
+    }
+
+    /**
+     * Finds the first record whose field is at or after a value.
+     * @param records The records, sorted by the field.
+     * @param width Ints per record.
+     * @param field Index of the field in a record.
+     * @param value The value.
+     * @return Index of the record, records.size() if there is none.
+     */
+    private static int firstAtOrAfter(Records records, int width, int field, int value) {
+        int low = 0;
+        int high = records.size() / width;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (records.get(middle * width + field) >= value)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low * width;
+    }
+
+    /**
+     * The text.
+     * @return The text with all edits.
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * The output of the preprocessor.
+     * @return The text without comments.
+     */
+    public String getOutput() {
+        return output.toString();
+    }
+
+    /**
+     * The number of tokens.
+     * @return The number of tokens.
+     */
+    public int size() {
+        return tokens.size() / TOKEN;
+    }
+
+    /**
+     * The kind of a token.
+     * @param token Index of the token.
+     * @return An index into DenseScanner.getTokens.
+     */
+    public int kind(int token) {
+        return tokens.get(TOKEN * check(token));
+    }
+
+    /**
+     * The start of a token.
+     * @param token Index of the token.
+     * @return Offset of the first char in the output.
+     */
+    public int start(int token) {
+        return tokens.get(TOKEN * check(token) + 1);
+    }
+
+    /**
+     * The end of a token.
+     * @param token Index of the token.
+     * @return Offset after the last char in the output.
+     */
+    public int end(int token) {
+        return tokens.get(TOKEN * check(token) + 2);
+    }
+
+    /**
+     * The name of a token.
+     * @param token Index of the token.
+     * @return The name.
+     */
+    public String name(int token) {
+        return scanner.name(kind(token));
+    }
+
+    /**
+     * Copies the lexeme of a token.
+     * @param token Index of the token.
+     * @return The chars of the token.
+     */
+    public String lexeme(int token) {
+        return output.subSequence(start(token), end(token));
+    }
+
+    /**
+     * Checks a token index.
+     * @param token Index of the token.
+     * @return The index.
+     * @throws IndexOutOfBoundsException If there is no such token.
+     */
+    private int check(int token) {
+        if (token < 0 || token >= size())
+            throw new IndexOutOfBoundsException("token " + token + " of " + size());
+        return token;
+    }
+}
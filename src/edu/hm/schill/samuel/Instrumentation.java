@@ -0,0 +1,65 @@
+package edu.hm.schill.samuel;
+
+/**
+ * The Metrics the components report to. Nothing is installed at first, and then
+ * every instrumented spot costs one read of a field that says so.
+ * <p>
+ * Independent of this, the components commit JFR events, see Events.
+ * Those cost nothing either unless a recording enables them.
+ */
+public final class Instrumentation {
+    /**
+     * The installed Metrics.
+     */
+    private static volatile Metrics metrics = Metrics.NONE;
+
+    /**
+     * No instances.
+     */
+    private Instrumentation() {
+    }
+
+    /**
+     * Installs Metrics for all components.
+     * @param metrics The Metrics, Metrics.NONE to switch off.
+     */
+    public static void install(Metrics metrics) {
+        if (metrics == null)
+            throw new IllegalArgumentException("metrics must not be null, use Metrics.NONE");
+        Instrumentation.metrics = metrics;
+    }
+
+    /**
+     * The installed Metrics.
+     * @return The Metrics, Metrics.NONE if there are none.
+     */
+    public static Metrics installed() {
+        return metrics;
+    }
+
+    /**
+     * Checks whether anybody listens, so that the caller may skip measuring.
+     * @return true if Metrics are installed.
+     */
+    static boolean enabled() {
+        return metrics != Metrics.NONE;
+    }
+
+    /**
+     * Adds to a counter of the installed Metrics.
+     * @param name The counter.
+     * @param amount The amount.
+     */
+    static void count(String name, long amount) {
+        metrics.count(name, amount);
+    }
+
+    /**
+     * Records a level with the installed Metrics.
+     * @param name The level.
+     * @param value The value.
+     */
+    static void sample(String name, long value) {
+        metrics.sample(name, value);
+    }
+}
@@ -0,0 +1,24 @@
+package edu.hm.schill.samuel;
+
+import java.util.List;
+
+/**
+ * Die Sprache einer Grammatik, Laenge fuer Laenge aufgezaehlt.
+ * Eine Sprache merkt sich, was sie schon berechnet hat, und rechnet bei einer groesseren Laenge dort weiter.
+ * Thread-safe, MyLanguageGenerator teilt sie zwischen Aufrufen.
+ */
+interface Language {
+    /**
+     * Prueft, ob die Sprache Woerter bis zu einer Laenge liefern kann.
+     * @param length Die Laenge.
+     * @return false, wenn fuer diese Laenge von vorn begonnen werden muss.
+     */
+    boolean reaches(int length);
+
+    /**
+     * Liefert die Woerter einer Laenge. Berechnet dazu alle noch fehlenden kuerzeren Laengen.
+     * @param length Die Laenge, hoechstens eine, die die Sprache erreicht.
+     * @return Die Woerter dieser Laenge, alphabetisch sortiert. Unveraenderlich.
+     */
+    List<String> words(int length);
+}
@@ -0,0 +1,53 @@
+package edu.hm.schill.samuel;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Interface fuer Klassen, die entscheiden, ob ein Wort zur Sprache einer Typ-1-Grammatik gehoert.
+ * Grammatiken sind wie bei LanguageGenerator aufgebaut, Start ist die linke Seite der ersten Produktion.
+ * Ein Wort gehoert genau dann zur Sprache, wenn es aus dem Startsymbol ableitbar ist und keine Nichtterminale enthaelt.
+ * Ohne schrumpfende Produktionen sind das genau die Woerter, die LanguageGenerator.generate
+ * bis zur Laenge des Wortes liefert.
+ */
+public interface LanguageRecognizer {
+    /**
+     * Bereitet eine Grammatik fuer beliebig viele Anfragen vor.
+     *
+     * @param grammar Typ-1-Grammatik, oder eine kontextfreie mit leeren rechten Seiten.
+     * @return Praedikat, das genau die Woerter der Sprache akzeptiert.
+     *         Darf von mehreren Threads gleichzeitig benutzt werden.
+     * @throws IllegalArgumentException Wenn sich das Wortproblem der Grammatik nicht entscheiden laesst.
+     */
+    Predicate<String> compile(Stream<String[]> grammar);
+
+    /**
+     * Prueft, ob ein Wort zur Sprache einer Grammatik gehoert.
+     *
+     * @param grammar Typ-1-Grammatik.
+     * @param word Das Wort.
+     * @return true, wenn die Grammatik das Wort erzeugt.
+     */
+    default boolean contains(Stream<String[]> grammar, String word) {
+        return compile(grammar).test(word);
+    }
+
+    /**
+     * Prueft viele Woerter gegen dieselbe Grammatik.
+     * Die Grammatik wird nur einmal vorbereitet, die Woerter parallel geprueft.
+     *
+     * @param grammar Typ-1-Grammatik.
+     * @param words Die Woerter.
+     * @return Fuer jedes Wort, ob die Grammatik es erzeugt.
+     */
+    default Map<String, Boolean> containsAll(Stream<String[]> grammar, Collection<String> words) {
+        final Predicate<String> language = compile(grammar);
+        return words.parallelStream()
+                .distinct()
+                .collect(Collectors.toConcurrentMap(Function.identity(), language::test));
+    }
+}
@@ -0,0 +1,32 @@
+package edu.hm.schill.samuel;
+
+/**
+ * Receives the counters of the components, e.g. to feed them into a monitoring system.
+ * Install an implementation with Instrumentation.install; Counters keeps them in memory.
+ * <p>
+ * Counters only grow, samples are levels that go up and down, like the depth of a queue.
+ * Names are dotted paths like "generator.forms.expanded", times are counted in nanoseconds
+ * under names ending in ".nanos". Implementations are called from many threads at once.
+ */
+public interface Metrics {
+    /**
+     * Drops everything. While it is installed, the components do not even measure.
+     */
+    Metrics NONE = new Metrics() { };
+
+    /**
+     * Adds to a counter.
+     * @param name The counter.
+     * @param amount The amount, not negative.
+     */
+    default void count(String name, long amount) {
+    }
+
+    /**
+     * Records the current value of a level.
+     * @param name The level.
+     * @param value The value.
+     */
+    default void sample(String name, long value) {
+    }
+}
@@ -2,106 +2,223 @@ package edu.hm.schill.samuel;
 
 import edu.hm.cs.rs.compiler.lab04generator.LanguageGenerator;
 
-import java.util.Comparator;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Loesung fuer die vierte Praktikumsaufgabe.
+ * <p>
+ * Der Generator selbst haelt keinen Zustand eines Aufrufs, beliebig viele Threads duerfen ihn
+ * gleichzeitig nutzen. Mit einer Cache-Groesse ueber 0 merkt er sich, was fuer eine Grammatik
+ * schon abgeleitet ist, in einem LRU-Cache: Fragt jemand dieselbe Grammatik mit groesserer Laenge
+ * erneut an, geht es nach der bisher groessten Laenge weiter, statt von vorn.
+ * Ohne Angabe hat er keinen Cache, weil dieser die Satzformen zwischen den Aufrufen im Speicher haelt.
+ * <p>
+ * Mit einem Verzeichnis zum Auslagern arbeitet der Generator mit begrenztem Speicher:
+ * Satzformen liegen dann als sortierte, komprimierte Laeufe auf der Platte, siehe SpilledForms.
+ * Das gilt fuer Grammatiken ohne schrumpfende Produktionen, also alle echten Typ-1-Grammatiken.
  */
-public class MyLanguageGenerator implements LanguageGenerator {
+public class MyLanguageGenerator implements LanguageGenerator, AutoCloseable {
     /**
-     * Die Produktionsregeln.
+     * Der Pool, dessen Worker sich gegenseitig Arbeit stehlen.
      */
-    private List<String[]> rules;
+    private final ForkJoinPool pool;
     /**
-     * Die maximal zu erzeugende Wortlaenge.
+     * So viele Grammatiken merkt sich der Cache.
      */
-    private int limit;
+    private final int cacheSize;
     /**
-     * Eine Queue von ggf. zu expandierenden Strings.
+     * Verzeichnis zum Auslagern von Satzformen, oder null.
      */
-    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Path spillDirectory;
     /**
-     * Ein temporaerer Cache bereits bearbeiteter Strings.
-     * Vermeidet viele unnoetige Berechnungen
+     * Speicherbudget beim Auslagern, in Bytes.
      */
-    private final Set<String> beenThere = new ConcurrentSkipListSet<>();
+    private final long memoryBudget;
+    /**
+     * Die Sprachen der zuletzt angefragten Grammatiken, die am laengsten nicht benutzte zuerst.
+     * Zugriff nur unter der Sperre des Caches.
+     */
+    private final Map<Grammar, Language> cache;
+
+    /**
+     * Ein Generator ohne Cache, der alle Prozessoren nutzt.
+     */
+    public MyLanguageGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Ein Generator ohne Cache mit einer festen Anzahl Worker,
+     * z.B. wenn mehrere Generatoren nebeneinander laufen.
+     * @param parallelism Anzahl Worker, mindestens 1.
+     */
+    public MyLanguageGenerator(int parallelism) {
+        this(parallelism, 0);
+    }
+
+    /**
+     * Ein Generator mit einer festen Anzahl Worker und einer festen Groesse des Caches.
+     * @param parallelism Anzahl Worker, mindestens 1.
+     * @param cacheSize So viele Grammatiken merkt sich der Cache, 0 fuer keinen Cache.
+     *                  Jede haelt ihre Woerter und die Satzformen der naechsten Schichten.
+     */
+    public MyLanguageGenerator(int parallelism, int cacheSize) {
+        this(parallelism, cacheSize, null, 0);
+    }
+
+    /**
+     * Ein Generator mit begrenztem Speicher, der Satzformen auf die Platte auslagert.
+     * Er merkt sich keine Grammatiken.
+     * @param parallelism Anzahl Worker, mindestens 1.
+     * @param spillDirectory Verzeichnis, in dem jeder Aufruf ein eigenes Unterverzeichnis anlegt.
+     * @param memoryBudget Speicher fuer Puffer und offene Dateien eines Aufrufs, in Bytes, mindestens 3 MB.
+     */
+    public MyLanguageGenerator(int parallelism, Path spillDirectory, long memoryBudget) {
+        this(parallelism, 0, spillDirectory, memoryBudget);
+        if (spillDirectory == null || memoryBudget < SpilledForms.MIN_BUDGET)
+            throw new IllegalArgumentException("need a spill directory and a memory budget of at least "
+                                               + SpilledForms.MIN_BUDGET + " bytes");
+    }
+
+    /**
+     * Ein Generator.
+     * @param parallelism Anzahl Worker, mindestens 1.
+     * @param cacheSize So viele Grammatiken merkt sich der Cache.
+     * @param spillDirectory Verzeichnis zum Auslagern, oder null.
+     * @param memoryBudget Speicherbudget beim Auslagern.
+     */
+    private MyLanguageGenerator(int parallelism, int cacheSize, Path spillDirectory, long memoryBudget) {
+        if (cacheSize < 0)
+            throw new IllegalArgumentException("cache size must not be negative");
+        pool = new ForkJoinPool(parallelism);
+        this.cacheSize = cacheSize;
+        this.spillDirectory = spillDirectory;
+        this.memoryBudget = memoryBudget;
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override protected boolean removeEldestEntry(Map.Entry<Grammar, Language> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
 
     /**
      * Gibt die Woerter, die die Grammatik im ersten Kommandozeilenargument erzeugt
      * bis zur maximalen Laenge im zweiten Kommandozeilenargument aus.
-     * @param args [0]: Grammatik [1]: Maximale Laenge
+     * Mit einem dritten Argument werden Satzformen in dieses Verzeichnis ausgelagert,
+     * mit dem vierten als Speicherbudget in MB, sonst 64 MB.
+     * @param args [0]: Grammatik [1]: Maximale Laenge [2]: Verzeichnis zum Auslagern [3]: Budget in MB
      */
     public static void main(String... args) {
-        final LanguageGenerator generator = new MyLanguageGenerator();
-        generator.generate(generator.read(args[0]), Integer.parseInt(args[1]))
-                .forEachOrdered(System.out::println);
+        final int parallelism = Runtime.getRuntime().availableProcessors();
+        try (MyLanguageGenerator generator = args.length > 2
+                ? new MyLanguageGenerator(parallelism, Paths.get(args[2]),
+                                          (args.length > 3 ? Long.parseLong(args[3]) : 64) << 20)
+                : new MyLanguageGenerator(parallelism, 0)) {
+            generator.generate(Grammar.parse(args[0]), Integer.parseInt(args[1]))
+                    .forEachOrdered(System.out::println);
+        }
     }
 
     /**
-     * Generiert Expansionen aus den Strings in der Queue und haengt diese an die Queue
-     * an, falls noch Variablen vorkommen, oder gibt sie sonst in einem Stream zurueck,
-     * sofern die Expansion nicht bereits gesehen wurde.
-     * @return Ein Stream aller durchgefuehrten Expansionen, in denen keine Variablen mehr vorkommen.
-     */
-    private Stream<String> process() {
-        final Stream.Builder<String> streamBuilder = Stream.builder();
-        try {
-            for (String leftSide = queue.poll(10, TimeUnit.MILLISECONDS);
-                 leftSide != null;
-                 leftSide = queue.poll(10, TimeUnit.MILLISECONDS))
-                for (String[] rule : rules)
-                    for (int index = 0; index <= leftSide.length() - rule[0].length(); index++)
-                        if (leftSide.startsWith(rule[0], index)) {
-                            final String expansion = leftSide.substring(0, index)
-                                    + rule[1]
-                                    + leftSide.substring(index + rule[0].length());
-                            if (expansion.length() <= limit && !beenThere.contains(expansion)) {
-                                beenThere.add(expansion);
-                                if (expansion.equals(expansion.toLowerCase()))
-                                    streamBuilder.accept(expansion);
-                                else
-                                    queue.offer(expansion);
-                            }
-                        }
-        } catch (InterruptedException exception) { /* not happening */ }
-
-        return streamBuilder.build();
+     * Beendet die Worker, sobald laufende Aufgaben fertig sind.
+     * Danach nimmt der Generator keine Anfragen mehr an.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Ersetzt einen Teil einer Satzform.
+     * @param form Die Satzform.
+     * @param index Beginn des ersetzten Teils.
+     * @param length Laenge des ersetzten Teils.
+     * @param rightSide Der neue Teil.
+     * @return Die neue Satzform.
+     */
+    static byte[] replace(byte[] form, int index, int length, byte[] rightSide) {
+        final byte[] expansion = new byte[form.length - length + rightSide.length];
+        System.arraycopy(form, 0, expansion, 0, index);
+        System.arraycopy(rightSide, 0, expansion, index, rightSide.length);
+        System.arraycopy(form, index + length, expansion, index + rightSide.length, form.length - index - length);
+        return expansion;
+    }
+
+    /**
+     * Meldet die Woerter einer Laenge, bevor sie ausgegeben werden.
+     * @param length Die Laenge.
+     * @param words Die Woerter.
+     * @return Die Woerter.
+     */
+    private static List<String> emitted(int length, List<String> words) {
+        Events.GeneratorWords.emit(length, words.size());
+        return words;
+    }
+
+    /**
+     * Liefert die Sprache einer Grammatik aus dem Cache, oder eine neue, wenn sie dort fehlt
+     * oder die Laenge nicht erreicht.
+     * @param grammar Die Grammatik.
+     * @param uptoLength Die groesste Laenge, die gebraucht wird.
+     * @return Die Sprache.
+     */
+    private Language language(Grammar grammar, int uptoLength) {
+        synchronized (cache) {
+            Language language = cache.get(grammar);
+            if (language == null || !language.reaches(uptoLength)) {
+                language = ContextFreeLanguage.isContextFree(grammar.rules())
+                           /* Kontextfrei: Woerter pro Nichtterminal und Laenge zusammensetzen
+                            * statt Satzformen ableiten. */
+                           ? new ContextFreeLanguage(grammar.rules())
+                           : new SententialForms(grammar, pool, uptoLength, cacheSize > 0);
+                cache.put(grammar, language);
+            }
+            return language;
+        }
+    }
+
+    /**
+     * Generiert alle Woerter der Sprache einer uebersetzten Grammatik bis zur gegebenen Laenge.
+     * Die Woerter einer Laenge werden erst berechnet, wenn der Stream bei ihnen ankommt.
+     * Beim Auslagern verschwinden die Dateien, wenn der Stream ausgelesen oder geschlossen ist.
+     * @param grammar Die Grammatik.
+     * @param uptoLength Maximale Laenge der Woerter.
+     * @return Alle Woerter bis zu dieser Laenge, nach Laenge und dann alphabetisch sortiert.
+     */
+    public Stream<String> generate(Grammar grammar, int uptoLength) {
+        if (spillDirectory != null && grammar.isNoncontracting() && grammar.start().length > 0)
+            return new SpilledForms(grammar, pool, uptoLength, spillDirectory, memoryBudget).words();
+        final Language language = language(grammar, uptoLength);
+        return IntStream.rangeClosed(0, uptoLength)
+                .mapToObj(length -> emitted(length, language.words(length)))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Vergisst alle Grammatiken im Cache.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
     }
 
     @Override
     public Stream<String> generate(Stream<String[]> grammar, int uptoLength) {
-        queue.clear();
-        beenThere.clear();
-        limit = uptoLength;
-        rules = grammar.collect(Collectors.toList());
-        final String start = rules.get(0)[0];
-        queue.offer(start);
-        return IntStream.range(1, Runtime.getRuntime().availableProcessors())
-                .parallel()
-                .mapToObj(processor -> process())
-                .flatMap(Function.identity())
-                /* Der Cache bereits gesehener Expansionen reicht aufgrund der parallelen Bearbeitung
-                 * leider nicht aus, um Duplikate vollstaendig zu vermeiden. */
-                .distinct()
-                .sorted(Comparator.comparingInt(String::length).thenComparing(Function.identity()));
+        return generate(Grammar.of(grammar), uptoLength);
     }
 
     @Override
     public Stream<String[]> read(String grammarString) {
-        final char deduct = grammarString.charAt(0);
-        final char separate = grammarString.charAt(1);
-        return Stream.of(grammarString.split("\\Q" + separate + "\\E"))
-                .skip(1)
-                .map(string -> string.split("\\Q" + deduct + "\\E", 2));
+        return Grammar.split(grammarString).stream();
     }
 }
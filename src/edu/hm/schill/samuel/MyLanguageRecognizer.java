@@ -0,0 +1,327 @@
+package edu.hm.schill.samuel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Entscheidet das Wortproblem, ohne die Sprache aufzuzaehlen.
+ * Kontextfreie Grammatiken, auch mit leeren rechten Seiten, prueft ein Earley-Parser,
+ * alle anderen ohne schrumpfende Produktionen eine Rueckwaertssuche vom Wort zum Startsymbol.
+ * Fuer schrumpfende Grammatiken, die nicht kontextfrei sind, ist das Wortproblem unentscheidbar.
+ */
+public class MyLanguageRecognizer implements LanguageRecognizer {
+    /**
+     * So viele Satzformen merkt sich die Rueckwaertssuche ueber Anfragen hinweg.
+     */
+    private static final int MEMO_LIMIT = 1 << 20;
+
+    /**
+     * Prueft die Woerter ab dem zweiten Kommandozeilenargument gegen die Grammatik im ersten.
+     * @param args [0]: Grammatik [1...]: Woerter
+     */
+    public static void main(String... args) {
+        final Predicate<String> language;
+        try (MyLanguageGenerator generator = new MyLanguageGenerator(1)) {
+            language = new MyLanguageRecognizer().compile(generator.read(args[0]));
+        }
+        Stream.of(args)
+                .skip(1)
+                .forEach(word -> System.out.println(word + ": " + language.test(word)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException Wenn die Grammatik schrumpfende Produktionen hat und nicht kontextfrei ist.
+     */
+    @Override
+    public Predicate<String> compile(Stream<String[]> grammar) {
+        final Grammar compiled = Grammar.of(grammar);
+        final byte[][][] rules = compiled.rules();
+        if (isContextFree(rules))
+            return new Earley(rules);
+        if (!compiled.isNoncontracting())
+            throw new IllegalArgumentException("contracting grammar that is not context-free: " + compiled);
+        return new BackwardSearch(rules);
+    }
+
+    /**
+     * Prueft, ob jede linke Seite ein einzelnes Nichtterminal ist. Rechte Seiten duerfen leer sein.
+     * @param rules Die Produktionen.
+     * @return true bei einer kontextfreien Grammatik.
+     */
+    private static boolean isContextFree(byte[][][] rules) {
+        return Stream.of(rules).allMatch(rule -> rule[0].length == 1 && isNonterminal(rule[0][0]));
+    }
+
+    /**
+     * Wandelt ein Wort in Bytes um.
+     * @param word Das Wort.
+     * @return Die Bytes, oder null, wenn das Wort Zeichen ausserhalb von ASCII oder Nichtterminale enthaelt,
+     *         also hoechstens eine Satzform ist.
+     */
+    private static byte[] toBytes(String word) {
+        for (int index = 0; index < word.length(); index++)
+            if (word.charAt(index) >= 128 || isNonterminal((byte) word.charAt(index)))
+                return null;
+        return word.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Prueft, ob ein Zeichen ein Nichtterminal ist.
+     * @param chr Das Zeichen.
+     * @return true bei einem Grossbuchstaben.
+     */
+    private static boolean isNonterminal(byte chr) {
+        return chr >= 'A' && chr <= 'Z';
+    }
+
+    /**
+     * Earley-Parser fuer kontextfreie Grammatiken.
+     * Ein Item ist (Produktion, Position des Punktes, Beginn) und steckt in einem long.
+     * Leere rechte Seiten behandelt er nach Aycock und Horspool: Wer ein Nichtterminal vorhersagt,
+     * das leer werden kann, schiebt den Punkt gleich mit darueber.
+     */
+    private static final class Earley implements Predicate<String> {
+        /**
+         * Die Produktionen.
+         */
+        private final byte[][][] rules;
+        /**
+         * Indizes der Produktionen pro Nichtterminal.
+         */
+        private final int[][] rulesOf = new int[26][];
+        /**
+         * Das Startsymbol.
+         */
+        private final byte start;
+        /**
+         * Die Nichtterminale, die das leere Wort ableiten.
+         */
+        private final boolean[] nullable = new boolean[26];
+
+        /**
+         * @param rules Kontextfreie Produktionen.
+         */
+        Earley(byte[][][] rules) {
+            this.rules = rules;
+            start = rules[0][0][0];
+            for (int nonterminal = 0; nonterminal < rulesOf.length; nonterminal++) {
+                final byte lhs = (byte) ('A' + nonterminal);
+                rulesOf[nonterminal] = IntStream.range(0, rules.length)
+                        .filter(rule -> rules[rule][0][0] == lhs)
+                        .toArray();
+            }
+            for (boolean changed = true; changed; ) {
+                changed = false;
+                for (byte[][] rule : rules)
+                    if (!nullable[rule[0][0] - 'A'] && isNullable(rule[1])) {
+                        nullable[rule[0][0] - 'A'] = true;
+                        changed = true;
+                    }
+            }
+        }
+
+        /**
+         * Prueft, ob eine rechte Seite nach bisherigem Stand leer werden kann.
+         * @param rightSide Die rechte Seite.
+         * @return true, wenn sie nur aus Nichtterminalen besteht, die leer werden koennen.
+         */
+        private boolean isNullable(byte[] rightSide) {
+            for (byte chr : rightSide)
+                if (!isNonterminal(chr) || !nullable[chr - 'A'])
+                    return false;
+            return true;
+        }
+
+        @Override
+        public boolean test(String string) {
+            final byte[] word = toBytes(string);
+            if (word == null)
+                return false;
+            final List<List<Long>> chart = new ArrayList<>();
+            final List<Set<Long>> seen = new ArrayList<>();
+            for (int position = 0; position <= word.length; position++) {
+                chart.add(new ArrayList<>());
+                seen.add(new HashSet<>());
+            }
+            for (int rule : rulesOf[start - 'A'])
+                add(chart, seen, 0, item(rule, 0, 0));
+
+            for (int position = 0; position <= word.length; position++) {
+                final List<Long> items = chart.get(position);
+                for (int next = 0; next < items.size(); next++) {
+                    final long item = items.get(next);
+                    final int rule = rule(item);
+                    final int dot = dot(item);
+                    final int origin = origin(item);
+                    final byte[] rightSide = rules[rule][1];
+                    if (dot == rightSide.length) {
+                        /* complete; bei leeren rechten Seiten ist origin == position und die Liste waechst,
+                         * spaeter hinzugekommene Items hat die Vorhersage schon weitergeschoben */
+                        final byte lhs = rules[rule][0][0];
+                        final List<Long> origins = chart.get(origin);
+                        for (int index = 0, size = origins.size(); index < size; index++) {
+                            final long waiting = origins.get(index);
+                            final byte[] waitingSide = rules[rule(waiting)][1];
+                            if (dot(waiting) < waitingSide.length && waitingSide[dot(waiting)] == lhs)
+                                add(chart, seen, position, waiting + (1L << 32));
+                        }
+                    } else if (isNonterminal(rightSide[dot])) {
+                        /* predict */
+                        for (int predicted : rulesOf[rightSide[dot] - 'A'])
+                            add(chart, seen, position, item(predicted, 0, position));
+                        if (nullable[rightSide[dot] - 'A'])
+                            add(chart, seen, position, item + (1L << 32));
+                    } else if (position < word.length && word[position] == rightSide[dot])
+                        /* scan */
+                        add(chart, seen, position + 1, item + (1L << 32));
+                }
+            }
+            for (long item : chart.get(word.length))
+                if (origin(item) == 0
+                    && rules[rule(item)][0][0] == start
+                    && dot(item) == rules[rule(item)][1].length)
+                    return true;
+            return false;
+        }
+
+        /**
+         * Fuegt ein Item in eine Menge des Charts ein, falls es noch fehlt.
+         * @param chart Das Chart.
+         * @param seen Die Items pro Menge, zum schnellen Nachschlagen.
+         * @param position Index der Menge.
+         * @param item Das Item.
+         */
+        private static void add(List<List<Long>> chart, List<Set<Long>> seen, int position, long item) {
+            if (seen.get(position).add(item))
+                chart.get(position).add(item);
+        }
+
+        /**
+         * Packt ein Item.
+         * @param rule Index der Produktion.
+         * @param dot Position des Punktes in der rechten Seite.
+         * @param origin Beginn im Wort.
+         * @return Das Item.
+         */
+        private static long item(int rule, int dot, int origin) {
+            return (long) rule << 48 | (long) dot << 32 | origin;
+        }
+
+        /**
+         * @param item Ein Item.
+         * @return Index seiner Produktion.
+         */
+        private static int rule(long item) {
+            return (int) (item >>> 48);
+        }
+
+        /**
+         * @param item Ein Item.
+         * @return Position seines Punktes.
+         */
+        private static int dot(long item) {
+            return (int) (item >>> 32) & 0xFFFF;
+        }
+
+        /**
+         * @param item Ein Item.
+         * @return Sein Beginn im Wort.
+         */
+        private static int origin(long item) {
+            return (int) item;
+        }
+    }
+
+    /**
+     * Wendet Produktionen rueckwaerts an, bis das Startsymbol erreicht ist
+     * oder keine neue Satzform mehr entsteht. Nur fuer Grammatiken ohne schrumpfende Produktionen:
+     * Dann ist keine Satzform einer Ableitung laenger als das Wort, die Suche bleibt endlich
+     * und haengt fuer eine Satzform nicht von der Schranke ab.
+     * Alle Satzformen einer erfolglosen Suche gelten daher auch fuer spaetere Anfragen als unerreichbar.
+     */
+    private static final class BackwardSearch implements Predicate<String> {
+        /**
+         * Die Produktionen.
+         */
+        private final byte[][][] rules;
+        /**
+         * Findet alle rechten Seiten in einer Satzform.
+         */
+        private final RuleMatcher matcher;
+        /**
+         * Das Startsymbol.
+         */
+        private final String start;
+        /**
+         * Satzformen mit bekanntem Ergebnis aus frueheren Anfragen.
+         */
+        private final Map<String, Boolean> memo = new ConcurrentHashMap<>();
+
+        /**
+         * @param rules Die Produktionen, keine schrumpft.
+         */
+        BackwardSearch(byte[][][] rules) {
+            this.rules = rules;
+            matcher = new RuleMatcher(Stream.of(rules).map(rule -> rule[1]).toArray(byte[][]::new));
+            start = new String(rules[0][0], StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public boolean test(String string) {
+            final byte[] word = toBytes(string);
+            if (word == null || word.length < start.length())
+                return false;
+            final Set<String> visited = new HashSet<>();
+            final Deque<byte[]> todo = new ArrayDeque<>();
+            visited.add(string);
+            todo.push(word);
+            final boolean[] found = {false};
+            while (!found[0] && !todo.isEmpty()) {
+                final byte[] form = todo.pop();
+                final String key = new String(form, StandardCharsets.ISO_8859_1);
+                final Boolean known = memo.get(key);
+                if (key.equals(start) || Boolean.TRUE.equals(known))
+                    found[0] = true;
+                else if (known == null)
+                    matcher.forEachMatch(form, (rule, index) -> {
+                        final byte[] reduced = MyLanguageGenerator.replace(form, index, rules[rule][1].length, rules[rule][0]);
+                        if (reduced.length <= word.length
+                            && visited.add(new String(reduced, StandardCharsets.ISO_8859_1)))
+                            todo.push(reduced);
+                    });
+            }
+            if (found[0])
+                remember(string, true);
+            else
+                for (String form : visited)
+                    if (!remember(form, false))
+                        break;
+            return found[0];
+        }
+
+        /**
+         * Merkt sich das Ergebnis einer Satzform, solange der Speicher unter MEMO_LIMIT liegt.
+         * Gleichzeitige Anfragen koennen die Grenze hoechstens um je einen Eintrag ueberschreiten.
+         * @param form Die Satzform.
+         * @param result Ob sie sich aus dem Startsymbol ableiten laesst.
+         * @return false, wenn der Speicher voll ist.
+         */
+        private boolean remember(String form, boolean result) {
+            if (memo.size() >= MEMO_LIMIT)
+                return false;
+            memo.put(form, result);
+            return true;
+        }
+    }
+}
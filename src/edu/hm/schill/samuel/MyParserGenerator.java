@@ -4,110 +4,465 @@ import edu.hm.cs.rs.compiler.lab06rdparsergenerator.RDParserGenerator;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 public class MyParserGenerator implements RDParserGenerator {
+    /**
+     * Wie der generierte Parser die Produktionen auswaehlt.
+     */
+    public enum Strategy {
+        /** Eine rekursive Methode pro Nichtterminal. */
+        RECURSIVE,
+        /** Eine LL(1)-Tabelle mit explizitem Stack, Tiefe nur durch den Heap begrenzt. */
+        TABLE
+    }
+
+    /**
+     * Was der generierte Parser beim Parsen aufbaut.
+     */
+    public enum Output {
+        /** Einen Baum aus Node-Objekten, wie von RDParserGenerator vorgesehen. */
+        NODES,
+        /**
+         * Ereignisse an einen Listener: enter und exit pro Nichtterminal, terminal pro Terminal.
+         * Ohne eigenen Listener entsteht mit parseFlat ein flacher Baum in einem int[],
+         * in Preorder zwei ints pro Knoten: das Symbol und der Index des ersten Knotens nach seinem Teilbaum.
+         * Die Kinder von Knoten i beginnen bei i + 1, das naechste Geschwister eines Kindes j bei tree[2 * j + 1].
+         * parse ohne Listener baut daraus weiterhin Node-Baeume.
+         */
+        EVENTS
+    }
+
+    private static final int ALPHABET = 128;
+
+    private final Strategy strategy;
+    private final Output output;
+
+    public MyParserGenerator() {
+        this(Strategy.RECURSIVE);
+    }
+
+    public MyParserGenerator(Strategy strategy) {
+        this(strategy, Output.NODES);
+    }
+
+    public MyParserGenerator(Strategy strategy, Output output) {
+        this.strategy = strategy;
+        this.output = output;
+    }
 
     public static void main(String[] args) {
-        RDParserGenerator pg = new MyParserGenerator();
+        MyParserGenerator pg = new MyParserGenerator(args.length > 1 ? Strategy.valueOf(args[1]) : Strategy.RECURSIVE,
+                                                     args.length > 2 ? Output.valueOf(args[2]) : Output.NODES);
         String grammar = args[0];
+        pg.getConflicts(grammar).forEach(conflict -> System.err.println("LL(1) conflict: " + conflict));
         System.out.println(pg.generate(grammar));
     }
 
     @Override
     public String generate(String grammar) {
-        final Map<String[], Set<Character>> firstSets = getFirstSets(grammar);
-        final char start = grammar.charAt(2);
-        final Set<Character> nonTerminals = grammar.chars()
-                .filter(chr -> chr >= 'A' && chr <= 'Z')
-                .mapToObj(chr -> (char) chr)
-                .collect(Collectors.toSet());
+        final Events.ParserGeneration event = Events.ParserGeneration.start();
+        final GrammarAnalysis analysis = new GrammarAnalysis(grammar);
+        final char start = analysis.start();
+
+        final String parser = header(start)
+                + (output == Output.EVENTS ? events() : nodes())
+                + (strategy == Strategy.TABLE ? tableDriven(analysis) : "")
+                + context(start, analysis)
+                + "}\n";
+        if (event != null)
+            event.report(analysis, strategy);
+        return parser;
+    }
 
-        return "import java.util.*;\n"
+    private String header(char start) {
+        return "import java.io.*;\n"
+                + "import java.util.*;\n"
                 + "\n"
                 + "public class RDParser" + start + " {\n"
                 + "static " + getNodeSourcecode()
                 + "\n"
                 + "static " + getSyntaxErrorExceptionSourcecode()
                 + "\n"
-                + "    public static void main(String... args) throws SyntaxErrorException {\n"
-                + "        Node parseTree = new RDParser" + start + "().parse(args[0]);\n"
+                + "    public static void main(String... args) throws SyntaxErrorException, IOException {\n"
+                + "        Node parseTree = args.length == 0\n"
+                + "                ? new RDParser" + start + "().parse(new InputStreamReader(System.in))\n"
+                + "                : new RDParser" + start + "().parse(args[0]);\n"
                 + "        System.out.println(parseTree);  // Parsebaum in einer Zeile\n"
                 + "        parseTree.prettyPrint();        // Parsebaum gekippt, mehrzeilig\n"
                 + "    }\n"
                 + "\n"
-                + "    private String input;\n"
+                + "    private static final int END_OF_INPUT = -1;\n"
+                + "    private static final int BUFFER_SIZE = 8192;\n"
+                + "\n"
+                + "    private static final String[] NAMES = new String[" + ALPHABET + "];\n"
+                + "\n"
+                + "    static {\n"
+                + "        for (int chr = 0; chr < NAMES.length; chr++)\n"
+                + "            NAMES[chr] = String.valueOf((char) chr);\n"
+                + "    }\n"
+                + "\n"
+                + "    private static String describe(int lookahead) {\n"
+                + "        return lookahead == END_OF_INPUT ? \"end of file\" : \"'\" + (char) lookahead + \"'\";\n"
+                + "    }\n"
+                + "\n";
+    }
+
+    private String nodes() {
+        return "    public Node parse(String newInput) throws SyntaxErrorException {\n"
+                + "        return new Context(null, newInput.toCharArray(), newInput.length()).parseInput();\n"
+                + "    }\n"
+                + "\n"
+                + "    public Node parse(Reader newInput) throws SyntaxErrorException, IOException {\n"
+                + "        try {\n"
+                + "            return new Context(newInput, new char[BUFFER_SIZE], 0).parseInput();\n"
+                + "        } catch (UncheckedIOException exception) {\n"
+                + "            throw exception.getCause();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n";
+    }
+
+    private String events() {
+        return "    public interface Listener {\n"
+                + "        void enter(char nonterminal);\n"
+                + "        void terminal(char terminal);\n"
+                + "        void exit(char nonterminal);\n"
+                + "    }\n"
+                + "\n"
+                + "    private static class NodeBuilder implements Listener {\n"
+                + "        private final Deque<Node> open = new ArrayDeque<>();\n"
+                + "        private Node root;\n"
+                + "\n"
+                + "        @Override public void enter(char nonterminal) {\n"
+                + "            final Node node = new Node(NAMES[nonterminal]);\n"
+                + "            if (open.isEmpty())\n"
+                + "                root = node;\n"
+                + "            else\n"
+                + "                open.peek().add(node);\n"
+                + "            open.push(node);\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override public void terminal(char terminal) {\n"
+                + "            open.peek().add(new Node(NAMES[terminal]));\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override public void exit(char nonterminal) {\n"
+                + "            open.pop();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    private static class FlatTree implements Listener {\n"
+                + "        private int[] tree = new int[64];\n"
+                + "        private int size;\n"
+                + "        private int[] open = new int[16];\n"
+                + "        private int depth;\n"
+                + "\n"
+                + "        @Override public void enter(char nonterminal) {\n"
+                + "            if (depth == open.length)\n"
+                + "                open = Arrays.copyOf(open, depth * 2);\n"
+                + "            open[depth++] = size;\n"
+                + "            append(nonterminal);\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override public void terminal(char terminal) {\n"
+                + "            append(terminal);\n"
+                + "            tree[size - 1] = size / 2;\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override public void exit(char nonterminal) {\n"
+                + "            tree[open[--depth] + 1] = size / 2;\n"
+                + "        }\n"
+                + "\n"
+                + "        private void append(char symbol) {\n"
+                + "            if (size == tree.length)\n"
+                + "                tree = Arrays.copyOf(tree, size * 2);\n"
+                + "            tree[size] = symbol;\n"
+                + "            size += 2;\n"
+                + "        }\n"
+                + "\n"
+                + "        int[] toArray() {\n"
+                + "            return Arrays.copyOf(tree, size);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public void parse(String newInput, Listener listener) throws SyntaxErrorException {\n"
+                + "        new Context(null, newInput.toCharArray(), newInput.length(), listener).parseInput();\n"
+                + "    }\n"
+                + "\n"
+                + "    public void parse(Reader newInput, Listener listener) throws SyntaxErrorException, IOException {\n"
+                + "        try {\n"
+                + "            new Context(newInput, new char[BUFFER_SIZE], 0, listener).parseInput();\n"
+                + "        } catch (UncheckedIOException exception) {\n"
+                + "            throw exception.getCause();\n"
+                + "        }\n"
+                + "    }\n"
                 + "\n"
                 + "    public Node parse(String newInput) throws SyntaxErrorException {\n"
-                + "        input = newInput;\n"
-                + "        final Node result = " + start + "();\n"
-                + "        if (!input.isEmpty())\n"
-                + "            throw new SyntaxErrorException(\"Expected end of file but found '\" + input.charAt(0) + \"'\");\n"
-                + "        return result;\n"
+                + "        final NodeBuilder builder = new NodeBuilder();\n"
+                + "        parse(newInput, builder);\n"
+                + "        return builder.root;\n"
+                + "    }\n"
+                + "\n"
+                + "    public Node parse(Reader newInput) throws SyntaxErrorException, IOException {\n"
+                + "        final NodeBuilder builder = new NodeBuilder();\n"
+                + "        parse(newInput, builder);\n"
+                + "        return builder.root;\n"
+                + "    }\n"
+                + "\n"
+                + "    public int[] parseFlat(String newInput) throws SyntaxErrorException {\n"
+                + "        final FlatTree tree = new FlatTree();\n"
+                + "        parse(newInput, tree);\n"
+                + "        return tree.toArray();\n"
                 + "    }\n"
                 + "\n"
-                + "    private Node terminal(char expected) throws SyntaxErrorException {\n"
-                + "        final char lookahead = input.charAt(0);\n"
-                + "        if(lookahead != expected)\n"
-                + "            throw new SyntaxErrorException(\"Expected '\" + expected + \"' but found '\" + lookahead + \"'\");\n"
-                + "        input = input.substring(1);\n"
-                + "        return new Node(Character.toString(expected));\n"
+                + "    public int[] parseFlat(Reader newInput) throws SyntaxErrorException, IOException {\n"
+                + "        final FlatTree tree = new FlatTree();\n"
+                + "        parse(newInput, tree);\n"
+                + "        return tree.toArray();\n"
                 + "    }\n"
                 + "\n"
-                + nonTerminals.stream()
-                .map(token -> "    private Node " + token + "() throws SyntaxErrorException {\n"
-                                + "        final char lookahead = input.charAt(0);\n"
-                                + firstSets.keySet().stream()
-                                .filter(rule -> rule[0].charAt(0) == token)
-                                .map(rule ->
-                                        "        if(" + firstSets.get(rule).stream()
-                                                .map(chr -> "lookahead == '" + chr + "'")
-                                                .collect(Collectors.joining(" || ")) + ")\n"
-                                                + "            return new Node(\"" + token + "\", "
-                                                + rule[1].chars()
-                                                .mapToObj(chr ->
-                                                        chr >= 'A' && chr <= 'Z'
-                                                                ? (char) chr + "()"
-                                                                : "terminal('" + (char) chr + "')")
-                                                .collect(Collectors.joining(", "))
-                                                + ");\n"
+                + "\n";
+    }
+
+    private String context(char start, GrammarAnalysis analysis) {
+        final boolean events = output == Output.EVENTS;
+        return "    private static final class Context {\n"
+                + "        private Reader reader;\n"
+                + "        private final char[] buffer;\n"
+                + "        private int position;\n"
+                + "        private int limit;\n"
+                + (events ? "        private final Listener listener;\n" : "")
+                + "\n"
+                + "        Context(Reader reader, char[] buffer, int limit" + (events ? ", Listener listener" : "") + ") {\n"
+                + "            this.reader = reader;\n"
+                + "            this.buffer = buffer;\n"
+                + "            this.limit = limit;\n"
+                + (events ? "            this.listener = listener;\n" : "")
+                + "        }\n"
+                + "\n"
+                + indent((events
+                          ? "    private void parseInput() throws SyntaxErrorException {\n"
+                            + "        " + (strategy == Strategy.TABLE ? "parseTable" : String.valueOf(start)) + "();\n"
+                            + "        if (lookahead() != END_OF_INPUT)\n"
+                            + "            throw new SyntaxErrorException(\"Expected end of file but found \" + describe(lookahead()));\n"
+                            + "    }\n"
+                          : "    private Node parseInput() throws SyntaxErrorException {\n"
+                            + "        final Node result = " + (strategy == Strategy.TABLE ? "parseTable" : String.valueOf(start)) + "();\n"
+                            + "        if (lookahead() != END_OF_INPUT)\n"
+                            + "            throw new SyntaxErrorException(\"Expected end of file but found \" + describe(lookahead()));\n"
+                            + "        return result;\n"
+                            + "    }\n")
+                         + "\n"
+                         + "    private int lookahead() {\n"
+                         + "        if (position == limit && reader != null)\n"
+                         + "            fill();\n"
+                         + "        return position < limit ? buffer[position] : END_OF_INPUT;\n"
+                         + "    }\n"
+                         + "\n"
+                         + "    private void fill() {\n"
+                         + "        try {\n"
+                         + "            position = 0;\n"
+                         + "            limit = Math.max(0, reader.read(buffer, 0, buffer.length));\n"
+                         + "            if (limit == 0)\n"
+                         + "                reader = null;\n"
+                         + "        } catch (IOException exception) {\n"
+                         + "            throw new UncheckedIOException(exception);\n"
+                         + "        }\n"
+                         + "    }\n"
+                         + "\n"
+                         + "    private " + (events ? "void" : "Node") + " terminal(char expected) throws SyntaxErrorException {\n"
+                         + "        final int lookahead = lookahead();\n"
+                         + "        if(lookahead != expected)\n"
+                         + "            throw new SyntaxErrorException(\"Expected '\" + expected + \"' but found \" + describe(lookahead));\n"
+                         + "        position++;\n"
+                         + (events ? "        listener.terminal(expected);\n" : "        return new Node(NAMES[expected]);\n")
+                         + "    }\n"
+                         + "\n"
+                         + (strategy == Strategy.TABLE
+                            ? events ? eventLoop(start) : nodeLoop(start)
+                            : recursiveDescent(analysis)))
+                + "    }\n";
+    }
+
+    private static String indent(String code) {
+        return code.replaceAll("(?m)^(?=.)", "    ");
+    }
+
+    private String recursiveDescent(GrammarAnalysis analysis) {
+        return analysis.nonterminals().chars()
+                .mapToObj(chr -> (char) chr)
+                .map(token -> "    private " + (output == Output.EVENTS ? "void " : "Node ") + token + "() throws SyntaxErrorException {\n"
+                                + "        final int lookahead = lookahead();\n"
+                                + Arrays.stream(analysis.alternatives(token))
+                                .mapToObj(rule ->
+                                        "        if(" + analysis.firstOfRule(rule).chars()
+                                                .mapToObj(chr -> "lookahead == '" + (char) chr + "'")
+                                                .collect(Collectors.joining(" || "))
+                                                + (output == Output.EVENTS
+                                                   ? ") {\n" + eventAlternative(token, analysis.right(rule))
+                                                   : ")\n            return new Node(\"" + token + "\", "
+                                                     + analysis.right(rule).chars()
+                                                     .mapToObj(chr ->
+                                                             chr >= 'A' && chr <= 'Z'
+                                                                     ? (char) chr + "()"
+                                                                     : "terminal('" + (char) chr + "')")
+                                                     .collect(Collectors.joining(", "))
+                                                     + ");\n")
                                 ).collect(Collectors.joining(""))
                                 + "        throw new SyntaxErrorException(\"Expected one of "
-                                + firstSets.keySet().stream()
-                                .filter(rule -> rule[0].charAt(0) == token)
-                                .flatMap(rule -> firstSets.get(rule).stream())
-                                .map(chr -> "'" + chr + "'")
-                                .collect(Collectors.joining(", "))
-                                + " but found '\" + lookahead + \"'\");\n"
+                                + GrammarAnalysis.quoted(analysis.firstOf(token))
+                                + " but found \" + describe(lookahead));\n"
                                 + "    }\n"
-                ).collect(Collectors.joining("\n"))
-                + "}\n";
+                ).collect(Collectors.joining("\n"));
     }
 
-    public Map<String[], Set<Character>> getFirstSets(String grammar) {
-        final char deduct = grammar.charAt(0);
-        final char separate = grammar.charAt(1);
-        final List<String[]> rules = Stream.of(grammar.split("\\Q" + separate + "\\E"))
-                .skip(1)
-                .map(string -> string.split("\\Q" + deduct + "\\E", 2))
-                .collect(Collectors.toList());
-        final Map<String[], Set<Character>> firstSets = new HashMap<>();
-        rules.forEach(rule -> firstSets.put(rule, new HashSet<>()));
-
-        boolean[] changed = {true};
-        while (changed[0]) {
-            changed[0] = false;
-            for (String[] rule : rules) {
-                final char first = rule[1].charAt(0);
-                if (first >= 'A' && first <= 'Z') {
-                    firstSets.keySet().stream()
-                            .filter(otherRule -> otherRule[0].charAt(0) == first)
-                            .forEach(otherRule ->
-                                    changed[0] = firstSets.get(rule).addAll(firstSets.get(otherRule)) || changed[0]);
-                } else
-                    changed[0] = firstSets.get(rule).add(first) || changed[0];
-            }
+    private static String eventAlternative(char token, String rightSide) {
+        return "            listener.enter('" + token + "');\n"
+                + rightSide.chars()
+                .mapToObj(chr -> "            " + (chr >= 'A' && chr <= 'Z' ? (char) chr + "()" : "terminal('" + (char) chr + "')") + ";\n")
+                .collect(Collectors.joining())
+                + "            listener.exit('" + token + "');\n"
+                + "            return;\n"
+                + "        }\n";
+    }
+
+    private String tableDriven(GrammarAnalysis analysis) {
+        final String names = analysis.nonterminals();
+        final StringBuilder table = new StringBuilder();
+        for (char token : names.toCharArray()) {
+            final int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            final int[] rules = analysis.alternatives(token);
+            for (int index = rules.length - 1; index >= 0; index--)
+                for (char chr : analysis.firstOfRule(rules[index]).toCharArray())
+                    row[chr] = rules[index];
+            table.append("        ")
+                    .append(Arrays.stream(row).mapToObj(Integer::toString).collect(Collectors.joining(", ")))
+                    .append(",\n");
         }
+
+        return "    private static final int NONTERMINAL = 128;\n"
+                + "    private static final String NONTERMINALS = \"" + names + "\";\n"
+                + "    private static final String LEFT_SIDES = \""
+                + IntStream.range(0, analysis.size()).mapToObj(rule -> String.valueOf(analysis.left(rule))).collect(Collectors.joining())
+                + "\";\n"
+                + "    private static final String[] RIGHT_SIDES = {\n"
+                + IntStream.range(0, analysis.size())
+                .mapToObj(rule -> "        \"" + escape(analysis.right(rule)) + "\",\n")
+                .collect(Collectors.joining())
+                + "    };\n"
+                + "    private static final String[] EXPECTED = {\n"
+                + names.chars()
+                .mapToObj(token -> "        \"" + escape(GrammarAnalysis.quoted(analysis.firstOf((char) token))) + "\",\n")
+                .collect(Collectors.joining())
+                + "    };\n"
+                + "    private static final short[] TABLE = {\n"
+                + table
+                + "    };\n"
+                + "    private static final int[][] PUSH = new int[RIGHT_SIDES.length][];\n"
+                + "\n"
+                + "    static {\n"
+                + "        for (int rule = 0; rule < RIGHT_SIDES.length; rule++) {\n"
+                + "            final String rightSide = RIGHT_SIDES[rule];\n"
+                + "            PUSH[rule] = new int[rightSide.length() + 1];\n"
+                + "            PUSH[rule][0] = -1 - NONTERMINALS.indexOf(LEFT_SIDES.charAt(rule));\n"
+                + "            for (int index = 0; index < rightSide.length(); index++) {\n"
+                + "                final char chr = rightSide.charAt(rightSide.length() - 1 - index);\n"
+                + "                PUSH[rule][index + 1] = chr >= 'A' && chr <= 'Z' ? NONTERMINAL + NONTERMINALS.indexOf(chr) : chr;\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n";
+    }
+
+    private static String nodeLoop(char start) {
+        return "    private Node parseTable() throws SyntaxErrorException {\n"
+                + "        int[] symbols = new int[64];\n"
+                + "        Node[] nodes = new Node[64];\n"
+                + "        int top = 0;\n"
+                + "        int depth = 0;\n"
+                + "        final Node root = new Node(\"\");\n"
+                + "        nodes[depth++] = root;\n"
+                + "        symbols[top++] = NONTERMINAL + NONTERMINALS.indexOf('" + start + "');\n"
+                + "        while (top > 0) {\n"
+                + "            final int symbol = symbols[--top];\n"
+                + "            if (symbol < 0)\n"
+                + "                depth--;\n"
+                + "            else if (symbol < NONTERMINAL)\n"
+                + "                nodes[depth - 1].add(terminal((char) symbol));\n"
+                + "            else {\n"
+                + "                final int nonterminal = symbol - NONTERMINAL;\n"
+                + "                final int lookahead = lookahead();\n"
+                + "                final int rule = lookahead >= 0 && lookahead < NONTERMINAL\n"
+                + "                        ? TABLE[nonterminal * NONTERMINAL + lookahead]\n"
+                + "                        : -1;\n"
+                + "                if (rule < 0)\n"
+                + "                    throw new SyntaxErrorException(\"Expected one of \" + EXPECTED[nonterminal]\n"
+                + "                                                   + \" but found \" + describe(lookahead));\n"
+                + "                final Node node = new Node(NAMES[NONTERMINALS.charAt(nonterminal)]);\n"
+                + "                nodes[depth - 1].add(node);\n"
+                + "                if (depth == nodes.length)\n"
+                + "                    nodes = Arrays.copyOf(nodes, depth * 2);\n"
+                + "                nodes[depth++] = node;\n"
+                + "                final int[] push = PUSH[rule];\n"
+                + "                if (top + push.length > symbols.length)\n"
+                + "                    symbols = Arrays.copyOf(symbols, (top + push.length) * 2);\n"
+                + "                System.arraycopy(push, 0, symbols, top, push.length);\n"
+                + "                top += push.length;\n"
+                + "            }\n"
+                + "        }\n"
+                + "        return root.get(0);\n"
+                + "    }\n";
+    }
+
+    private static String eventLoop(char start) {
+        return "    private void parseTable() throws SyntaxErrorException {\n"
+                + "        int[] symbols = new int[64];\n"
+                + "        int top = 0;\n"
+                + "        symbols[top++] = NONTERMINAL + NONTERMINALS.indexOf('" + start + "');\n"
+                + "        while (top > 0) {\n"
+                + "            final int symbol = symbols[--top];\n"
+                + "            if (symbol < 0)\n"
+                + "                listener.exit(NONTERMINALS.charAt(-1 - symbol));\n"
+                + "            else if (symbol < NONTERMINAL)\n"
+                + "                terminal((char) symbol);\n"
+                + "            else {\n"
+                + "                final int nonterminal = symbol - NONTERMINAL;\n"
+                + "                final int lookahead = lookahead();\n"
+                + "                final int rule = lookahead >= 0 && lookahead < NONTERMINAL\n"
+                + "                        ? TABLE[nonterminal * NONTERMINAL + lookahead]\n"
+                + "                        : -1;\n"
+                + "                if (rule < 0)\n"
+                + "                    throw new SyntaxErrorException(\"Expected one of \" + EXPECTED[nonterminal]\n"
+                + "                                                   + \" but found \" + describe(lookahead));\n"
+                + "                listener.enter(NONTERMINALS.charAt(nonterminal));\n"
+                + "                final int[] push = PUSH[rule];\n"
+                + "                if (top + push.length > symbols.length)\n"
+                + "                    symbols = Arrays.copyOf(symbols, (top + push.length) * 2);\n"
+                + "                System.arraycopy(push, 0, symbols, top, push.length);\n"
+                + "                top += push.length;\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n";
+    }
+
+    private static String escape(String string) {
+        return string.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public Map<String[], Set<Character>> getFirstSets(String grammar) {
+        final GrammarAnalysis analysis = new GrammarAnalysis(grammar);
+        final Map<String[], Set<Character>> firstSets = new LinkedHashMap<>();
+        for (int rule = 0; rule < analysis.size(); rule++)
+            firstSets.put(new String[] {String.valueOf(analysis.left(rule)), analysis.right(rule)},
+                          analysis.firstOfRule(rule).chars()
+                                  .mapToObj(chr -> (char) chr)
+                                  .collect(Collectors.toCollection(LinkedHashSet::new)));
         return firstSets;
     }
+
+    public List<String> getConflicts(String grammar) {
+        return new GrammarAnalysis(grammar).conflicts();
+    }
 }
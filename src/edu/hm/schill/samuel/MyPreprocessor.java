@@ -3,14 +3,7 @@ package edu.hm.schill.samuel;
 import edu.hm.cs.rs.compiler.toys.base.LexicalError;
 import edu.hm.cs.rs.compiler.toys.base.Source;
 
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
-import java.util.function.Consumer;
-import java.util.stream.Stream;
+import java.util.Arrays;
 
 /** Praktikumsaufgabe 1
  * Loescht Kommentare aus der Eingabe und gibt den Rest weiter.
@@ -18,96 +11,242 @@ import java.util.stream.Stream;
  */
 
 public class MyPreprocessor implements edu.hm.cs.rs.compiler.toys.base.Preprocessor {
+    /*
+     * Possible States, numbered from 0 so that they index TABLE and fit into STATE_MASK.
+     * state() and resume(int) exchange them with IncrementalLexer and ParallelPreprocessor.
+     */
+    /** Outside of comments, chars are output as they are. */
+    static final int CODE = 0;
+    /** After a '/' in code, which is output later unless a comment starts. */
+    static final int EXPECT_COMMENT = 1;
+    /** Inside a // comment, up to the next newline. */
+    static final int SIMPLE_COMMENT = 2;
+    /** Inside a block comment, only newlines are output. */
+    static final int BLOCK_COMMENT = 3;
+    /** After a '*' inside a block comment, which ends it if a '/' follows. */
+    static final int EXPECT_BLOCK_END = 4;
+    /** Number of States. */
+    static final int STATES = 5;
+
     /**
-     * Possible States.
+     * Characters below this have their own table column.
+     * All others share the last column, the default/wildcard.
      */
-    private enum State {
-        CODE, EXPECT_COMMENT, SIMPLE_COMMENT, BLOCK_COMMENT, EXPECT_BLOCK_END
-    }
+    private static final int ALPHABET = 128;
 
     /**
-     * Maps a State and a Char to a BiFunction that processes a Character
-     * and a Source object and returns a new State.
+     * Actions, stored above the next State in a table entry.
+     */
+    static final int SKIP = 0;
+    /** Output the current char. */
+    static final int EMIT = 1 << 3;
+    /** Output the '/' we skipped followed by the current char. */
+    static final int EMIT_SLASH = 2 << 3;
+    /** Output a space. */
+    static final int EMIT_SPACE = 3 << 3;
+    /** Bits of a table entry that hold the next State. */
+    static final int STATE_MASK = (1 << 3) - 1;
+    /** Bits of a table entry that hold the action. */
+    static final int ACTION_MASK = 3 << 3;
+
+    /**
+     * Action and next State for each State and char, the last column for all other chars.
+     */
+    private static final byte[][] TABLE = new byte[STATES][ALPHABET + 1];
+    /**
+     * For each State, the chars that keep it and take its default action.
+     * Runs of them are skipped or copied in bulk.
      */
-    private static final
-    Map<State, Map<Character, BiFunction<Character, Source, State>>>
-            PROCESSORS = new EnumMap<>(State.class);
+    private static final boolean[][] RUNS = new boolean[STATES][ALPHABET + 1];
+
     /**
-     * Maps a State to an optional BiFunction that takes potentially necessary
-     * finalization actions on a Source object for the State.
-     * An empty Optional indicates an invalid terminal State
+     * Initial capacity of the input buffer in process(Source).
      */
-    private static final
-    Map<State, Optional<Consumer<Source>>>
-            FINALIZERS = new EnumMap<>(State.class);
+    private static final int BUFFER_SIZE = 8192;
 
     /**
      * The current State.
      */
-    private State state = State.CODE;
+    private int state = CODE;
 
     @Override public Source process(Source incoming) throws LexicalError {
-        final Source outgoing = new Source();
-        try {
-            char chr;
-            while (incoming.hasMore()) {
-                chr = incoming.getNextChar();
-                state = PROCESSORS.get(state)
-                        .getOrDefault(chr, PROCESSORS.get(state).get('.'))
-                        .apply(chr, outgoing);
-            }
+        final Events.LexerRun run = Events.LexerRun.start("preprocessor");
+        char[] input = new char[BUFFER_SIZE];
+        int length = 0;
+        while (incoming.hasMore()) {
+            if (length == input.length)
+                input = Arrays.copyOf(input, length * 2);
+            input[length++] = incoming.getNextChar();
+        }
 
-            FINALIZERS.get(state).orElseThrow(LexicalError::new).accept(outgoing);
+        final char[] output = new char[length + 2];
+        final int end;
+        try {
+            end = finish(output, process(input, 0, length, output, 0));
         } finally {
-            state = State.CODE;
+            state = CODE;
         }
+        final Source outgoing = new Source();
+        for (int index = 0; index < end; index++)
+            outgoing.append(output[index]);
+        if (run != null)
+            run.report(length, 0);
         return outgoing;
     }
 
-    static {
-        // initialize the maps
-        Stream.of(State.values()).forEach(state -> {
-            PROCESSORS.put(state, new HashMap<>());
-            FINALIZERS.put(state, Optional.empty());
-        });
-
-        final BiConsumer<Character, Source> charAppender = (chr, src) -> src.append(chr);
-
-        /* concatenates a BiConsumer that accepts a Character and a Source object
-         * with a State return value to a BiFunction */
-        final BiFunction<BiConsumer<Character, Source>, State, BiFunction<Character, Source, State>>
-                processorMaker = (appender, newState) -> (chr, src) -> {
-            if (appender != null) appender.accept(chr, src);
-            return newState;
-        };
+    /**
+     * Processes a part of the input, continuing in the State the previous part ended in.
+     * @param input The input.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @param output Receives the output. Needs room for to - from + 1 chars.
+     * @param offset Index in output to start at.
+     * @return Index in output after the last char written.
+     */
+    public int process(char[] input, int from, int to, char[] output, int offset) {
+        int current = state;
+        int index = from;
+        while (index < to) {
+            final boolean[] run = RUNS[current];
+            final int start = index;
+            while (index < to && run[Math.min(input[index], ALPHABET)])
+                index++;
+            if (index > start && emitsRuns(current)) {
+                System.arraycopy(input, start, output, offset, index - start);
+                offset += index - start;
+            }
+            if (index == to)
+                break;
+
+            final char chr = input[index++];
+            final int entry = TABLE[current][Math.min(chr, ALPHABET)];
+            switch (entry & ACTION_MASK) {
+                case EMIT:
+                    output[offset++] = chr;
+                    break;
+                case EMIT_SLASH:
+                    output[offset++] = '/';
+                    output[offset++] = chr;
+                    break;
+                case EMIT_SPACE:
+                    output[offset++] = ' ';
+                    break;
+                default:
+                    break;
+            }
+            current = entry & STATE_MASK;
+        }
+        state = current;
+        return offset;
+    }
 
+    /**
+     * Takes the finalization actions for the State the input ended in, then starts over in CODE.
+     * @param output Receives the output. Needs room for 1 char.
+     * @param offset Index in output to start at.
+     * @return Index in output after the last char written.
+     * @throws LexicalError If the input ended inside a comment.
+     */
+    public int finish(char[] output, int offset) throws LexicalError {
+        final int last = state;
+        state = CODE;
+        switch (last) {
+            case CODE: // no finalization action necessary
+                return offset;
+            case EXPECT_COMMENT: // print the '/' we skipped
+                output[offset] = '/';
+                return offset + 1;
+            default:
+                throw new LexicalError();
+        }
+    }
+
+    /**
+     * The current State, for checkpoints of IncrementalLexer.
+     * @return The State the input so far ended in.
+     */
+    int state() {
+        return state;
+    }
+
+    /**
+     * Continues in a State recorded earlier with state().
+     * @param state The State.
+     */
+    void resume(int state) {
+        this.state = state;
+    }
+
+    /**
+     * Table entry for a State and char, shared with ParallelPreprocessor.
+     * @param state The State.
+     * @param chr The char.
+     * @return The action in the bits of ACTION_MASK, the next State in the bits of STATE_MASK.
+     */
+    static int entry(int state, int chr) {
+        return TABLE[state][Math.min(chr, ALPHABET)];
+    }
+
+    /**
+     * Checks whether a char keeps a State and takes its default action.
+     * @param state The State.
+     * @param chr The char.
+     * @return true if chr belongs to a run of the State.
+     */
+    static boolean inRun(int state, int chr) {
+        return RUNS[state][Math.min(chr, ALPHABET)];
+    }
+
+    /**
+     * Checks whether a State outputs the chars of its runs.
+     * @param state The State.
+     * @return true for CODE.
+     */
+    static boolean emitsRuns(int state) {
+        return (TABLE[state][ALPHABET] & ACTION_MASK) == EMIT;
+    }
+
+    /**
+     * Defines the table entry of a State and char.
+     * @param state The State.
+     * @param chr The char, '.' for the default/wildcard.
+     * @param action What to output.
+     * @param next The new State.
+     */
+    private static void on(int state, char chr, int action, int next) {
+        final byte entry = (byte) (action | next);
+        if (chr == '.')
+            Arrays.fill(TABLE[state], entry);
+        else
+            TABLE[state][chr] = entry;
+    }
+
+    static {
+        // '.' is our default/wildcard, define it first
+        on(CODE, '.', EMIT, CODE);
         // a '/' triggers the EXPECT_COMMENT state and does not get printed right away
-        PROCESSORS.get(State.CODE).put('/', processorMaker.apply(null, State.EXPECT_COMMENT));
-        // '.' is our default/wildcard
-        PROCESSORS.get(State.CODE).put('.', processorMaker.apply(charAppender, State.CODE));
+        on(CODE, '/', SKIP, EXPECT_COMMENT);
 
-        PROCESSORS.get(State.EXPECT_COMMENT).put('/', processorMaker.apply(null, State.SIMPLE_COMMENT));
-        PROCESSORS.get(State.EXPECT_COMMENT).put('*', processorMaker.apply(null, State.BLOCK_COMMENT));
-        PROCESSORS.get(State.EXPECT_COMMENT).put('.', processorMaker.apply( // not a comment after all
-                (chr, src) -> src.append('/' + chr), // print the '/' we skipped followed by current char
-                State.CODE                          // back to business as usual
-        ));
+        on(EXPECT_COMMENT, '.', EMIT_SLASH, CODE); // not a comment after all
+        on(EXPECT_COMMENT, '/', SKIP, SIMPLE_COMMENT);
+        on(EXPECT_COMMENT, '*', SKIP, BLOCK_COMMENT);
 
-        PROCESSORS.get(State.SIMPLE_COMMENT).put('\n', processorMaker.apply(charAppender, State.CODE));
-        PROCESSORS.get(State.SIMPLE_COMMENT).put('.', processorMaker.apply(null, State.SIMPLE_COMMENT));
+        on(SIMPLE_COMMENT, '.', SKIP, SIMPLE_COMMENT);
+        on(SIMPLE_COMMENT, '\n', EMIT, CODE);
 
+        on(BLOCK_COMMENT, '.', SKIP, BLOCK_COMMENT);
         // conserve newlines in block comments
-        PROCESSORS.get(State.BLOCK_COMMENT).put('\n', processorMaker.apply(charAppender, State.BLOCK_COMMENT));
-        PROCESSORS.get(State.BLOCK_COMMENT).put('*', processorMaker.apply(null, State.EXPECT_BLOCK_END));
-        PROCESSORS.get(State.BLOCK_COMMENT).put('.', processorMaker.apply(null, State.BLOCK_COMMENT));
-
-        PROCESSORS.get(State.EXPECT_BLOCK_END).put('/', processorMaker.apply(
-                (chr, src) -> src.append(' '), // insert space after end of block comment
-                State.CODE
-        ));
-        PROCESSORS.get(State.EXPECT_BLOCK_END).put('.', processorMaker.apply(null, State.BLOCK_COMMENT));
-
-        FINALIZERS.put(State.CODE, Optional.of(src -> {})); // no finalization action necessary
-        FINALIZERS.put(State.EXPECT_COMMENT, Optional.of(src -> src.append('/'))); // print the '/' we skipped
+        on(BLOCK_COMMENT, '\n', EMIT, BLOCK_COMMENT);
+        on(BLOCK_COMMENT, '*', SKIP, EXPECT_BLOCK_END);
+
+        on(EXPECT_BLOCK_END, '.', SKIP, BLOCK_COMMENT);
+        on(EXPECT_BLOCK_END, '/', EMIT_SPACE, CODE); // insert space after end of block comment
+
+        for (int state = 0; state < STATES; state++) {
+            final byte loop = TABLE[state][ALPHABET];
+            if ((loop & STATE_MASK) == state)
+                for (int chr = 0; chr <= ALPHABET; chr++)
+                    RUNS[state][chr] = TABLE[state][chr] == loop;
+        }
     }
 }
@@ -76,60 +76,118 @@ public class MyScanner extends BaseScanner {
         }
     }
 
+    /**
+     * The configuration compiled to a minimized DFA, see compiled().
+     */
+    private static final DenseScanner COMPILED;
+
+    static {
+        final ScannerSpec spec = new ScannerSpec();
+        configure(spec);
+        COMPILED = spec.compile();
+    }
+
     /**
      * Configures the Scanner.
      */
     public MyScanner() {
-        start(State.START.name());
-
-        transition(State.START.name(), LETTER_BUT_PI, State.IDENTIFIER.name());
-        transition(State.IDENTIFIER.name(), ALNUM, State.IDENTIFIER.name());
-
-        transition(State.START.name(), "i", State.INT1.name());
-        transition(State.INT1.name(), "n", State.INT2.name());
-        transition(State.INT1.name(), ALNUM_BUT_N, State.IDENTIFIER.name());
-        transition(State.INT2.name(), "t", State.INT3.name());
-        transition(State.INT2.name(), ALNUM_BUT_T, State.IDENTIFIER.name());
-        transition(State.INT3.name(), ALNUM, State.IDENTIFIER.name());
-
-        transition(State.START.name(), "p", State.PRINT1.name());
-        transition(State.PRINT1.name(), "r", State.PRINT2.name());
-        transition(State.PRINT1.name(), ALNUM_BUT_R, State.IDENTIFIER.name());
-        transition(State.PRINT2.name(), "i", State.PRINT3.name());
-        transition(State.PRINT2.name(), ALNUM_BUT_I, State.IDENTIFIER.name());
-        transition(State.PRINT3.name(), "n", State.PRINT4.name());
-        transition(State.PRINT3.name(), ALNUM_BUT_N, State.IDENTIFIER.name());
-        transition(State.PRINT4.name(), "t", State.PRINT5.name());
-        transition(State.PRINT4.name(), ALNUM_BUT_T, State.PRINT5.name());
-        transition(State.PRINT5.name(), ALNUM, State.IDENTIFIER.name());
-
-        transition(State.START.name(), DIGITS, State.NUMERAL.name());
-        transition(State.NUMERAL.name(), DIGITS, State.NUMERAL.name());
-
-        transition(State.START.name(), ":", State.ASSIGN1.name());
-        transition(State.ASSIGN1.name(), "=", State.ASSIGN2.name());
-
-        transition(State.START.name(), "+", State.ADD.name());
-        transition(State.START.name(), "-", State.SUB.name());
-
-        transition(State.START.name(), "*", State.MULT.name());
-        transition(State.MULT.name(), "*", State.POT.name());
-
-        transition(State.START.name(), "/", State.DIV.name());
-        transition(State.START.name(), "%", State.MOD.name());
-        transition(State.START.name(), "(", State.OPEN.name());
-        transition(State.START.name(), ")", State.CLOSE.name());
-        transition(State.START.name(), ";", State.SEMICOLON.name());
-
-        transition(State.START.name(), WHITESPACE_CHARS, State.WHITESPACE.name());
-        transition(State.WHITESPACE.name(), WHITESPACE_CHARS, State.WHITESPACE.name());
+        configure(new ScannerTarget() {
+            @Override public void start(String state) {
+                MyScanner.this.start(state);
+            }
+
+            @Override public void transition(String from, String chars, String to) {
+                MyScanner.this.transition(from, chars, to);
+            }
+
+            @Override public void accept(String state, String token) {
+                MyScanner.this.accept(state, token);
+            }
+
+            @Override public void acceptAndIgnore(String state) {
+                MyScanner.this.acceptAndIgnore(state);
+            }
+
+            @Override public void accept(String token, boolean attribute) {
+                MyScanner.this.accept(token, attribute);
+            }
+        });
+    }
+
+    /**
+     * The same scanner as a minimized DFA with integer states and a char class table.
+     * Yields the same tokens without string lookups per char.
+     * @return The shared compiled scanner.
+     */
+    public static DenseScanner compiled() {
+        return COMPILED;
+    }
+
+    /**
+     * The kind of a State's token in compiled(), for TokenBuffer and TokenCursor.
+     * @param state The State.
+     * @return The kind, or -1 if the State produces no token.
+     */
+    public static int kind(State state) {
+        return state.getToken() == null || state == State.WHITESPACE ? -1 : COMPILED.kind(state.getToken());
+    }
+
+    /**
+     * Sends the configuration of this Scanner to a target,
+     * a BaseScanner or a ScannerSpec to compile it.
+     * @param scanner The target.
+     */
+    public static void configure(ScannerTarget scanner) {
+        scanner.start(State.START.name());
+
+        scanner.transition(State.START.name(), LETTER_BUT_PI, State.IDENTIFIER.name());
+        scanner.transition(State.IDENTIFIER.name(), ALNUM, State.IDENTIFIER.name());
+
+        scanner.transition(State.START.name(), "i", State.INT1.name());
+        scanner.transition(State.INT1.name(), "n", State.INT2.name());
+        scanner.transition(State.INT1.name(), ALNUM_BUT_N, State.IDENTIFIER.name());
+        scanner.transition(State.INT2.name(), "t", State.INT3.name());
+        scanner.transition(State.INT2.name(), ALNUM_BUT_T, State.IDENTIFIER.name());
+        scanner.transition(State.INT3.name(), ALNUM, State.IDENTIFIER.name());
+
+        scanner.transition(State.START.name(), "p", State.PRINT1.name());
+        scanner.transition(State.PRINT1.name(), "r", State.PRINT2.name());
+        scanner.transition(State.PRINT1.name(), ALNUM_BUT_R, State.IDENTIFIER.name());
+        scanner.transition(State.PRINT2.name(), "i", State.PRINT3.name());
+        scanner.transition(State.PRINT2.name(), ALNUM_BUT_I, State.IDENTIFIER.name());
+        scanner.transition(State.PRINT3.name(), "n", State.PRINT4.name());
+        scanner.transition(State.PRINT3.name(), ALNUM_BUT_N, State.IDENTIFIER.name());
+        scanner.transition(State.PRINT4.name(), "t", State.PRINT5.name());
+        scanner.transition(State.PRINT4.name(), ALNUM_BUT_T, State.PRINT5.name());
+        scanner.transition(State.PRINT5.name(), ALNUM, State.IDENTIFIER.name());
+
+        scanner.transition(State.START.name(), DIGITS, State.NUMERAL.name());
+        scanner.transition(State.NUMERAL.name(), DIGITS, State.NUMERAL.name());
+
+        scanner.transition(State.START.name(), ":", State.ASSIGN1.name());
+        scanner.transition(State.ASSIGN1.name(), "=", State.ASSIGN2.name());
+
+        scanner.transition(State.START.name(), "+", State.ADD.name());
+        scanner.transition(State.START.name(), "-", State.SUB.name());
+
+        scanner.transition(State.START.name(), "*", State.MULT.name());
+        scanner.transition(State.MULT.name(), "*", State.POT.name());
+
+        scanner.transition(State.START.name(), "/", State.DIV.name());
+        scanner.transition(State.START.name(), "%", State.MOD.name());
+        scanner.transition(State.START.name(), "(", State.OPEN.name());
+        scanner.transition(State.START.name(), ")", State.CLOSE.name());
+        scanner.transition(State.START.name(), ";", State.SEMICOLON.name());
+
+        scanner.transition(State.START.name(), WHITESPACE_CHARS, State.WHITESPACE.name());
+        scanner.transition(State.WHITESPACE.name(), WHITESPACE_CHARS, State.WHITESPACE.name());
 
         for (State state : State.values())
             if (state.equals(State.WHITESPACE))
-                acceptAndIgnore(state.name());
+                scanner.acceptAndIgnore(state.name());
             else if (state.getToken() != null)
-                accept(state.name(), state.getToken());
-        accept(ID_TOKEN, true);
-        accept("numeral", true);
+                scanner.accept(state.name(), state.getToken());
+        scanner.accept(ID_TOKEN, true);
+        scanner.accept("numeral", true);
     }
 }
@@ -0,0 +1,332 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Strips comments from huge files like MyPreprocessor, on all cores.
+ * <p>
+ * The input is memory-mapped in chunks. A first parallel pass summarizes every chunk
+ * as a transfer function from the State it starts in to the State it ends in.
+ * Chaining these from CODE yields the true incoming State of each chunk.
+ * A second parallel pass processes each chunk from its true State into a list of segments:
+ * ranges of the input to copy and single inserted bytes.
+ * The segments are written in order, large ranges with FileChannel.transferTo
+ * so that the kernel copies them without passing through the JVM.
+ * <p>
+ * Works on bytes, so the input has to be in an ASCII-compatible encoding like UTF-8 or ISO-8859-1.
+ * Comments are delimited by ASCII chars only and all other chars are treated alike,
+ * so the output matches MyPreprocessor.process byte for byte.
+ */
+public class ParallelPreprocessor implements AutoCloseable {
+    /**
+     * Default chunk size.
+     */
+    private static final int CHUNK_SIZE = 8 << 20;
+    /**
+     * Bytes per memory mapping. Chunks are slices of mappings, so that small chunks do not need a mapping each.
+     */
+    private static final int MAPPING_SIZE = 1 << 30;
+    /**
+     * Ranges from this length on are transferred by the kernel, shorter ones are collected in a buffer.
+     */
+    private static final int TRANSFER_THRESHOLD = 64 << 10;
+    /**
+     * Size of the buffer for short ranges and inserted bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Chunks in the second pass per thread that may be ahead of the writer.
+     */
+    private static final int LOOKAHEAD = 2;
+    /**
+     * For each byte the States in which it does not belong to a run, as bit mask.
+     */
+    private static final int[] STOPS = new int[256];
+
+    static {
+        for (int chr = 0; chr < STOPS.length; chr++)
+            for (int state = 0; state < MyPreprocessor.STATES; state++)
+                if (!MyPreprocessor.inRun(state, chr))
+                    STOPS[chr] |= 1 << state;
+    }
+
+    /**
+     * The output of a chunk: ranges of the input and inserted bytes, in order.
+     * Two longs per segment: start and end of a range, or -1 - byte and 0 for an inserted byte.
+     */
+    private static final class Segments {
+        /**
+         * The segments.
+         */
+        private long[] data = new long[64];
+        /**
+         * Number of longs used.
+         */
+        private int size;
+
+        /**
+         * Appends a range of the input, merged with the previous one if they touch.
+         * @param start Position of the first byte.
+         * @param end Position after the last byte.
+         */
+        void range(long start, long end) {
+            if (size > 0 && data[size - 2] >= 0 && data[size - 1] == start)
+                data[size - 1] = end;
+            else
+                append(start, end);
+        }
+
+        /**
+         * Appends an inserted byte.
+         * @param value The byte.
+         */
+        void insert(char value) {
+            append(-1 - value, 0);
+        }
+
+        /**
+         * Appends a segment.
+         * @param first First long.
+         * @param second Second long.
+         */
+        private void append(long first, long second) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = first;
+            data[size++] = second;
+        }
+    }
+
+    /**
+     * Threads to use.
+     */
+    private final int parallelism;
+    /**
+     * Runs both passes.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Bytes per chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * A preprocessor for all cores.
+     */
+    public ParallelPreprocessor() {
+        this(Runtime.getRuntime().availableProcessors(), CHUNK_SIZE);
+    }
+
+    /**
+     * A preprocessor.
+     * @param parallelism Threads to use.
+     * @param chunkSize Bytes per chunk.
+     */
+    public ParallelPreprocessor(int parallelism, int chunkSize) {
+        if (parallelism < 1 || chunkSize < 1)
+            throw new IllegalArgumentException("parallelism and chunk size must be positive");
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Stops the threads once running passes are done. The preprocessor must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Strips comments from a file.
+     * @param input The file to read.
+     * @param output The file to write. Created or overwritten, but not touched if the input is invalid.
+     * @throws LexicalError If the input ends inside a comment.
+     * @throws IOException On reading or writing.
+     */
+    public void process(Path input, Path output) throws LexicalError, IOException {
+        final Events.LexerRun run = Events.LexerRun.start("parallel-preprocessor");
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            final long size = in.size();
+            final long mappingSize = (long) chunkSize * Math.max(1, MAPPING_SIZE / chunkSize);
+            final List<ByteBuffer> chunks = new ArrayList<>();
+            MappedByteBuffer mapping = null;
+            for (long start = 0; start < size; start += chunkSize) {
+                if (start % mappingSize == 0)
+                    mapping = in.map(FileChannel.MapMode.READ_ONLY, start, Math.min(mappingSize, size - start));
+                chunks.add(mapping.slice((int) (start % mappingSize), (int) Math.min(chunkSize, size - start)));
+            }
+
+            final List<ForkJoinTask<int[]>> transfers = new ArrayList<>();
+            for (ByteBuffer chunk : chunks)
+                transfers.add(pool.submit(() -> transfer(chunk)));
+            final int[] states = new int[chunks.size() + 1];
+            states[0] = MyPreprocessor.CODE;
+            for (int index = 0; index < chunks.size(); index++)
+                states[index + 1] = transfers.get(index).join()[states[index]];
+            final int last = states[chunks.size()];
+            if (last != MyPreprocessor.CODE && last != MyPreprocessor.EXPECT_COMMENT)
+                throw new LexicalError();
+
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                final Deque<ForkJoinTask<Segments>> pending = new ArrayDeque<>();
+                int submitted = 0;
+                for (int index = 0; index < chunks.size(); index++) {
+                    while (submitted < chunks.size() && submitted < index + LOOKAHEAD * parallelism) {
+                        final int chunk = submitted++;
+                        pending.add(pool.submit(() -> segments(chunks.get(chunk), (long) chunk * chunkSize,
+                                                               states[chunk])));
+                    }
+                    write(pending.remove().join(), chunks.get(index), (long) index * chunkSize, in, out, buffer);
+                }
+                if (last == MyPreprocessor.EXPECT_COMMENT) { // print the '/' we skipped
+                    final Segments slash = new Segments();
+                    slash.insert('/');
+                    write(slash, null, size, in, out, buffer);
+                }
+                flush(buffer, out);
+            }
+            if (run != null)
+                run.report(size, 0);
+        }
+    }
+
+    /**
+     * Computes the State a chunk ends in for each State it may start in.
+     * All five States are followed at once. Bytes that keep every State still in play are skipped in runs.
+     * @param chunk The chunk.
+     * @return The end State for each start State.
+     */
+    private static int[] transfer(ByteBuffer chunk) {
+        final int[] states = new int[MyPreprocessor.STATES];
+        int live = 0;
+        for (int state = 0; state < states.length; state++) {
+            states[state] = state;
+            live |= 1 << state;
+        }
+        final int limit = chunk.limit();
+        int index = 0;
+        while (index < limit) {
+            while (index < limit && (STOPS[chunk.get(index) & 0xFF] & live) == 0)
+                index++;
+            if (index == limit)
+                break;
+            final int chr = chunk.get(index++) & 0xFF;
+            live = 0;
+            for (int start = 0; start < states.length; start++) {
+                states[start] = MyPreprocessor.entry(states[start], chr) & MyPreprocessor.STATE_MASK;
+                live |= 1 << states[start];
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Processes a chunk like MyPreprocessor.process, but records the output as segments.
+     * @param chunk The chunk.
+     * @param base Position of the chunk in the input.
+     * @param state The State the chunk starts in.
+     * @return The output of the chunk.
+     */
+    private static Segments segments(ByteBuffer chunk, long base, int state) {
+        final Segments segments = new Segments();
+        final int limit = chunk.limit();
+        int index = 0;
+        while (index < limit) {
+            final int start = index;
+            while (index < limit && MyPreprocessor.inRun(state, chunk.get(index) & 0xFF))
+                index++;
+            if (index > start && MyPreprocessor.emitsRuns(state))
+                segments.range(base + start, base + index);
+            if (index == limit)
+                break;
+
+            final int entry = MyPreprocessor.entry(state, chunk.get(index) & 0xFF);
+            switch (entry & MyPreprocessor.ACTION_MASK) {
+                case MyPreprocessor.EMIT:
+                    segments.range(base + index, base + index + 1);
+                    break;
+                case MyPreprocessor.EMIT_SLASH:
+                    if (index == 0) { // the '/' is in the previous chunk
+                        segments.insert('/');
+                        segments.range(base, base + 1);
+                    } else
+                        segments.range(base + index - 1, base + index + 1);
+                    break;
+                case MyPreprocessor.EMIT_SPACE:
+                    segments.insert(' ');
+                    break;
+                default:
+                    break;
+            }
+            state = entry & MyPreprocessor.STATE_MASK;
+            index++;
+        }
+        return segments;
+    }
+
+    /**
+     * Writes the output of a chunk.
+     * @param segments The output.
+     * @param chunk The chunk, to copy short ranges from.
+     * @param base Position of the chunk in the input.
+     * @param in The input, to transfer long ranges from.
+     * @param out The output.
+     * @param buffer Collects short ranges and inserted bytes.
+     * @throws IOException On writing.
+     */
+    private static void write(Segments segments, ByteBuffer chunk, long base,
+                              FileChannel in, FileChannel out, ByteBuffer buffer) throws IOException {
+        for (int index = 0; index < segments.size; index += 2) {
+            final long start = segments.data[index];
+            if (start < 0) {
+                if (!buffer.hasRemaining())
+                    flush(buffer, out);
+                buffer.put((byte) (-1 - start));
+                continue;
+            }
+            final long end = segments.data[index + 1];
+            if (end - start >= TRANSFER_THRESHOLD) {
+                flush(buffer, out);
+                for (long position = start; position < end; )
+                    position += in.transferTo(position, end - position, out);
+            } else {
+                if (end - start > buffer.remaining())
+                    flush(buffer, out);
+                final int length = (int) (end - start);
+                buffer.put(buffer.position(), chunk, (int) (start - base), length);
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    /**
+     * Writes out the collected bytes.
+     * @param buffer The bytes.
+     * @param out The output.
+     * @throws IOException On writing.
+     */
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+}
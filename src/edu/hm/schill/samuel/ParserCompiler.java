@@ -0,0 +1,369 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.schill.samuel.MyParserGenerator.Output;
+import edu.hm.schill.samuel.MyParserGenerator.Strategy;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Macht aus einer Grammatik einen fertigen Parser: generieren, im Speicher uebersetzen, laden.
+ * Ergebnisse werden nach einem Hash der normalisierten Grammatik in einem LRU-Cache im Speicher gehalten
+ * und auf Wunsch als Klassendateien in einem Verzeichnis abgelegt,
+ * sodass ein Neustart weder generieren noch uebersetzen muss.
+ */
+public class ParserCompiler {
+    /**
+     * Version des generierten Codes. Erhoehen, wenn sich MyParserGenerator aendert,
+     * damit alte Klassendateien im Cache-Verzeichnis nicht mehr passen.
+     */
+    private static final int FORMAT = 3;
+    /**
+     * So viele Parser haelt der Speicher, wenn nichts anderes angegeben ist.
+     * Jeder belegt einen eigenen ClassLoader samt Klassen.
+     */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * Wie die Parser ihre Produktionen auswaehlen.
+     */
+    private final Strategy strategy;
+    /**
+     * Was die Parser beim Parsen aufbauen.
+     */
+    private final Output output;
+    /**
+     * Verzeichnis fuer Klassendateien, oder null.
+     */
+    private final Path cacheDirectory;
+    /**
+     * Die bereits geladenen oder gerade entstehenden Parser, nach Schluessel,
+     * der am laengsten nicht angefragte zuerst. Zugriff nur unter der Sperre der Map.
+     */
+    private final Map<String, CompletableFuture<CompiledParser>> parsers;
+
+    /**
+     * Ein Compiler fuer rekursive Parser, der nur im Speicher cacht.
+     */
+    public ParserCompiler() {
+        this(Strategy.RECURSIVE, null);
+    }
+
+    /**
+     * Ein Compiler.
+     * @param strategy Wie die Parser ihre Produktionen auswaehlen.
+     * @param cacheDirectory Verzeichnis fuer Klassendateien, oder null fuer keinen Cache auf Platte.
+     */
+    public ParserCompiler(Strategy strategy, Path cacheDirectory) {
+        this(strategy, Output.NODES, cacheDirectory);
+    }
+
+    /**
+     * Ein Compiler.
+     * @param strategy Wie die Parser ihre Produktionen auswaehlen.
+     * @param output Was die Parser beim Parsen aufbauen.
+     * @param cacheDirectory Verzeichnis fuer Klassendateien, oder null fuer keinen Cache auf Platte.
+     */
+    public ParserCompiler(Strategy strategy, Output output, Path cacheDirectory) {
+        this(strategy, output, cacheDirectory, CACHE_SIZE);
+    }
+
+    /**
+     * Ein Compiler.
+     * @param strategy Wie die Parser ihre Produktionen auswaehlen.
+     * @param output Was die Parser beim Parsen aufbauen.
+     * @param cacheDirectory Verzeichnis fuer Klassendateien, oder null fuer keinen Cache auf Platte.
+     * @param cacheSize So viele Parser haelt der Speicher, mindestens 1.
+     *                  Verdraengte Parser bleiben benutzbar, werden aber bei der naechsten Anfrage neu geladen.
+     */
+    public ParserCompiler(Strategy strategy, Output output, Path cacheDirectory, int cacheSize) {
+        if (cacheSize < 1)
+            throw new IllegalArgumentException("cache size must be positive");
+        this.strategy = strategy;
+        this.output = output;
+        this.cacheDirectory = cacheDirectory;
+        parsers = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<CompiledParser>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Liefert den Parser einer Grammatik.
+     * Gleichzeitige Aufrufe mit derselben Grammatik bauen den Parser nur einmal und warten auf ihn;
+     * Aufrufe mit anderen Grammatiken blockieren sie dabei nicht.
+     * Schlaegt das Bauen fehl, versucht es der naechste Aufruf erneut.
+     * @param grammar LL(1)-Grammatik wie bei RDParserGenerator.generate.
+     * @return Der Parser.
+     * @throws IllegalArgumentException Wenn sich der generierte Code nicht uebersetzen laesst.
+     * @throws UncheckedIOException Wenn das Cache-Verzeichnis nicht lesbar oder schreibbar ist.
+     */
+    public CompiledParser compile(String grammar) {
+        final String key = key(grammar);
+        final CompletableFuture<CompiledParser> parser = new CompletableFuture<>();
+        final CompletableFuture<CompiledParser> known;
+        synchronized (parsers) {
+            known = parsers.putIfAbsent(key, parser);
+        }
+        if (known != null)
+            return await(known);
+        try {
+            parser.complete(build(grammar, key));
+        } catch (RuntimeException | Error exception) {
+            synchronized (parsers) {
+                parsers.remove(key, parser);
+            }
+            parser.completeExceptionally(exception);
+        }
+        return await(parser);
+    }
+
+    /**
+     * Wartet auf einen Parser, der gerade gebaut wird.
+     * @param parser Der Parser.
+     * @return Der fertige Parser.
+     * @throws RuntimeException Was beim Bauen schiefging, unveraendert.
+     */
+    private static CompiledParser await(CompletableFuture<CompiledParser> parser) {
+        try {
+            return parser.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (exception.getCause() instanceof Error cause)
+                throw cause;
+            throw exception;
+        }
+    }
+
+    /**
+     * Baut den Parser einer Grammatik, aus dem Cache-Verzeichnis oder neu.
+     * Klassendateien, die sich nicht laden lassen, etwa abgeschnittene oder fremde,
+     * werden geloescht und neu erzeugt.
+     * @param grammar Die Grammatik.
+     * @param key Ihr Schluessel.
+     * @return Der Parser.
+     */
+    private CompiledParser build(String grammar, String key) {
+        final Path directory = cacheDirectory == null ? null : cacheDirectory.resolve(key);
+        try {
+            final Map<String, byte[]> cached = directory == null ? null : read(directory);
+            if (cached != null)
+                try {
+                    return new CompiledParser(load(cached));
+                } catch (LinkageError | ReflectiveOperationException exception) {
+                    delete(directory);
+                }
+            final Map<String, byte[]> classes = translate(new MyParserGenerator(strategy, output).generate(grammar));
+            if (directory != null)
+                write(directory, classes);
+            return new CompiledParser(load(classes));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    /**
+     * Schluessel einer Grammatik: Hash ueber Format, Strategie, Ausgabe und die Produktionen.
+     * Die Trennzeichen der Grammatik gehen nicht ein.
+     * @param grammar Die Grammatik.
+     * @return Hexadezimaler SHA-256.
+     */
+    private String key(String grammar) {
+        final char deduct = grammar.charAt(0);
+        final char separate = grammar.charAt(1);
+        final String normalized = Stream.of(grammar.split("\\Q" + separate + "\\E"))
+                .skip(1)
+                .map(string -> String.join("\0", string.split("\\Q" + deduct + "\\E", 2)))
+                .collect(Collectors.joining("\n", FORMAT + "\n" + strategy + "\n" + output + "\n", ""));
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder();
+            for (byte part : hash)
+                hex.append(String.format("%02x", part));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Uebersetzt generierten Code im Speicher.
+     * @param source Der Code des Parsers.
+     * @return Die Klassendateien nach Klassenname.
+     * @throws IOException Wenn der Compiler nicht schreiben kann.
+     */
+    private static Map<String, byte[]> translate(String source) throws IOException {
+        final String className = source.replaceFirst("(?s).*public class (\\w+).*", "$1");
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("no Java compiler available, run on a JDK");
+        final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"),
+                                                             JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        try (JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name,
+                                                       JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + name + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                classes.put(name, toByteArray());
+                            }
+                        };
+                    }
+                };
+            }
+        }) {
+            if (!compiler.getTask(null, files, diagnostics, Collections.singletonList("-nowarn"), null,
+                                  Collections.singletonList(unit)).call())
+                throw new IllegalArgumentException(diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> diagnostic.getMessage(null))
+                        .collect(Collectors.joining("\n")));
+        }
+        return classes;
+    }
+
+    /**
+     * Laedt uebersetzte Klassen in einen eigenen ClassLoader.
+     * Alle Klassen werden sofort definiert, damit eine kaputte Klassendatei hier auffaellt
+     * und nicht erst beim ersten Parsen.
+     * @param classes Die Klassendateien nach Klassenname.
+     * @return Die Parser-Klasse, die einzige ohne $ im Namen.
+     * @throws ClassNotFoundException Wenn die Parser-Klasse fehlt.
+     * @throws LinkageError Wenn sich eine Klassendatei nicht definieren laesst.
+     */
+    private static Class<?> load(Map<String, byte[]> classes) throws ClassNotFoundException {
+        final ClassLoader loader = new ClassLoader(ParserCompiler.class.getClassLoader()) {
+            /* Eigene Klassen zuerst, sonst verdeckt ein gleichnamiger Parser im Klassenpfad den generierten. */
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!classes.containsKey(name))
+                    return super.loadClass(name, resolve);
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> type = findLoadedClass(name);
+                    if (type == null)
+                        type = findClass(name);
+                    if (resolve)
+                        resolveClass(type);
+                    return type;
+                }
+            }
+
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                final byte[] bytes = classes.get(name);
+                if (bytes == null)
+                    throw new ClassNotFoundException(name);
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        final String parser = classes.keySet().stream()
+                .filter(name -> !name.contains("$"))
+                .findFirst()
+                .orElseThrow(() -> new ClassNotFoundException("generated parser"));
+        for (String name : classes.keySet())
+            loader.loadClass(name);
+        return loader.loadClass(parser);
+    }
+
+    /**
+     * Liest Klassendateien aus dem Cache-Verzeichnis.
+     * @param directory Das Verzeichnis eines Schluessels.
+     * @return Die Klassendateien nach Klassenname, oder null, wenn das Verzeichnis fehlt.
+     * @throws IOException Beim Lesen.
+     */
+    private static Map<String, byte[]> read(Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return null;
+        final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(".class"))
+                    classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Schreibt Klassendateien in das Cache-Verzeichnis.
+     * Erst in ein temporaeres Verzeichnis, das dann umbenannt wird,
+     * damit parallele Prozesse nie ein halbes Verzeichnis sehen.
+     * @param directory Das Verzeichnis eines Schluessels.
+     * @param classes Die Klassendateien nach Klassenname.
+     * @throws IOException Beim Schreiben.
+     */
+    private static void write(Path directory, Map<String, byte[]> classes) throws IOException {
+        Files.createDirectories(directory.getParent());
+        final Path temporary = Files.createTempDirectory(directory.getParent(), directory.getFileName() + ".");
+        for (Map.Entry<String, byte[]> entry : classes.entrySet())
+            Files.write(temporary.resolve(entry.getKey() + ".class"), entry.getValue());
+        try {
+            Files.move(temporary, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            /* Ein anderer Prozess war schneller. */
+            if (!Files.isDirectory(directory))
+                throw exception;
+            for (Map.Entry<String, byte[]> entry : classes.entrySet())
+                Files.deleteIfExists(temporary.resolve(entry.getKey() + ".class"));
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loescht ein Verzeichnis des Caches samt Inhalt.
+     * @param directory Das Verzeichnis eines Schluessels.
+     * @throws IOException Beim Loeschen.
+     */
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.deleteIfExists(file);
+        }
+    }
+}
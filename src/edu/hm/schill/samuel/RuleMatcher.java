@@ -0,0 +1,143 @@
+package edu.hm.schill.samuel;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Findet alle Vorkommen einer Menge von Mustern in einer Satzform mit einem einzigen Durchlauf
+ * (Aho-Corasick). Die Muster sind z.B. die linken Seiten aller Produktionen einer Grammatik.
+ * Der Automat ist vollstaendig, jedes Zeichen kostet also genau einen Tabellenzugriff.
+ */
+final class RuleMatcher {
+    /**
+     * Groesse des Alphabets. Grammatiken bestehen aus ASCII-Zeichen.
+     */
+    private static final int ALPHABET = 128;
+
+    /**
+     * Empfaengt gefundene Vorkommen.
+     */
+    @FunctionalInterface
+    interface Match {
+        /**
+         * Ein Muster steht an einer Stelle.
+         * @param pattern Index des Musters.
+         * @param index Stelle, an der das Muster beginnt.
+         */
+        void at(int pattern, int index);
+    }
+
+    /**
+     * Die Zustandsuebergaenge, ALPHABET Eintraege pro Zustand. Zustand 0 ist der Startzustand.
+     */
+    private final int[] transitions;
+    /**
+     * Die Muster, die in einem Zustand enden, auch ueber Fehlerlinks.
+     */
+    private final int[][] outputs;
+    /**
+     * Laengen der Muster.
+     */
+    private final int[] lengths;
+
+    /**
+     * Baut den Automaten.
+     * @param patterns Die Muster.
+     */
+    RuleMatcher(byte[]... patterns) {
+        lengths = Arrays.stream(patterns).mapToInt(pattern -> pattern.length).toArray();
+        final int maxStates = 1 + Arrays.stream(lengths).sum();
+        final int[] trie = new int[maxStates * ALPHABET];
+        Arrays.fill(trie, -1);
+        final int[][] own = new int[maxStates][0];
+        int states = 1;
+        for (int pattern = 0; pattern < patterns.length; pattern++) {
+            int state = 0;
+            for (byte chr : patterns[pattern]) {
+                if (trie[state * ALPHABET + chr] < 0)
+                    trie[state * ALPHABET + chr] = states++;
+                state = trie[state * ALPHABET + chr];
+            }
+            own[state] = append(own[state], pattern);
+        }
+
+        transitions = Arrays.copyOf(trie, states * ALPHABET);
+        outputs = new int[states][];
+        final int[] fail = new int[states];
+        final Deque<Integer> breadthFirst = new ArrayDeque<>();
+        outputs[0] = own[0];
+        for (int chr = 0; chr < ALPHABET; chr++)
+            if (transitions[chr] < 0)
+                transitions[chr] = 0;
+            else
+                breadthFirst.add(transitions[chr]);
+        while (!breadthFirst.isEmpty()) {
+            final int state = breadthFirst.poll();
+            outputs[state] = concat(own[state], outputs[fail[state]]);
+            for (int chr = 0; chr < ALPHABET; chr++) {
+                final int next = transitions[state * ALPHABET + chr];
+                final int fallback = transitions[fail[state] * ALPHABET + chr];
+                if (next < 0)
+                    transitions[state * ALPHABET + chr] = fallback;
+                else {
+                    fail[next] = fallback;
+                    breadthFirst.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Meldet alle Vorkommen aller Muster in einer Satzform.
+     * @param form Die Satzform.
+     * @param match Empfaengt jedes Vorkommen.
+     */
+    void forEachMatch(byte[] form, Match match) {
+        int state = 0;
+        report(state, 0, match);
+        for (int index = 0; index < form.length; index++) {
+            state = transitions[state * ALPHABET + form[index]];
+            report(state, index + 1, match);
+        }
+    }
+
+    /**
+     * Meldet die Muster, die in einem Zustand enden.
+     * @param state Der Zustand.
+     * @param end Stelle hinter dem letzten gelesenen Zeichen.
+     * @param match Empfaengt jedes Vorkommen.
+     */
+    private void report(int state, int end, Match match) {
+        for (int pattern : outputs[state])
+            match.at(pattern, end - lengths[pattern]);
+    }
+
+    /**
+     * Haengt einen Wert an ein Array an.
+     * @param array Das Array.
+     * @param value Der Wert.
+     * @return Ein neues, um eins laengeres Array.
+     */
+    private static int[] append(int[] array, int value) {
+        final int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    /**
+     * Verkettet zwei Arrays.
+     * @param first Das erste Array.
+     * @param second Das zweite Array.
+     * @return Ein neues Array, oder eines der beiden, wenn das andere leer ist.
+     */
+    private static int[] concat(int[] first, int[] second) {
+        if (first.length == 0)
+            return second;
+        if (second.length == 0)
+            return first;
+        final int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
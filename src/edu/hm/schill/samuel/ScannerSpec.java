@@ -0,0 +1,301 @@
+package edu.hm.schill.samuel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the configuration of a BaseScanner and compiles it into a DenseScanner.
+ * <p>
+ * States are named by strings and transitions take strings of chars, like in BaseScanner.
+ * Compiling numbers the states, partitions the chars into classes that no transition tells apart,
+ * drops unreachable states and merges equivalent ones with Hopcroft's algorithm.
+ */
+public final class ScannerSpec implements ScannerTarget {
+    /**
+     * The start state, or null.
+     */
+    private String start;
+    /**
+     * Transitions by state and char. Linked, so that numbering follows the configuration.
+     */
+    private final Map<String, Map<Character, String>> transitions = new LinkedHashMap<>();
+    /**
+     * Token names by accepting state, null for ignored states.
+     */
+    private final Map<String, String> accepting = new LinkedHashMap<>();
+    /**
+     * Token names with an attribute.
+     */
+    private final Map<String, Boolean> attributes = new HashMap<>();
+
+    @Override public void start(String state) {
+        start = state;
+        transitions.putIfAbsent(state, new LinkedHashMap<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException If a char already leads from the state to another one.
+     */
+    @Override public void transition(String from, String chars, String to) {
+        final Map<Character, String> row = transitions.computeIfAbsent(from, state -> new LinkedHashMap<>());
+        transitions.putIfAbsent(to, new LinkedHashMap<>());
+        for (char chr : chars.toCharArray()) {
+            final String before = row.putIfAbsent(chr, to);
+            if (before != null && !before.equals(to))
+                throw new IllegalArgumentException("nondeterministic transition from " + from + " on '" + chr
+                                                   + "' to " + before + " and " + to);
+        }
+    }
+
+    @Override public void accept(String state, String token) {
+        accepting.put(state, token);
+    }
+
+    @Override public void acceptAndIgnore(String state) {
+        accepting.put(state, null);
+    }
+
+    @Override public void accept(String token, boolean attribute) {
+        attributes.put(token, attribute);
+    }
+
+    /**
+     * Compiles the configuration recorded so far.
+     * @return The minimized scanner.
+     * @throws IllegalStateException If there is no start state.
+     */
+    public DenseScanner compile() {
+        if (start == null)
+            throw new IllegalStateException("no start state");
+
+        // number the states reachable from start, in breadth-first order
+        final Map<String, Integer> ids = new LinkedHashMap<>();
+        final List<String> names = new ArrayList<>();
+        ids.put(start, 0);
+        names.add(start);
+        for (int index = 0; index < names.size(); index++)
+            for (String target : transitions.get(names.get(index)).values())
+                if (!ids.containsKey(target)) {
+                    ids.put(target, names.size());
+                    names.add(target);
+                }
+
+        // token kinds in order of their first accepting state
+        final List<String> tokens = new ArrayList<>();
+        for (String token : accepting.values())
+            if (token != null && !tokens.contains(token))
+                tokens.add(token);
+
+        final int[] classes = classes(names);
+        final int classCount = Arrays.stream(classes).max().orElse(0) + 1;
+        final int[] representatives = new int[classCount];
+        for (int chr = classes.length - 1; chr >= 0; chr--)
+            representatives[classes[chr]] = chr;
+
+        // complete DFA with an explicit dead state at index names.size()
+        final int dead = names.size();
+        final int size = dead + 1;
+        final int[] next = new int[size * classCount];
+        final int[] accepts = new int[size];
+        Arrays.fill(next, dead);
+        for (int state = 0; state < dead; state++) {
+            final Map<Character, String> row = transitions.get(names.get(state));
+            for (int cls = 1; cls < classCount; cls++) {
+                final String target = row.get((char) representatives[cls]);
+                if (target != null)
+                    next[state * classCount + cls] = ids.get(target);
+            }
+            final String name = names.get(state);
+            accepts[state] = !accepting.containsKey(name) ? DenseScanner.NONE
+                    : accepting.get(name) == null ? DenseScanner.IGNORE
+                    : tokens.indexOf(accepting.get(name));
+        }
+        accepts[dead] = DenseScanner.NONE;
+
+        final int[] block = minimize(next, accepts, size, classCount);
+
+        // renumber blocks from start, the dead block becomes -1
+        final int[] number = new int[size];
+        Arrays.fill(number, -1);
+        final List<Integer> order = new ArrayList<>();
+        number[block[0]] = 0;
+        order.add(0);
+        for (int index = 0; index < order.size(); index++)
+            for (int cls = 0; cls < classCount; cls++) {
+                final int target = next[order.get(index) * classCount + cls];
+                if (block[target] != block[dead] && number[block[target]] < 0) {
+                    number[block[target]] = order.size();
+                    order.add(target);
+                }
+            }
+        final int[] table = new int[order.size() * classCount];
+        final int[] tableAccepts = new int[order.size() * classCount];
+        for (int state = 0; state < order.size(); state++) {
+            final int representative = order.get(state);
+            for (int cls = 0; cls < classCount; cls++) {
+                final int target = block[next[representative * classCount + cls]];
+                table[state * classCount + cls] = target == block[dead] ? -1 : number[target] * classCount;
+            }
+            tableAccepts[state * classCount] = accepts[representative];
+        }
+
+        final boolean[] attributed = new boolean[tokens.size()];
+        for (int kind = 0; kind < tokens.size(); kind++)
+            attributed[kind] = attributes.getOrDefault(tokens.get(kind), false);
+        return new DenseScanner(classes, classCount, table, tableAccepts,
+                                tokens.toArray(new String[0]), attributed);
+    }
+
+    /**
+     * Partitions the chars of the transitions into classes, so that every transition takes whole classes.
+     * Class 0 holds all chars without a transition.
+     * @param states The reachable states.
+     * @return The class of each char up to the largest one in a transition.
+     */
+    private int[] classes(List<String> states) {
+        char max = 0;
+        for (String state : states)
+            for (char chr : transitions.get(state).keySet())
+                max = (char) Math.max(max, chr);
+        final int[] classes = new int[max + 1];
+        int count = 1;
+        for (String state : states) {
+            // chars per target, each set refines the classes
+            final Map<String, List<Character>> byTarget = new LinkedHashMap<>();
+            transitions.get(state).forEach((chr, target) ->
+                    byTarget.computeIfAbsent(target, name -> new ArrayList<>()).add(chr));
+            for (List<Character> chars : byTarget.values()) {
+                // a class moves completely or is split in two
+                final int[] inside = new int[count];
+                final int[] total = new int[count];
+                final int[] moved = new int[count];
+                for (char chr : chars)
+                    inside[classes[chr]]++;
+                for (int cls : classes)
+                    total[cls]++;
+                Arrays.fill(moved, -1);
+                for (char chr : chars) {
+                    final int cls = classes[chr];
+                    if (moved[cls] < 0)
+                        moved[cls] = cls != 0 && inside[cls] == total[cls] ? cls : count++;
+                    classes[chr] = moved[cls];
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Hopcroft's algorithm. Blocks are kept as ranges of an array of states,
+     * splitters are pairs of block and char class, and after a split only the smaller half
+     * is added as splitter unless the block is waiting already.
+     * @param next Next state by state * classCount + class.
+     * @param accepts What each state accepts, states differ initially if this differs.
+     * @param size Number of states.
+     * @param classCount Number of char classes.
+     * @return The block of each state.
+     */
+    private static int[] minimize(int[] next, int[] accepts, int size, int classCount) {
+        // predecessors per class and target state, as offsets into sources
+        final int[] offsets = new int[size * classCount + 1];
+        for (int state = 0; state < size; state++)
+            for (int cls = 0; cls < classCount; cls++)
+                offsets[cls * size + next[state * classCount + cls] + 1]++;
+        for (int index = 1; index < offsets.length; index++)
+            offsets[index] += offsets[index - 1];
+        final int[] sources = new int[size * classCount];
+        final int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int state = 0; state < size; state++)
+            for (int cls = 0; cls < classCount; cls++)
+                sources[fill[cls * size + next[state * classCount + cls]]++] = state;
+
+        // initial blocks by what the states accept
+        final int[] elements = new int[size];
+        final int[] location = new int[size];
+        final int[] block = new int[size];
+        final int[] first = new int[size];
+        final int[] end = new int[size];
+        final int[] marked = new int[size];
+        final Map<Integer, Integer> initial = new LinkedHashMap<>();
+        for (int state = 0; state < size; state++)
+            block[state] = initial.computeIfAbsent(accepts[state], accept -> initial.size());
+        int blocks = initial.size();
+        int position = 0;
+        for (int current = 0; current < blocks; current++) {
+            first[current] = position;
+            for (int state = 0; state < size; state++)
+                if (block[state] == current) {
+                    location[state] = position;
+                    elements[position++] = state;
+                }
+            end[current] = position;
+        }
+
+        final boolean[] waiting = new boolean[size * classCount];
+        final int[] worklist = new int[size * classCount];
+        int pending = 0;
+        for (int current = 0; current < blocks; current++)
+            for (int cls = 0; cls < classCount; cls++) {
+                waiting[current * classCount + cls] = true;
+                worklist[pending++] = current * classCount + cls;
+            }
+
+        final int[] splitter = new int[size];
+        final int[] touched = new int[size];
+        while (pending > 0) {
+            final int entry = worklist[--pending];
+            waiting[entry] = false;
+            final int splitBlock = entry / classCount;
+            final int cls = entry % classCount;
+            final int members = end[splitBlock] - first[splitBlock];
+            System.arraycopy(elements, first[splitBlock], splitter, 0, members);
+
+            // move the predecessors to the front of their blocks
+            int touchedCount = 0;
+            for (int member = 0; member < members; member++) {
+                final int target = splitter[member];
+                for (int index = offsets[cls * size + target]; index < offsets[cls * size + target + 1]; index++) {
+                    final int state = sources[index];
+                    final int current = block[state];
+                    final int front = first[current] + marked[current];
+                    if (location[state] < front)
+                        continue;
+                    if (marked[current]++ == 0)
+                        touched[touchedCount++] = current;
+                    final int other = elements[front];
+                    elements[front] = state;
+                    elements[location[state]] = other;
+                    location[other] = location[state];
+                    location[state] = front;
+                }
+            }
+
+            for (int index = 0; index < touchedCount; index++) {
+                final int current = touched[index];
+                final int split = first[current] + marked[current];
+                marked[current] = 0;
+                if (split == end[current])
+                    continue;
+                final int created = blocks++;
+                first[created] = first[current];
+                end[created] = split;
+                first[current] = split;
+                for (int at = first[created]; at < end[created]; at++)
+                    block[elements[at]] = created;
+                final boolean smallerCreated = end[created] - first[created] <= end[current] - first[current];
+                for (int splitCls = 0; splitCls < classCount; splitCls++) {
+                    final int add = waiting[current * classCount + splitCls] || smallerCreated
+                            ? created * classCount + splitCls : current * classCount + splitCls;
+                    waiting[add] = true;
+                    worklist[pending++] = add;
+                }
+            }
+        }
+        return block;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.hm.schill.samuel;
+
+/**
+ * Receives the configuration calls of a scanner, with the meaning they have in BaseScanner.
+ * Implemented by ScannerSpec to compile a configuration, and by adapters to a BaseScanner.
+ */
+public interface ScannerTarget {
+    /**
+     * Sets the start state.
+     * @param state The state.
+     */
+    void start(String state);
+
+    /**
+     * Adds transitions.
+     * @param from The state to leave.
+     * @param chars The chars that take the transition.
+     * @param to The state to enter.
+     */
+    void transition(String from, String chars, String to);
+
+    /**
+     * Makes a state accepting.
+     * @param state The state.
+     * @param token Name of the token it produces.
+     */
+    void accept(String state, String token);
+
+    /**
+     * Makes a state accepting, but drops what it matches.
+     * @param state The state.
+     */
+    void acceptAndIgnore(String state);
+
+    /**
+     * Defines whether the tokens of a name carry their lexeme as attribute.
+     * @param token Name of the token.
+     * @param attribute true to keep the lexeme.
+     */
+    void accept(String token, boolean attribute);
+}
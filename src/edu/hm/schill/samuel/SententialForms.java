@@ -0,0 +1,308 @@
+package edu.hm.schill.samuel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Die Sprache einer Typ-1-Grammatik, aufgezaehlt durch Ableiten aller Satzformen.
+ * Die Worker eines Pools expandieren Satzformen parallel und stehlen sich gegenseitig Arbeit.
+ * <p>
+ * Schrumpft keine Produktion, geht es schichtweise nach Laenge: Woerter der Laenge k stehen fest,
+ * sobald alle Satzformen bis zur Laenge k expandiert sind. Dabei entstehen auch laengere Satzformen,
+ * die fuer spaetere Schichten aufbewahrt werden. Soll die Sprache spaeter weiter reichen,
+ * werden sie ohne Grenze aufbewahrt, sodass eine groessere Laenge nach der letzten fertigen Schicht
+ * weitermacht; das kostet die Satzformen jenseits der angefragten Laenge.
+ * Sonst, und bei schrumpfenden Produktionen immer, wird bis zu einer festen Laenge abgeleitet.
+ */
+final class SententialForms implements Language {
+    /**
+     * Ab dieser Anzahl lokal gesammelter Satzformen gibt ein Worker die Haelfte
+     * als eigene Aufgabe zum Stehlen frei.
+     */
+    private static final int SPLIT_THRESHOLD = 64;
+    /**
+     * Wird beobachtet, meldet ein Worker seinen Rueckstand nach je so vielen expandierten Satzformen.
+     * Zweierpotenz.
+     */
+    private static final int SAMPLE_INTERVAL = 1024;
+
+    /**
+     * Der Pool, dessen Worker sich gegenseitig Arbeit stehlen.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Die Produktionsregeln, je linke und rechte Seite als Bytes.
+     */
+    private final byte[][][] rules;
+    /**
+     * Findet alle anwendbaren Produktionen in einer Satzform mit einem Durchlauf.
+     */
+    private final RuleMatcher matcher;
+    /**
+     * Die Startsatzform.
+     */
+    private final byte[] start;
+    /**
+     * Ob schichtweise abgeleitet wird.
+     */
+    private final boolean layered;
+    /**
+     * Um wie viel eine Expansion hoechstens laenger ist als ihre Satzform.
+     */
+    private final int growth;
+    /**
+     * Die maximale Wortlaenge, Integer.MAX_VALUE bei Schichten ohne Grenze.
+     * Laengere Expansionen werden verworfen.
+     */
+    private final int limit;
+    /**
+     * Die Laenge der Satzformen, die gerade expandiert werden.
+     * Laengere Expansionen werden fuer eine spaetere Schicht zurueckgestellt.
+     */
+    private int layer;
+    /**
+     * Bereits gesehene Satzformen und Woerter, nach Laenge.
+     * Vermeidet viele unnoetige Berechnungen.
+     * Laengere Satzformen als die aktuelle Schicht sind hier zurueckgestellt,
+     * fertige Schichten sind null.
+     */
+    private FormSet[] beenThere;
+    /**
+     * Die fertigen Woerter nach Laenge, unveraenderlich.
+     */
+    private final List<List<String>> words = new ArrayList<>();
+    /**
+     * Ob die aktuelle Schicht beobachtet wird, per JFR oder Metrics.
+     * Nur dann sammeln die Aufgaben ihre Zaehler in den folgenden Summen.
+     */
+    private volatile boolean observed;
+    /**
+     * Expandierte Satzformen der aktuellen Schicht.
+     */
+    private final LongAdder expanded = new LongAdder();
+    /**
+     * Neue Expansionen der aktuellen Schicht.
+     */
+    private final LongAdder added = new LongAdder();
+    /**
+     * Bereits gesehene Expansionen der aktuellen Schicht.
+     */
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Eine Sprache, von der noch nichts abgeleitet ist.
+     * @param grammar Die Grammatik.
+     * @param pool Der Pool fuer die Expansionen.
+     * @param limit Die groesste Laenge, die gebraucht wird.
+     * @param resumable Ob spaeter groessere Laengen kommen duerfen.
+     *                  Wirkt nur bei Grammatiken ohne schrumpfende Produktionen.
+     */
+    SententialForms(Grammar grammar, ForkJoinPool pool, int limit, boolean resumable) {
+        this.pool = pool;
+        rules = grammar.rules();
+        matcher = grammar.matcher();
+        start = grammar.start();
+        layered = grammar.isNoncontracting();
+        growth = grammar.growth();
+        this.limit = layered && resumable ? Integer.MAX_VALUE : limit;
+        beenThere = new FormSet[start.length + 1];
+        beenThere[start.length] = new FormSet(start.length);
+        beenThere[start.length].add(start);
+    }
+
+    /**
+     * Expandiert einen Stapel von Satzformen. Neue Satzformen der aktuellen Schicht
+     * landen auf dem eigenen Stapel; wird dieser zu gross, wandert die Haelfte
+     * in eine Teilaufgabe, die andere Worker stehlen koennen.
+     * Die Aufgabe ist fertig, wenn alle ihre Teilaufgaben fertig sind.
+     */
+    private final class Expansion extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Die noch zu expandierenden Satzformen.
+         */
+        private final Deque<byte[]> todo;
+        /**
+         * Von dieser Aufgabe expandierte Satzformen.
+         */
+        private long forms;
+        /**
+         * Neue Expansionen dieser Aufgabe.
+         */
+        private long fresh;
+        /**
+         * Bereits gesehene Expansionen dieser Aufgabe.
+         */
+        private long seen;
+
+        /**
+         * @param parent Die Aufgabe, die auf diese wartet, oder null.
+         * @param todo Die zu expandierenden Satzformen.
+         */
+        Expansion(Expansion parent, Deque<byte[]> todo) {
+            super(parent);
+            this.todo = todo;
+        }
+
+        @Override
+        public void compute() {
+            for (byte[] leftSide = todo.poll(); leftSide != null; leftSide = todo.poll()) {
+                final byte[] form = leftSide;
+                matcher.forEachMatch(form, (rule, index) ->
+                        offer(MyLanguageGenerator.replace(form, index, rules[rule][0].length, rules[rule][1])));
+                if ((++forms & SAMPLE_INTERVAL - 1) == 0 && observed)
+                    Events.GeneratorQueue.sample(layer, todo.size(), pool.getQueuedTaskCount());
+                if (todo.size() >= SPLIT_THRESHOLD) {
+                    final Deque<byte[]> stolen = new ArrayDeque<>();
+                    while (stolen.size() < todo.size())
+                        stolen.push(todo.pollLast());
+                    addToPendingCount(1);
+                    new Expansion(this, stolen).fork();
+                }
+            }
+            if (observed) {
+                expanded.add(forms);
+                added.add(fresh);
+                duplicates.add(seen);
+            }
+            tryComplete();
+        }
+
+        /**
+         * Merkt sich eine Expansion und legt sie auf den eigenen Stapel,
+         * sofern die Expansion nicht bereits gesehen wurde, noch Variablen enthaelt
+         * und nicht laenger als die aktuelle Schicht ist.
+         * @param expansion Die Expansion.
+         */
+        private void offer(byte[] expansion) {
+            if (expansion.length > limit)
+                return;
+            if (!beenThere[expansion.length].add(expansion))
+                seen++;
+            else {
+                fresh++;
+                if (expansion.length <= layer && !isWord(expansion))
+                    todo.push(expansion);
+            }
+        }
+    }
+
+    /**
+     * Prueft, ob eine Satzform keine Variablen mehr enthaelt.
+     * @param form Die Satzform.
+     * @return true, wenn die Satzform ein Wort ist.
+     */
+    private static boolean isWord(byte[] form) {
+        for (byte chr : form)
+            if (chr >= 'A' && chr <= 'Z')
+                return false;
+        return true;
+    }
+
+    /**
+     * Bei schrumpfenden Produktionen haengen die Woerter einer Laenge davon ab, wie lang die Satzformen
+     * unterwegs werden durften. Damit jede Anfrage dasselbe liefert wie ohne Cache, passt dann nur genau
+     * die Laenge, bis zu der abgeleitet wurde.
+     */
+    @Override
+    public boolean reaches(int length) {
+        return layered ? length <= limit : length == limit;
+    }
+
+    @Override
+    public synchronized List<String> words(int length) {
+        if (layered)
+            while (words.size() <= length)
+                words.add(words.size() < start.length ? Collections.emptyList() : layer(words.size()));
+        else if (words.isEmpty()) {
+            layer = limit;
+            grow(limit);
+            /* Schrumpfende Produktionen fuehren auch unter die Laenge der Startsatzform. */
+            for (int index = 0; index < start.length; index++)
+                beenThere[index] = new FormSet(index);
+            expand(start.length);
+            for (int index = 0; index <= limit; index++)
+                words.add(collect(index));
+        }
+        return words.get(length);
+    }
+
+    /**
+     * Stellt sicher, dass Satzformen bis zu einer Laenge Platz haben.
+     * @param length Die Laenge.
+     */
+    private void grow(int length) {
+        if (beenThere.length <= length) {
+            final int old = beenThere.length;
+            beenThere = Arrays.copyOf(beenThere, length + 1);
+            for (int index = old; index <= length; index++)
+                beenThere[index] = new FormSet(index);
+        }
+    }
+
+    /**
+     * Expandiert alle noch unbearbeiteten Satzformen einer Laenge mit allen Workern,
+     * bis keine Arbeit mehr uebrig ist.
+     * @param length Die Laenge.
+     */
+    private void expand(int length) {
+        final Events.GeneratorLayer event = Events.GeneratorLayer.start(length);
+        observed = event != null;
+        final Deque<byte[]> seeds = new ArrayDeque<>();
+        beenThere[length].forEach(form -> {
+            if (!isWord(form))
+                seeds.add(form);
+        });
+        pool.invoke(new Expansion(null, seeds));
+        if (observed) {
+            event.seeds = seeds.size();
+            event.expanded = expanded.sumThenReset();
+            event.added = added.sumThenReset();
+            event.duplicates = duplicates.sumThenReset();
+            event.report();
+        }
+    }
+
+    /**
+     * Sammelt die Woerter einer Laenge.
+     * @param length Die Laenge.
+     * @return Alle bisher gesehenen Woerter dieser Laenge, alphabetisch sortiert.
+     */
+    private List<String> collect(int length) {
+        final List<String> found = new ArrayList<>();
+        if (length < beenThere.length && beenThere[length] != null)
+            beenThere[length].forEach(form -> {
+                if (isWord(form))
+                    found.add(new String(form, StandardCharsets.ISO_8859_1));
+            });
+        Collections.sort(found);
+        return Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Expandiert alle Satzformen einer Laenge vollstaendig.
+     * Weil Typ-1-Grammatiken nicht schrumpfen, entstehen Woerter dieser Laenge nur aus
+     * Satzformen hoechstens dieser Laenge. Nach dieser Schicht sind sie also alle bekannt
+     * und Satzformen dieser Laenge koennen vergessen werden.
+     * Laengere Expansionen bleiben fuer die naechsten Schichten.
+     * @param length Laenge der Schicht.
+     * @return Alle Woerter dieser Laenge, alphabetisch sortiert.
+     */
+    private List<String> layer(int length) {
+        layer = length;
+        grow((int) Math.min(limit, (long) length + growth));
+        expand(length);
+        final List<String> found = collect(length);
+        beenThere[length] = null;
+        return found;
+    }
+}
@@ -0,0 +1,560 @@
+package edu.hm.schill.samuel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Die Sprache einer Grammatik ohne schrumpfende Produktionen, mit Satzformen auf der Platte
+ * statt im Speicher. Der Speicherbedarf haengt nur vom Budget ab, nicht von der Groesse der Sprache.
+ * <p>
+ * Es geht schichtweise nach Laenge wie bei SententialForms. Neue Expansionen sammeln sich
+ * nach Laenge in Puffern; ist das Budget fuer Puffer erschoepft, werden sie sortiert,
+ * ohne Duplikate und komprimiert als Laeufe (Runs) in Dateien geschrieben.
+ * Eine Schicht mischt ihre Laeufe zur Front, vergleicht die Front im Gleichschritt mit den
+ * schon gesehenen Satzformen ihrer Laenge, ebenfalls eine sortierte Datei, und expandiert nur die neuen.
+ * Produktionen gleicher Laenge liefern dabei neue Satzformen derselben Schicht,
+ * das wiederholt sich, bis keine neuen mehr kommen. Die Woerter der Schicht stehen dann sortiert
+ * in der Datei der gesehenen Satzformen und werden von dort gestreamt.
+ * <p>
+ * Sortiert wird nach Bytes, das entspricht fuer ASCII der alphabetischen Reihenfolge von String.
+ * Die Dateien liegen in einem eigenen Verzeichnis, das verschwindet, wenn der Stream
+ * ausgelesen oder geschlossen ist.
+ */
+final class SpilledForms {
+    /**
+     * Groesse der Puffer beim Lesen und Schreiben einer Datei.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Geschaetzter Speicher fuer eine offene Datei: Puffer und Zustand von Deflater oder Inflater.
+     */
+    private static final long FILE_COST = 3L * BUFFER_SIZE;
+    /**
+     * Geschaetzter Speicher einer Satzform neben ihren Zeichen: Objektkopf, Laenge, Referenz.
+     */
+    private static final int FORM_COST = 24;
+    /**
+     * Das kleinste Budget, mit dem sich noch sinnvoll arbeiten laesst.
+     */
+    static final long MIN_BUDGET = 16 * FILE_COST;
+
+    /**
+     * Der Pool, der die Satzformen eines Stapels parallel expandiert.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Die Produktionsregeln, je linke und rechte Seite als Bytes.
+     */
+    private final byte[][][] rules;
+    /**
+     * Findet alle anwendbaren Produktionen in einer Satzform mit einem Durchlauf.
+     */
+    private final RuleMatcher matcher;
+    /**
+     * Die Startsatzform.
+     */
+    private final byte[] start;
+    /**
+     * Die maximale Wortlaenge. Laengere Expansionen werden verworfen.
+     */
+    private final int limit;
+    /**
+     * Das eigene Verzeichnis fuer die Dateien.
+     */
+    private final Path directory;
+    /**
+     * Budget fuer die Puffer neuer Expansionen, in Bytes.
+     */
+    private final long bufferBudget;
+    /**
+     * Budget fuer einen Stapel zu expandierender Satzformen samt Expansionen, in Bytes.
+     * Ein Stapel ist voll, wenn seine Expansionen das Budget erreichen, siehe cost.
+     */
+    private final long batchBudget;
+    /**
+     * So viele Laeufe werden hoechstens auf einmal gemischt.
+     */
+    private final int fanIn;
+    /**
+     * Die Laeufe noch nicht bearbeiteter Satzformen, nach Laenge.
+     */
+    private final List<List<Path>> pending = new ArrayList<>();
+    /**
+     * Neue Expansionen, nach Laenge.
+     */
+    private final List<List<byte[]>> buffers = new ArrayList<>();
+    /**
+     * Geschaetzter Speicher der Puffer.
+     */
+    private long buffered;
+    /**
+     * Anzahl bisher angelegter Dateien, fuer eindeutige Namen.
+     */
+    private int files;
+
+    /**
+     * Eine Sprache, von der noch nichts abgeleitet ist.
+     * @param grammar Die Grammatik, ohne schrumpfende Produktionen.
+     * @param pool Der Pool fuer die Expansionen.
+     * @param limit Die groesste Laenge.
+     * @param spillDirectory Hier entsteht das eigene Verzeichnis fuer die Dateien.
+     * @param memoryBudget Speicher fuer Puffer und offene Dateien, in Bytes, mindestens MIN_BUDGET.
+     * @throws UncheckedIOException Wenn das Verzeichnis nicht angelegt werden kann.
+     */
+    SpilledForms(Grammar grammar, ForkJoinPool pool, int limit, Path spillDirectory, long memoryBudget) {
+        if (!grammar.isNoncontracting())
+            throw new IllegalArgumentException("grammar has contracting rules");
+        if (memoryBudget < MIN_BUDGET)
+            throw new IllegalArgumentException("memory budget below " + MIN_BUDGET + " bytes");
+        this.pool = pool;
+        rules = grammar.rules();
+        matcher = grammar.matcher();
+        start = grammar.start();
+        this.limit = limit;
+        bufferBudget = memoryBudget / 2;
+        batchBudget = memoryBudget / 4;
+        fanIn = (int) Math.min(Integer.MAX_VALUE, Math.max(2, memoryBudget / 4 / FILE_COST));
+        for (int length = 0; length <= Math.max(limit, start.length); length++) {
+            pending.add(new ArrayList<>());
+            buffers.add(new ArrayList<>());
+        }
+        buffers.get(start.length).add(start);
+        try {
+            directory = Files.createTempDirectory(spillDirectory, "forms");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Liefert alle Woerter bis zur maximalen Laenge. Jede Schicht wird erst berechnet,
+     * wenn der Stream bei ihr ankommt.
+     * @return Die Woerter, nach Laenge und dann alphabetisch sortiert.
+     */
+    Stream<String> words() {
+        if (limit < start.length) {
+            delete();
+            return Stream.empty();
+        }
+        return IntStream.rangeClosed(0, limit)
+                .mapToObj(this::layer)
+                .flatMap(words -> words)
+                .onClose(this::delete);
+    }
+
+    /**
+     * Expandiert alle Satzformen einer Laenge vollstaendig.
+     * @param length Laenge der Schicht.
+     * @return Die Woerter dieser Laenge, alphabetisch sortiert, aus der Datei gelesen.
+     *         Schliessen loescht die Datei.
+     */
+    private Stream<String> layer(int length) {
+        if (length < start.length)
+            return Stream.empty();
+        final Events.GeneratorLayer event = Events.GeneratorLayer.start(length);
+        final long[] counts = new long[4]; // Front, expandiert, neu, schon gesehen
+        Path seen = null;
+        Path front;
+        try {
+            spill(length);
+            front = merge(pending.get(length), length, counts);
+            counts[0] = count(front, length);
+            long words = 0;
+            while (front != null) {
+                final Path union = file();
+                try (Run old = new Run(seen, length);
+                     Run fresh = new Run(front, length);
+                     OutputStream out = writer(union)) {
+                    final List<byte[]> batch = new ArrayList<>();
+                    long batchBytes = 0;
+                    while (fresh.current != null) {
+                        final int order = old.current == null ? -1 : Arrays.compare(fresh.current, old.current);
+                        if (order > 0) {
+                            out.write(old.current);
+                            old.advance();
+                            continue;
+                        }
+                        out.write(fresh.current);
+                        if (order == 0) {
+                            counts[3]++;
+                            old.advance();
+                        } else {
+                            counts[2]++;
+                            if (isWord(fresh.current))
+                                words++;
+                            else {
+                                batch.add(fresh.current);
+                                batchBytes += cost(fresh.current);
+                                if (batchBytes >= batchBudget) {
+                                    counts[1] += batch.size();
+                                    expand(batch);
+                                    batch.clear();
+                                    batchBytes = 0;
+                                }
+                            }
+                        }
+                        fresh.advance();
+                    }
+                    for (; old.current != null; old.advance())
+                        out.write(old.current);
+                    counts[1] += batch.size();
+                    expand(batch);
+                }
+                delete(seen);
+                delete(front);
+                seen = union;
+                spill(length);
+                front = merge(pending.get(length), length, counts);
+            }
+            pending.set(length, null);
+            buffers.set(length, null);
+            if (event != null) {
+                event.seeds = counts[0];
+                event.expanded = counts[1];
+                event.added = counts[2];
+                event.duplicates = counts[3];
+                event.report();
+            }
+            Events.GeneratorWords.emit(length, (int) Math.min(Integer.MAX_VALUE, words));
+            return stream(seen, length, length == limit);
+        } catch (IOException exception) {
+            delete();
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Expandiert einen Stapel von Satzformen parallel und nimmt die Expansionen in die Puffer.
+     * @param batch Die Satzformen.
+     * @throws IOException Beim Auslagern.
+     */
+    private void expand(List<byte[]> batch) throws IOException {
+        if (batch.isEmpty())
+            return;
+        final List<byte[]> expansions = pool.submit(() -> batch.parallelStream()
+                .flatMap(this::expansions)
+                .collect(Collectors.toList()))
+                .join();
+        for (byte[] expansion : expansions) {
+            buffers.get(expansion.length).add(expansion);
+            buffered += expansion.length + FORM_COST;
+            if (buffered > bufferBudget)
+                spill(-1);
+        }
+    }
+
+    /**
+     * Speicher einer Satzform im Stapel samt ihrer Expansionen, die expand auf einmal sammelt.
+     * Eine Satzform hat bis zu einer Expansion pro Produktion und Stelle. Diese Schranke waere meist
+     * viel zu grob, deshalb zaehlt ein Durchlauf des Automaten genau nach.
+     * @param form Die Satzform.
+     * @return Geschaetzte Bytes.
+     */
+    private long cost(byte[] form) {
+        final long[] bytes = {form.length + FORM_COST};
+        matcher.forEachMatch(form, (rule, index) -> {
+            final int length = form.length - rules[rule][0].length + rules[rule][1].length;
+            if (length <= limit)
+                bytes[0] += length + FORM_COST;
+        });
+        return bytes[0];
+    }
+
+    /**
+     * Alle Expansionen einer Satzform bis zur maximalen Laenge.
+     * @param form Die Satzform.
+     * @return Die Expansionen, mit Duplikaten.
+     */
+    private Stream<byte[]> expansions(byte[] form) {
+        final List<byte[]> result = new ArrayList<>();
+        matcher.forEachMatch(form, (rule, index) -> {
+            if (form.length - rules[rule][0].length + rules[rule][1].length <= limit)
+                result.add(MyLanguageGenerator.replace(form, index, rules[rule][0].length, rules[rule][1]));
+        });
+        return result.stream();
+    }
+
+    /**
+     * Schreibt Puffer als sortierte Laeufe ohne Duplikate in Dateien.
+     * @param length Nur der Puffer dieser Laenge, oder -1 fuer alle.
+     * @throws IOException Beim Schreiben.
+     */
+    private void spill(int length) throws IOException {
+        for (int index = 0; index < buffers.size(); index++) {
+            final List<byte[]> buffer = buffers.get(index);
+            if ((length < 0 || index == length) && buffer != null && !buffer.isEmpty()) {
+                buffer.sort(Arrays::compare);
+                final Path run = file();
+                long bytes = 0;
+                try (OutputStream out = writer(run)) {
+                    byte[] last = null;
+                    for (byte[] form : buffer)
+                        if (last == null || !Arrays.equals(form, last)) {
+                            out.write(form);
+                            bytes += form.length;
+                            last = form;
+                        }
+                }
+                pending.get(index).add(run);
+                buffered -= (long) buffer.size() * (index + FORM_COST);
+                buffer.clear();
+                if (Instrumentation.enabled()) {
+                    Instrumentation.count("generator.spill.runs", 1);
+                    Instrumentation.count("generator.spill.bytes", bytes);
+                }
+            }
+        }
+        if (length < 0)
+            buffered = 0;
+    }
+
+    /**
+     * Mischt Laeufe zu einem einzigen ohne Duplikate, bei mehr als fanIn Laeufen in mehreren Runden.
+     * Die Laeufe werden geloescht und aus der Liste entfernt.
+     * @param runs Die Laeufe.
+     * @param length Die Laenge der Satzformen.
+     * @param counts Zaehlt in [3] die Duplikate.
+     * @return Der gemischte Lauf, oder null, wenn es keine Laeufe gab.
+     * @throws IOException Beim Lesen oder Schreiben.
+     */
+    private Path merge(List<Path> runs, int length, long[] counts) throws IOException {
+        while (runs.size() > 1) {
+            final List<Path> group = new ArrayList<>(runs.subList(0, Math.min(fanIn, runs.size())));
+            runs.subList(0, group.size()).clear();
+            final Path merged = file();
+            final PriorityQueue<Run> queue = new PriorityQueue<>(Comparator.comparing(run -> run.current,
+                                                                                      Arrays::compare));
+            try (OutputStream out = writer(merged)) {
+                try {
+                    for (Path path : group) {
+                        final Run run = new Run(path, length);
+                        if (run.current == null)
+                            run.close();
+                        else
+                            queue.add(run);
+                    }
+                    byte[] last = null;
+                    while (!queue.isEmpty()) {
+                        final Run run = queue.poll();
+                        if (last == null || !Arrays.equals(run.current, last)) {
+                            out.write(run.current);
+                            last = run.current;
+                        } else
+                            counts[3]++;
+                        run.advance();
+                        if (run.current == null)
+                            run.close();
+                        else
+                            queue.add(run);
+                    }
+                } finally {
+                    for (Run run : queue)
+                        run.close();
+                }
+            }
+            for (Path path : group)
+                delete(path);
+            runs.add(merged);
+        }
+        return runs.isEmpty() ? null : runs.remove(0);
+    }
+
+    /**
+     * Zaehlt die Satzformen eines Laufs, nur wenn jemand zuschaut.
+     * @param run Der Lauf, oder null.
+     * @param length Die Laenge der Satzformen.
+     * @return Die Anzahl, 0 ohne Zuschauer.
+     * @throws IOException Beim Lesen.
+     */
+    private static long count(Path run, int length) throws IOException {
+        if (run == null || !Instrumentation.enabled() && !new Events.GeneratorLayer().isEnabled())
+            return 0;
+        long count = 0;
+        try (Run forms = new Run(run, length)) {
+            for (; forms.current != null; forms.advance())
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Streamt die Woerter aus einem sortierten Lauf.
+     * @param run Der Lauf, oder null.
+     * @param length Die Laenge der Satzformen.
+     * @param last Ob das die letzte Schicht ist; dann verschwindet am Ende das ganze Verzeichnis.
+     * @return Die Woerter. Schliessen loescht die Datei.
+     * @throws IOException Beim Oeffnen.
+     */
+    private Stream<String> stream(Path run, int length, boolean last) throws IOException {
+        final Run forms = new Run(run, length);
+        final Iterator<String> words = new Iterator<>() {
+            @Override public boolean hasNext() {
+                while (forms.current != null && !isWord(forms.current))
+                    advance();
+                return forms.current != null;
+            }
+
+            @Override public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final String word = new String(forms.current, StandardCharsets.ISO_8859_1);
+                advance();
+                return word;
+            }
+
+            private void advance() {
+                try {
+                    forms.advance();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(words, Spliterator.ORDERED
+                                                                               | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    forms.close();
+                    delete(run);
+                    if (last)
+                        delete();
+                });
+    }
+
+    /**
+     * Prueft, ob eine Satzform keine Variablen mehr enthaelt.
+     * @param form Die Satzform.
+     * @return true, wenn die Satzform ein Wort ist.
+     */
+    private static boolean isWord(byte[] form) {
+        for (byte chr : form)
+            if (chr >= 'A' && chr <= 'Z')
+                return false;
+        return true;
+    }
+
+    /**
+     * Ein neuer Dateiname im eigenen Verzeichnis.
+     * @return Der Pfad.
+     */
+    private Path file() {
+        return directory.resolve("run" + files++ + ".gz");
+    }
+
+    /**
+     * Oeffnet eine Datei zum komprimierten Schreiben, schnell statt klein.
+     * @param path Die Datei.
+     * @return Der Strom.
+     * @throws IOException Beim Anlegen.
+     */
+    private static OutputStream writer(Path path) throws IOException {
+        return new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path), BUFFER_SIZE) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }, BUFFER_SIZE);
+    }
+
+    /**
+     * Loescht eine Datei, falls es sie gibt.
+     * @param path Die Datei, oder null.
+     */
+    private static void delete(Path path) {
+        if (path != null)
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+    }
+
+    /**
+     * Loescht das eigene Verzeichnis mit allen Dateien. Darf mehrfach laufen.
+     */
+    private void delete() {
+        if (Files.exists(directory))
+            try (Stream<Path> paths = Files.list(directory)) {
+                paths.forEach(SpilledForms::delete);
+                Files.deleteIfExists(directory);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+    }
+
+    /**
+     * Liest einen sortierten Lauf Satzform fuer Satzform.
+     */
+    private static final class Run implements Closeable {
+        /**
+         * Der Strom, oder null fuer einen leeren Lauf.
+         */
+        private final InputStream in;
+        /**
+         * Die Laenge der Satzformen.
+         */
+        private final int length;
+        /**
+         * Die aktuelle Satzform, null am Ende.
+         */
+        private byte[] current;
+
+        /**
+         * Oeffnet einen Lauf und liest die erste Satzform.
+         * @param path Die Datei, oder null fuer einen leeren Lauf.
+         * @param length Die Laenge der Satzformen, mindestens 1.
+         * @throws IOException Beim Lesen.
+         */
+        Run(Path path, int length) throws IOException {
+            in = path == null ? null
+                 : new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE), BUFFER_SIZE);
+            this.length = length;
+            advance();
+        }
+
+        /**
+         * Geht zur naechsten Satzform.
+         * @throws IOException Beim Lesen.
+         */
+        void advance() throws IOException {
+            if (in == null) {
+                current = null;
+                return;
+            }
+            final byte[] next = new byte[length];
+            current = in.readNBytes(next, 0, length) == length ? next : null;
+        }
+
+        @Override public void close() {
+            if (in != null)
+                try {
+                    in.close();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.hm.schill.samuel;
+
+import java.util.stream.IntStream;
+
+/**
+ * Tokens as primitives: kind, start and end offset into the scanned input, three ints per token.
+ * The capacity is fixed, so a buffer can be refilled over and over without allocating.
+ */
+public final class TokenBuffer {
+    /**
+     * Kind, start and end of each token, from index 3 * token on.
+     */
+    private final int[] data;
+    /**
+     * Number of tokens.
+     */
+    private int size;
+
+    /**
+     * An empty buffer.
+     * @param capacity Maximum number of tokens.
+     */
+    public TokenBuffer(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        data = new int[3 * capacity];
+    }
+
+    /**
+     * Appends a token.
+     * @param kind The kind, an index into DenseScanner.getTokens.
+     * @param start Offset of the first char.
+     * @param end Offset after the last char.
+     * @throws IllegalStateException If the buffer is full.
+     */
+    public void add(int kind, int start, int end) {
+        if (isFull())
+            throw new IllegalStateException("token buffer full");
+        data[3 * size] = kind;
+        data[3 * size + 1] = start;
+        data[3 * size + 2] = end;
+        size++;
+    }
+
+    /**
+     * Removes all tokens.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * The number of tokens.
+     * @return The number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The maximum number of tokens.
+     * @return The capacity.
+     */
+    public int capacity() {
+        return data.length / 3;
+    }
+
+    /**
+     * Checks whether another token fits.
+     * @return true if the buffer is full.
+     */
+    public boolean isFull() {
+        return 3 * size == data.length;
+    }
+
+    /**
+     * The kind of a token.
+     * @param token Index of the token.
+     * @return The kind.
+     */
+    public int kind(int token) {
+        return data[3 * check(token)];
+    }
+
+    /**
+     * The start of a token.
+     * @param token Index of the token.
+     * @return Offset of the first char.
+     */
+    public int start(int token) {
+        return data[3 * check(token) + 1];
+    }
+
+    /**
+     * The end of a token.
+     * @param token Index of the token.
+     * @return Offset after the last char.
+     */
+    public int end(int token) {
+        return data[3 * check(token) + 2];
+    }
+
+    /**
+     * The kinds of all tokens.
+     * @return The kinds in order.
+     */
+    public IntStream kinds() {
+        return IntStream.range(0, size).map(token -> data[3 * token]);
+    }
+
+    /**
+     * Checks a token index.
+     * @param token Index of the token.
+     * @return The index.
+     * @throws IndexOutOfBoundsException If there is no such token.
+     */
+    private int check(int token) {
+        if (token < 0 || token >= size)
+            throw new IndexOutOfBoundsException("token " + token + " of " + size);
+        return token;
+    }
+}
@@ -0,0 +1,174 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+
+/**
+ * Pulls tokens from a DenseScanner one at a time without allocating.
+ * The cursor scans ahead into its own TokenBuffer and refills it when it runs dry,
+ * so memory stays fixed however long the input is. Lexemes are only copied on request.
+ * <p>
+ * A cursor can be reset to another input and reused. It is not thread-safe.
+ */
+public final class TokenCursor {
+    /**
+     * Default number of tokens scanned ahead.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * The scanner.
+     */
+    private final DenseScanner scanner;
+    /**
+     * Tokens scanned ahead.
+     */
+    private final TokenBuffer buffer;
+    /**
+     * The input.
+     */
+    private char[] input;
+    /**
+     * Where to continue scanning.
+     */
+    private int position;
+    /**
+     * Index after the last char of the input.
+     */
+    private int limit;
+    /**
+     * Index of the current token in the buffer, -1 before the first.
+     */
+    private int current = -1;
+    /**
+     * Reports the run over the current input when it ends, null if nobody listens or it was reported.
+     */
+    private Events.LexerRun run;
+    /**
+     * Length of the current input, for run.
+     */
+    private int chars;
+    /**
+     * Tokens scanned from the current input, counted only for run.
+     */
+    private long tokens;
+
+    /**
+     * A cursor on an empty input.
+     * @param scanner The scanner.
+     */
+    public TokenCursor(DenseScanner scanner) {
+        this(scanner, CAPACITY);
+    }
+
+    /**
+     * A cursor on an empty input.
+     * @param scanner The scanner.
+     * @param capacity Number of tokens scanned ahead.
+     */
+    public TokenCursor(DenseScanner scanner, int capacity) {
+        this.scanner = scanner;
+        buffer = new TokenBuffer(capacity);
+        reset(new char[0], 0, 0);
+    }
+
+    /**
+     * Starts over on another input.
+     * @param input The input. Not copied, must not change while the cursor is on it.
+     * @param from Index of the first char.
+     * @param to Index after the last char.
+     * @return This cursor.
+     */
+    public TokenCursor reset(char[] input, int from, int to) {
+        this.input = input;
+        position = from;
+        limit = to;
+        buffer.clear();
+        current = -1;
+        run = Events.LexerRun.start("cursor");
+        chars = to - from;
+        tokens = 0;
+        return this;
+    }
+
+    /**
+     * Moves to the next token.
+     * @return false at the end of the input.
+     * @throws LexicalError If no token matches at the next position.
+     */
+    public boolean next() throws LexicalError {
+        if (current + 1 < buffer.size()) {
+            current++;
+            return true;
+        }
+        buffer.clear();
+        current = -1;
+        if (position < limit)
+            position = scanner.scan(input, position, limit, buffer);
+        if (buffer.size() == 0) {
+            if (run != null) {
+                run.report(chars, tokens);
+                run = null;
+            }
+            return false;
+        }
+        if (run != null)
+            tokens += buffer.size();
+        current = 0;
+        return true;
+    }
+
+    /**
+     * The kind of the current token.
+     * @return An index into DenseScanner.getTokens.
+     */
+    public int kind() {
+        return buffer.kind(current);
+    }
+
+    /**
+     * The start of the current token.
+     * @return Offset of the first char in the input.
+     */
+    public int start() {
+        return buffer.start(current);
+    }
+
+    /**
+     * The end of the current token.
+     * @return Offset after the last char in the input.
+     */
+    public int end() {
+        return buffer.end(current);
+    }
+
+    /**
+     * The name of the current token.
+     * @return The shared name, nothing is allocated.
+     */
+    public String name() {
+        return scanner.name(kind());
+    }
+
+    /**
+     * Copies the lexeme of the current token.
+     * @return The chars of the token.
+     */
+    public String lexeme() {
+        return new String(input, start(), end() - start());
+    }
+
+    /**
+     * Compares the lexeme of the current token without copying it.
+     * @param text Text to compare with.
+     * @return true if the lexeme equals text.
+     */
+    public boolean lexemeEquals(CharSequence text) {
+        final int start = start();
+        if (text.length() != end() - start)
+            return false;
+        for (int index = 0; index < text.length(); index++)
+            if (input[start + index] != text.charAt(index))
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Preprocesses and scans a stream in one pass, without an intermediate Source.
+ * <p>
+ * Chars are read in chunks, go through the state machine of a MyPreprocessor straight into a window,
+ * and the DenseScanner takes its tokens from there. Only the tail of the window that may still be part
+ * of a token is kept when the window is refilled, so memory is bounded by the buffer size,
+ * or by the longest token if that is longer. Runs of ignored chars, like the newlines that stand in
+ * for a long block comment, are dropped as they come if DenseScanner.skip allows it, so they do not count.
+ * <p>
+ * The pipeline is pulled by its consumer: nothing is read until next() runs out of scanned tokens,
+ * so a slow consumer holds back the reading, too. Offsets of tokens count chars of the output
+ * of the preprocessor. It is not thread-safe.
+ */
+public final class TokenPipeline {
+    /**
+     * Default number of chars read at once.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Default number of tokens scanned ahead.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * The scanner.
+     */
+    private final DenseScanner scanner;
+    /**
+     * Strips the comments.
+     */
+    private final MyPreprocessor preprocessor = new MyPreprocessor();
+    /**
+     * The input.
+     */
+    private final Reader reader;
+    /**
+     * Chars read, before preprocessing.
+     */
+    private final char[] chunk;
+    /**
+     * Preprocessed chars.
+     */
+    private char[] window;
+    /**
+     * Index after the last preprocessed char in window.
+     */
+    private int filled;
+    /**
+     * Index in window where scanning continues.
+     */
+    private int scanned;
+    /**
+     * Offset of window[0] in the output of the preprocessor.
+     */
+    private long base;
+    /**
+     * Whether the input is used up and the preprocessor is finished.
+     */
+    private boolean finished;
+    /**
+     * Tokens scanned ahead, with offsets into window.
+     */
+    private final TokenBuffer tokens;
+    /**
+     * Index of the current token in tokens, -1 before the first.
+     */
+    private int current = -1;
+    /**
+     * Reports the run when the input ends, null if nobody listens or it was reported.
+     */
+    private Events.LexerRun run = Events.LexerRun.start("pipeline");
+    /**
+     * Chars read, counted only for run.
+     */
+    private long chars;
+    /**
+     * Tokens scanned, counted only for run.
+     */
+    private long scannedTokens;
+
+    /**
+     * A pipeline.
+     * @param scanner The scanner, e.g. MyScanner.compiled().
+     * @param reader The input.
+     */
+    public TokenPipeline(DenseScanner scanner, Reader reader) {
+        this(scanner, reader, BUFFER_SIZE, CAPACITY);
+    }
+
+    /**
+     * A pipeline.
+     * @param scanner The scanner, e.g. MyScanner.compiled().
+     * @param reader The input.
+     * @param bufferSize Number of chars read at once.
+     * @param capacity Number of tokens scanned ahead.
+     */
+    public TokenPipeline(DenseScanner scanner, Reader reader, int bufferSize, int capacity) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("buffer size must be positive");
+        this.scanner = scanner;
+        this.reader = reader;
+        chunk = new char[bufferSize];
+        window = new char[2 * bufferSize + 1];
+        tokens = new TokenBuffer(capacity);
+    }
+
+    /**
+     * Moves to the next token.
+     * @return false at the end of the input.
+     * @throws LexicalError If the input ends inside a comment or no token matches.
+     * @throws IOException On reading.
+     */
+    public boolean next() throws LexicalError, IOException {
+        if (current + 1 < tokens.size()) {
+            current++;
+            return true;
+        }
+        tokens.clear();
+        current = -1;
+        while (true) {
+            scanned = scanner.scan(window, scanned, filled, tokens, finished);
+            if (tokens.size() > 0) {
+                if (run != null)
+                    scannedTokens += tokens.size();
+                current = 0;
+                return true;
+            }
+            if (finished) {
+                if (run != null) {
+                    run.report(chars, scannedTokens);
+                    run = null;
+                }
+                return false;
+            }
+            scanned = scanner.skip(window, scanned, filled);
+            fill();
+        }
+    }
+
+    /**
+     * Keeps the unscanned tail of the window and appends the next chunk of preprocessed input.
+     * @throws LexicalError If the input ends inside a comment.
+     * @throws IOException On reading.
+     */
+    private void fill() throws LexicalError, IOException {
+        System.arraycopy(window, scanned, window, 0, filled - scanned);
+        base += scanned;
+        filled -= scanned;
+        scanned = 0;
+        // the preprocessor writes up to one char more than it reads
+        if (window.length - filled - 1 < chunk.length) {
+            final char[] larger = new char[Math.max(2 * window.length, filled + chunk.length + 1)];
+            System.arraycopy(window, 0, larger, 0, filled);
+            window = larger;
+        }
+        final int read = reader.read(chunk, 0, chunk.length);
+        if (read < 0) {
+            filled = preprocessor.finish(window, filled);
+            finished = true;
+        } else {
+            filled = preprocessor.process(chunk, 0, read, window, filled);
+            chars += read;
+        }
+    }
+
+    /**
+     * The kind of the current token.
+     * @return An index into DenseScanner.getTokens.
+     */
+    public int kind() {
+        return tokens.kind(current);
+    }
+
+    /**
+     * The start of the current token.
+     * @return Offset of the first char in the output of the preprocessor.
+     */
+    public long start() {
+        return base + tokens.start(current);
+    }
+
+    /**
+     * The end of the current token.
+     * @return Offset after the last char in the output of the preprocessor.
+     */
+    public long end() {
+        return base + tokens.end(current);
+    }
+
+    /**
+     * The name of the current token.
+     * @return The shared name, nothing is allocated.
+     */
+    public String name() {
+        return scanner.name(kind());
+    }
+
+    /**
+     * Copies the lexeme of the current token.
+     * @return The chars of the token.
+     */
+    public String lexeme() {
+        return new String(window, tokens.start(current), tokens.end(current) - tokens.start(current));
+    }
+}
@@ -0,0 +1,186 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.schill.samuel.MyParserGenerator.Output;
+import edu.hm.schill.samuel.MyParserGenerator.Strategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledParserTest {
+    private static final String GRAMMAR = "=,E=+EE,E=*EE,E=-E,E=(E),E=a,E=b";
+    private static final String DEEP = "=,S=aSb,S=c";
+
+    private static String random(Random random, String alphabet, int length) {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return text.toString();
+    }
+
+    /**
+     * Valid words of a grammar and random strings over its terminals, most of them invalid.
+     */
+    private static List<String> inputs(String grammar, String terminals) {
+        final List<String> inputs = new ArrayList<>();
+        try (MyLanguageGenerator generator = new MyLanguageGenerator(1, 0)) {
+            generator.generate(generator.read(grammar), 6).forEach(inputs::add);
+        }
+        final Random random = new Random(grammar.hashCode());
+        for (int round = 0; round < 2000; round++)
+            inputs.add(random(random, terminals, random.nextInt(9)));
+        return inputs;
+    }
+
+    /**
+     * The Node tree as string, or the exception.
+     */
+    private static String parse(CompiledParser parser, String input) {
+        try {
+            return String.valueOf(parser.parse(input));
+        } catch (Exception exception) {
+            return exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        }
+    }
+
+    /**
+     * The flat tree written like a Node tree, or the exception.
+     */
+    private static String parseFlat(CompiledParser parser, String input) {
+        try {
+            final int[] tree = parser.parseFlat(input);
+            final StringBuilder text = new StringBuilder();
+            assertEquals(tree.length / 2, write(tree, 0, text));
+            return text.toString();
+        } catch (Exception exception) {
+            return exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        }
+    }
+
+    /**
+     * Writes the subtree of a flat tree node.
+     * @return Index of the first node after the subtree.
+     */
+    private static int write(int[] tree, int node, StringBuilder text) {
+        text.append((char) tree[2 * node]);
+        final int end = tree[2 * node + 1];
+        if (end > node + 1) {
+            text.append('[');
+            for (int child = node + 1; child < end; child = tree[2 * child + 1]) {
+                if (child > node + 1)
+                    text.append(", ");
+                write(tree, child, text);
+            }
+            text.append(']');
+        }
+        return end;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"=,S=aSb,S=c", "=,E=+EE,E=*EE,E=-E,E=(E),E=a,E=b", "=,S=AB,A=aA,A=x,B=bB,B=y",
+                            "=,S=aA,S=bB,A=c,A=dA,B=d"})
+    void strategiesAndOutputsAgree(String grammar) {
+        final CompiledParser recursive = new ParserCompiler(Strategy.RECURSIVE, Output.NODES, null).compile(grammar);
+        final CompiledParser table = new ParserCompiler(Strategy.TABLE, Output.NODES, null).compile(grammar);
+        final CompiledParser recursiveEvents = new ParserCompiler(Strategy.RECURSIVE, Output.EVENTS, null)
+                .compile(grammar);
+        final CompiledParser tableEvents = new ParserCompiler(Strategy.TABLE, Output.EVENTS, null).compile(grammar);
+        assertThrows(UnsupportedOperationException.class, () -> recursive.parseFlat(""));
+        for (String input : inputs(grammar, "abcdxy+*-()")) {
+            final String expected = parse(recursive, input);
+            assertEquals(expected, parse(table, input), input);
+            assertEquals(expected, parse(recursiveEvents, input), input);
+            assertEquals(expected, parse(tableEvents, input), input);
+            assertEquals(expected, parseFlat(recursiveEvents, input), input);
+            assertEquals(expected, parseFlat(tableEvents, input), input);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RECURSIVE", "TABLE"})
+    void parsesConcurrentlyOnOneInstance(Strategy strategy) throws Exception {
+        final CompiledParser parser = new ParserCompiler(strategy, Output.NODES, null).compile(GRAMMAR);
+        final List<String> inputs = inputs(GRAMMAR, "ab+*-()");
+        final List<String> expected = inputs.stream().map(input -> parse(parser, input)).collect(Collectors.toList());
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<List<String>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++)
+                results.add(executor.submit(() -> {
+                    final List<String> result = new ArrayList<>();
+                    for (int round = 0; round < 5; round++) {
+                        result.clear();
+                        for (String input : inputs)
+                            result.add(parse(parser, input));
+                    }
+                    return result;
+                }));
+            for (Future<List<String>> result : results)
+                assertEquals(expected, result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void isolatesStackOverflow() {
+        final CompiledParser recursive = new ParserCompiler().compile(DEEP);
+        final String deep = "a".repeat(1_000_000) + "c" + "b".repeat(1_000_000);
+        final List<CompiledParser.Outcome> outcomes = recursive.parseAll(List.of("acb", deep, "ab", "aacbb"));
+        assertTrue(outcomes.get(0).isValid());
+        assertInstanceOf(IllegalStateException.class, outcomes.get(1).getError());
+        assertInstanceOf(StackOverflowError.class, outcomes.get(1).getError().getCause());
+        assertFalse(outcomes.get(2).isValid());
+        assertTrue(outcomes.get(3).isValid());
+        assertEquals("S[a, S[c], b]", parse(recursive, "acb"));
+
+        final CompiledParser table = new ParserCompiler(Strategy.TABLE, Output.EVENTS, null).compile(DEEP);
+        assertTrue(table.parseAll(List.of(deep)).get(0).isValid());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7})
+    void parseAllKeepsOrder(int threads) {
+        final CompiledParser parser = new ParserCompiler().compile(GRAMMAR);
+        final List<String> inputs = new ArrayList<>();
+        for (int round = 0; round < 10; round++)
+            inputs.addAll(inputs(GRAMMAR, "ab+*-()"));
+        final List<String> expected = inputs.stream().map(input -> parse(parser, input)).collect(Collectors.toList());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<CompiledParser.Outcome> outcomes = parser.parseAll(inputs, executor);
+            assertEquals(inputs, outcomes.stream().map(CompiledParser.Outcome::getInput).collect(Collectors.toList()));
+            assertEquals(expected, outcomes.stream().map(CompiledParserTest::describe).collect(Collectors.toList()));
+            try (Stream<CompiledParser.Outcome> stream = parser.parseAll(inputs.stream(), executor)) {
+                assertEquals(expected, stream.map(CompiledParserTest::describe).collect(Collectors.toList()));
+            }
+            final Random random = new Random(threads);
+            try (Stream<CompiledParser.Outcome> endless = parser.parseAll(Stream.generate(() -> random(random, "ab+*", 5)),
+                                                                          executor)) {
+                assertEquals(3000, endless.limit(3000).count());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of(), parser.parseAll(List.of()));
+    }
+
+    private static String describe(CompiledParser.Outcome outcome) {
+        final Exception error = outcome.getError();
+        return error == null ? String.valueOf(outcome.getTree()) : error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+}
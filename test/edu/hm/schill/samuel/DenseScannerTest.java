@@ -0,0 +1,227 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DenseScannerTest {
+    private static final String ALPHABET = "intprab1 9\n\t:=+-*/%();#";
+
+    /**
+     * Runs a configuration the way BaseScanner does: states by name, one map lookup per char,
+     * longest match, ignored matches dropped. The course jar is only a compile-time dependency here,
+     * so the test carries its own copy of that behaviour.
+     */
+    static final class Interpreter implements ScannerTarget {
+        private String start;
+        private final Map<String, Map<Character, String>> transitions = new HashMap<>();
+        private final Map<String, String> accepting = new HashMap<>();
+        private final Set<String> attributed = new HashSet<>();
+
+        @Override public void start(String state) {
+            start = state;
+        }
+
+        @Override public void transition(String from, String chars, String to) {
+            for (char chr : chars.toCharArray())
+                transitions.computeIfAbsent(from, state -> new HashMap<>()).put(chr, to);
+        }
+
+        @Override public void accept(String state, String token) {
+            accepting.put(state, token);
+        }
+
+        @Override public void acceptAndIgnore(String state) {
+            accepting.put(state, null);
+        }
+
+        @Override public void accept(String token, boolean attribute) {
+            if (attribute)
+                attributed.add(token);
+        }
+
+        /**
+         * The tokens, or null if no token matches somewhere.
+         */
+        List<DenseScanner.Token> scan(String input) {
+            final List<DenseScanner.Token> result = new ArrayList<>();
+            for (int from = 0; from < input.length(); ) {
+                String state = start;
+                String accepted = null;
+                int end = from;
+                for (int index = from; index < input.length() && state != null; index++) {
+                    state = transitions.getOrDefault(state, Map.of()).get(input.charAt(index));
+                    if (state != null && accepting.containsKey(state)) {
+                        accepted = state;
+                        end = index + 1;
+                    }
+                }
+                if (accepted == null)
+                    return null;
+                final String token = accepting.get(accepted);
+                if (token != null)
+                    result.add(new DenseScanner.Token(token, attributed.contains(token)
+                                                             ? input.substring(from, end) : null));
+                from = end;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Keywords that are prefixes of each other, so that longest matches have to back off,
+     * and a kept token that starts like an ignored run.
+     */
+    private static void prefixes(ScannerTarget target) {
+        target.start("S");
+        target.transition("S", "a", "A");
+        target.transition("A", "b", "AB");
+        target.transition("AB", "c", "ABC");
+        target.transition("S", "c", "C");
+        target.transition("C", "c", "C");
+        target.transition("S", " ", "BLANK");
+        target.transition("BLANK", " ", "BLANK");
+        target.transition("BLANK", "x", "BX");
+        target.transition("S", "\n", "NEWLINE");
+        target.transition("NEWLINE", "\n", "NEWLINE");
+        target.accept("A", "a");
+        target.accept("ABC", "abc");
+        target.accept("C", "c");
+        target.accept("BX", "bx");
+        target.acceptAndIgnore("BLANK");
+        target.acceptAndIgnore("NEWLINE");
+        target.accept("c", true);
+    }
+
+    private static List<DenseScanner.Token> scan(DenseScanner scanner, String input) {
+        try {
+            return scanner.scan(input);
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    private static String random(Random random, String alphabet, int length) {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return text.toString();
+    }
+
+    /**
+     * Scans like a stream that delivers a few chars at a time, with end = false until the last call.
+     * Ignored runs are dropped with skip when asked to, the way TokenPipeline does.
+     */
+    private static List<String> streamed(DenseScanner scanner, String input, int step, int capacity, boolean skip)
+            throws LexicalError {
+        final char[] chars = input.toCharArray();
+        final TokenBuffer buffer = new TokenBuffer(capacity);
+        final List<String> result = new ArrayList<>();
+        int scanned = 0;
+        int available = 0;
+        while (true) {
+            final boolean end = available == chars.length;
+            buffer.clear();
+            scanned = scanner.scan(chars, scanned, available, buffer, end);
+            for (int token = 0; token < buffer.size(); token++)
+                result.add(buffer.kind(token) + " " + buffer.start(token) + " " + buffer.end(token));
+            if (buffer.size() > 0)
+                continue;
+            if (end)
+                return result;
+            if (skip)
+                scanned = scanner.skip(chars, scanned, available);
+            available = Math.min(chars.length, available + step);
+        }
+    }
+
+    private static List<String> whole(DenseScanner scanner, String input) throws LexicalError {
+        final List<String> result = new ArrayList<>();
+        final TokenBuffer buffer = new TokenBuffer(input.length() + 1);
+        scanner.scan(input.toCharArray(), 0, input.length(), buffer);
+        for (int token = 0; token < buffer.size(); token++)
+            result.add(buffer.kind(token) + " " + buffer.start(token) + " " + buffer.end(token));
+        return result;
+    }
+
+    private static DenseScanner compile(Consumer<ScannerTarget> configuration) {
+        final ScannerSpec spec = new ScannerSpec();
+        configuration.accept(spec);
+        return spec.compile();
+    }
+
+    /**
+     * Compares a scanner with the interpreter of its configuration on random inputs, valid or not.
+     */
+    private static void compare(Consumer<ScannerTarget> configuration, DenseScanner scanner, String alphabet) {
+        final Interpreter reference = new Interpreter();
+        configuration.accept(reference);
+        final Random random = new Random(alphabet.hashCode());
+        for (int round = 0; round < 20_000; round++) {
+            final String input = random(random, alphabet, random.nextInt(30));
+            assertEquals(reference.scan(input), scan(scanner, input), input);
+        }
+    }
+
+    @Test
+    void agreesWithInterpreterOnMyScanner() {
+        compare(MyScanner::configure, MyScanner.compiled(), ALPHABET);
+    }
+
+    @Test
+    void agreesWithInterpreterOnPrefixes() {
+        compare(DenseScannerTest::prefixes, compile(DenseScannerTest::prefixes), "abc x\n");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void streamsInSmallSteps(int step) throws LexicalError {
+        final Random random = new Random(step);
+        final DenseScanner[] scanners = {MyScanner.compiled(), compile(DenseScannerTest::prefixes)};
+        final String[] alphabets = {"intpra1 \n:=+*;", "abc x\n"};
+        for (int which = 0; which < scanners.length; which++) {
+            final DenseScanner scanner = scanners[which];
+            final String alphabet = alphabets[which];
+            for (int round = 0; round < 5_000; round++) {
+                final String input = random(random, alphabet, random.nextInt(30));
+                if (scan(scanner, input) == null)
+                    continue;
+                final List<String> expected = whole(scanner, input);
+                for (int capacity = 1; capacity <= 3; capacity++) {
+                    assertEquals(expected, streamed(scanner, input, step, capacity, false), input);
+                    assertEquals(expected, streamed(scanner, input, step, capacity, true), input);
+                }
+            }
+        }
+    }
+
+    @Test
+    void skipsRestartableRuns() throws LexicalError {
+        final DenseScanner scanner = MyScanner.compiled();
+        final String blanks = "a" + " ".repeat(10_000) + "\n".repeat(10_000) + "\t \n".repeat(1_000) + "b;";
+        final char[] chars = blanks.toCharArray();
+        assertEquals(blanks.length() - 2, scanner.skip(chars, 1, blanks.length() - 2));
+        assertEquals(0, scanner.skip(chars, 0, 1));
+        assertEquals(0, scanner.skip(new char[] {'*'}, 0, 1));
+        assertEquals(whole(scanner, blanks), streamed(scanner, blanks, 3, 2, true));
+
+        final DenseScanner prefixes = compile(DenseScannerTest::prefixes);
+        final String runs = "  \n\n";
+        // blanks may still become a bx token, newlines may not
+        assertEquals(0, prefixes.skip(runs.toCharArray(), 0, 2));
+        assertEquals(4, prefixes.skip(runs.toCharArray(), 2, 4));
+        assertEquals(whole(prefixes, "a   x\n\n\nc   "), streamed(prefixes, "a   x\n\n\nc   ", 1, 1, true));
+    }
+}
@@ -0,0 +1,114 @@
+package edu.hm.schill.samuel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GrammarAnalysisTest {
+    private final MyParserGenerator generator = new MyParserGenerator();
+
+    /**
+     * FIRST per rule the way the original MyParserGenerator computed it:
+     * every rule again until no set grows.
+     */
+    private static List<Set<Character>> baselineFirst(List<String[]> rules) {
+        final List<Set<Character>> first = new ArrayList<>();
+        rules.forEach(rule -> first.add(new TreeSet<>()));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int rule = 0; rule < rules.size(); rule++) {
+                final char chr = rules.get(rule)[1].charAt(0);
+                if (chr >= 'A' && chr <= 'Z') {
+                    for (int other = 0; other < rules.size(); other++)
+                        if (rules.get(other)[0].charAt(0) == chr)
+                            changed |= first.get(rule).addAll(first.get(other));
+                } else
+                    changed |= first.get(rule).add(chr);
+            }
+        }
+        return first;
+    }
+
+    /**
+     * FIRST/FIRST conflicts from the baseline sets, in the format of getConflicts.
+     * There are no FIRST/FOLLOW conflicts, because no right side is empty.
+     */
+    private static List<String> baselineConflicts(String grammar) {
+        final List<String[]> rules = Grammar.split(grammar);
+        final List<Set<Character>> first = baselineFirst(rules);
+        final Map<Character, List<Integer>> alternatives = new HashMap<>();
+        for (int rule = 0; rule < rules.size(); rule++)
+            alternatives.computeIfAbsent(rules.get(rule)[0].charAt(0), left -> new ArrayList<>()).add(rule);
+        final List<String> result = new ArrayList<>();
+        for (char left = 'A'; left <= 'Z'; left++) {
+            final List<Integer> rulesOfLeft = alternatives.getOrDefault(left, List.of());
+            for (int index = 0; index < rulesOfLeft.size(); index++)
+                for (int other = 0; other < index; other++) {
+                    final Set<Character> common = new TreeSet<>(first.get(rulesOfLeft.get(other)));
+                    common.retainAll(first.get(rulesOfLeft.get(index)));
+                    if (!common.isEmpty())
+                        result.add(left + ": " + rules.get(rulesOfLeft.get(other))[1] + " and "
+                                   + rules.get(rulesOfLeft.get(index))[1] + " both start with "
+                                   + common.stream().map(chr -> "'" + chr + "'").collect(Collectors.joining(", ")));
+                }
+        }
+        return result;
+    }
+
+    private void compare(String grammar) {
+        final List<String[]> rules = Grammar.split(grammar);
+        final List<Set<Character>> expected = baselineFirst(rules);
+        final List<Set<Character>> actual = generator.getFirstSets(grammar).values().stream()
+                .map(TreeSet::new)
+                .collect(Collectors.toList());
+        assertEquals(expected, actual, grammar);
+        assertEquals(baselineConflicts(grammar), generator.getConflicts(grammar), grammar);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "=,S=aSb,S=c",
+        "=,E=+EE,E=*EE,E=-E,E=(E),E=a,E=b",
+        "=,S=AB,A=aA,A=x,B=bB,B=y",
+        "=,S=Sa,S=x",
+        "=,S=aA,S=aB,A=c,B=d",
+        "=,S=AB,S=BA,A=aA,A=b,B=bB,B=a",
+        "=,S=A,S=B,A=C,B=C,C=c",
+        ":;S:a;S:Ab;A:a;A:b"})
+    void agreesWithBaseline(String grammar) {
+        compare(grammar);
+    }
+
+    @Test
+    void agreesWithBaselineOnRandomGrammars() {
+        final Random random = new Random(11);
+        for (int round = 0; round < 2000; round++) {
+            final StringBuilder grammar = new StringBuilder("=,");
+            for (int rule = 0, rules = 1 + random.nextInt(7); rule < rules; rule++) {
+                grammar.append(rule == 0 ? 'S' : "SAB".charAt(random.nextInt(3))).append('=');
+                for (int length = 1 + random.nextInt(3), symbol = 0; symbol < length; symbol++)
+                    grammar.append("SABabc".charAt(random.nextInt(6)));
+                grammar.append(',');
+            }
+            compare(grammar.toString());
+        }
+    }
+
+    @Test
+    void rejectsEmptyRightSides() {
+        assertThrows(IllegalArgumentException.class, () -> generator.getConflicts("=,S=aA,A=,A=b"));
+    }
+}
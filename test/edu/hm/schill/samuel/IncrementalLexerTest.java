@@ -0,0 +1,160 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalLexerTest {
+    private static final DenseScanner SCANNER = MyScanner.compiled();
+    private static final String ALPHABET = "ab1 \n/*;:=+intpr";
+
+    /**
+     * Preprocesses and scans a text from scratch.
+     * @return The output and the tokens, one line per token, or null if the text is invalid.
+     */
+    private static List<String> expected(String text) {
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        final char[] output = new char[text.length() + 2];
+        try {
+            final int length = preprocessor.finish(output, preprocessor.process(text.toCharArray(), 0, text.length(),
+                                                                                  output, 0));
+            final List<String> result = new ArrayList<>();
+            result.add(new String(output, 0, length));
+            final TokenBuffer buffer = new TokenBuffer(16);
+            for (int position = 0; position < length; ) {
+                buffer.clear();
+                position = SCANNER.scan(output, position, length, buffer);
+                for (int token = 0; token < buffer.size(); token++)
+                    result.add(buffer.kind(token) + " " + buffer.start(token) + " " + buffer.end(token));
+            }
+            return result;
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    private static List<String> actual(IncrementalLexer lexer) {
+        final List<String> result = new ArrayList<>();
+        result.add(lexer.getOutput());
+        for (int token = 0; token < lexer.size(); token++)
+            result.add(lexer.kind(token) + " " + lexer.start(token) + " " + lexer.end(token));
+        return result;
+    }
+
+    /**
+     * Applies an edit and compares with a fresh run, or checks that nothing changed if the new text is invalid.
+     * @return Whether the new text is valid.
+     */
+    private static boolean edit(IncrementalLexer lexer, int offset, int removed, String inserted) {
+        final String before = lexer.getText();
+        final List<String> unchanged = actual(lexer);
+        final String text = before.substring(0, offset) + inserted + before.substring(offset + removed);
+        final List<String> expected = expected(text);
+        if (expected == null) {
+            assertThrows(LexicalError.class, () -> lexer.edit(offset, removed, inserted), text);
+            assertEquals(before, lexer.getText());
+            assertEquals(unchanged, actual(lexer), text);
+            return false;
+        }
+        try {
+            lexer.edit(offset, removed, inserted);
+        } catch (LexicalError error) {
+            throw new AssertionError(text, error);
+        }
+        assertEquals(text, lexer.getText());
+        assertEquals(expected, actual(lexer), text);
+        return true;
+    }
+
+    private static String random(Random random, int length) {
+        final StringBuilder text = new StringBuilder();
+        for (int index = 0; index < length; index++)
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return text.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5, 256})
+    void randomEdits(int interval) throws LexicalError {
+        final Random random = new Random(interval);
+        for (int round = 0; round < 300; round++) {
+            final IncrementalLexer lexer = new IncrementalLexer(SCANNER, "int a; a := 1 + 2;", interval);
+            for (int step = 0; step < 30; step++) {
+                final int length = lexer.getText().length();
+                final int offset = random.nextInt(length + 1);
+                final int removed = random.nextInt(Math.min(5, length - offset) + 1);
+                edit(lexer, offset, removed, random(random, random.nextInt(5)));
+            }
+        }
+    }
+
+    @Test
+    void opensAndClosesBlockComment() throws LexicalError {
+        final IncrementalLexer lexer = new IncrementalLexer(SCANNER, "int a;\na := 1;\nprint a;\nprint 2;\n", 4);
+        assertTrue(edit(lexer, 24, 0, "*/"));
+        assertTrue(edit(lexer, 7, 0, "/*"));
+        assertTrue(edit(lexer, 17, 0, "*/"));
+        assertTrue(edit(lexer, 7, 2, ""));
+        assertTrue(edit(lexer, 7, 0, "/* "));
+        assertTrue(edit(lexer, 18, 2, ""));
+        assertFalse(edit(lexer, 27, 2, ""));
+        assertTrue(edit(lexer, 0, 0, "// x\n"));
+    }
+
+    @Test
+    void editsAtBothEnds() throws LexicalError {
+        final IncrementalLexer lexer = new IncrementalLexer(SCANNER, "a := 1;", 2);
+        assertTrue(edit(lexer, 0, 0, "int a;"));
+        assertTrue(edit(lexer, lexer.getText().length(), 0, " print a;"));
+        assertTrue(edit(lexer, 0, 3, ""));
+        assertTrue(edit(lexer, lexer.getText().length() - 1, 1, ""));
+        assertTrue(edit(lexer, 0, lexer.getText().length(), ""));
+        assertTrue(edit(lexer, 0, 0, "print 1;"));
+    }
+
+    @Test
+    void insertsOnCheckpoints() throws LexicalError {
+        final int interval = 4;
+        final String text = "int a; a := 11; print a; a := a * 2;";
+        for (int offset = 0; offset <= text.length(); offset += interval)
+            for (String inserted : new String[] {"x", "/**/", " ", "/", "*/", "1"}) {
+                final IncrementalLexer lexer = new IncrementalLexer(SCANNER, text, interval);
+                if (edit(lexer, offset, 0, inserted))
+                    edit(lexer, offset, inserted.length(), "");
+            }
+    }
+
+    @Test
+    void pendingSlashAtEnd() throws LexicalError {
+        final IncrementalLexer lexer = new IncrementalLexer(SCANNER, "a := 4 /", 3);
+        assertEquals(expected("a := 4 /"), actual(lexer));
+        assertTrue(edit(lexer, 8, 0, " 2;"));
+        assertTrue(edit(lexer, 8, 3, "/ 2;\n"));
+        assertTrue(edit(lexer, 8, 5, ""));
+        assertTrue(edit(lexer, 8, 0, "* x */"));
+        assertTrue(edit(lexer, 7, 7, "/"));
+        assertTrue(edit(lexer, 0, 0, "b;"));
+    }
+
+    @Test
+    void rollsBackOnLexicalError() throws LexicalError {
+        final IncrementalLexer lexer = new IncrementalLexer(SCANNER, "int a; /* b */ print a;", 2);
+        assertFalse(edit(lexer, 12, 2, ""));
+        assertFalse(edit(lexer, 0, 0, "#"));
+        assertFalse(edit(lexer, lexer.getText().length(), 0, "/*"));
+        assertFalse(edit(lexer, 7, 0, ":"));
+        assertTrue(edit(lexer, 4, 0, "a"));
+        assertTrue(edit(lexer, 13, 2, "*/ /* c */"));
+        assertThrows(LexicalError.class, () -> new IncrementalLexer(SCANNER, "a /* b"));
+    }
+}
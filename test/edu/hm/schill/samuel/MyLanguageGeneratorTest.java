@@ -0,0 +1,55 @@
+package edu.hm.schill.samuel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MyLanguageGeneratorTest {
+    private final MyLanguageGenerator fresh = new MyLanguageGenerator(2, 0);
+    private final MyLanguageGenerator cached = new MyLanguageGenerator(2, 4);
+
+    @AfterEach
+    void close() {
+        fresh.close();
+        cached.close();
+    }
+
+    private static List<String> generate(MyLanguageGenerator generator, String grammar, int upto) {
+        return generator.generate(Grammar.parse(grammar), upto).collect(Collectors.toList());
+    }
+
+    /**
+     * Generates up to n, then further up to n + k, and compares with a generator that starts from scratch.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"=,S=Sa,S=x", "=,S=aSb,S=ab,S=c", "=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc",
+                            "=,S=ABC,AB=BA,BC=CB,A=a,B=b,C=c,S=SS", "=,S=aS,S=,S=b", "=,SS=ab,S=x,S=SS"})
+    void resumesFromShorterLength(String grammar) {
+        for (int n = 0; n <= 6; n++)
+            for (int k = 0; k <= 4; k++) {
+                cached.clearCache();
+                assertEquals(generate(fresh, grammar, n), generate(cached, grammar, n), grammar + " " + n);
+                assertEquals(generate(fresh, grammar, n + k), generate(cached, grammar, n + k),
+                             grammar + " " + n + " " + k);
+                assertEquals(generate(fresh, grammar, n), generate(cached, grammar, n), grammar + " " + n);
+            }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final String[] grammars = {"=,S=Sa,S=x", "=,S=aSb,S=c", "=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc",
+                                   "=,S=aS,S=b", "=,S=SS,S=(S),S=()", "=,S=AB,A=aA,A=a,B=bB,B=b"};
+        for (int round = 0; round < 3; round++)
+            for (int grammar = 0; grammar < grammars.length; grammar++) {
+                final int upto = 3 + (round * grammar) % 6;
+                assertEquals(generate(fresh, grammars[grammar], upto), generate(cached, grammars[grammar], upto),
+                             grammars[grammar] + " " + upto);
+            }
+    }
+}
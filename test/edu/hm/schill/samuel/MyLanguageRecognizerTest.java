@@ -0,0 +1,89 @@
+package edu.hm.schill.samuel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MyLanguageRecognizerTest {
+    private final MyLanguageGenerator generator = new MyLanguageGenerator(2, 0);
+    private final MyLanguageRecognizer recognizer = new MyLanguageRecognizer();
+
+    @AfterEach
+    void close() {
+        generator.close();
+    }
+
+    private Predicate<String> compile(String grammar) {
+        return recognizer.compile(generator.read(grammar));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc", "=,S=aS,S=,S=b", "=,S=Ab,A=,A=a",
+                            "=,S=aSb,S=ab", "=,SS=ab,S=x"})
+    void rejectsSententialForms(String grammar) {
+        final Predicate<String> language = compile(grammar);
+        for (String form : List.of("S", "SS", "aB", "aS", "A", "Ab", "aBC", "abC"))
+            assertFalse(language.test(form), form);
+    }
+
+    @Test
+    void acceptsEmptyWord() {
+        assertTrue(compile("=,S=aS,S=,S=b").test(""));
+        assertTrue(compile("=,S=aS,S=,S=b").test("aaa"));
+        assertTrue(compile("=,S=Ab,A=,A=a").test("b"));
+        assertFalse(compile("=,S=Ab,A=,A=a").test(""));
+    }
+
+    @Test
+    void rejectsUndecidableGrammars() {
+        assertThrows(IllegalArgumentException.class, () -> compile("=,S=ABC,ABC=x,A=a,B=b,C=c,S=aS"));
+    }
+
+    /**
+     * Compares with the generator on all words over the terminals up to a length.
+     * The generator bounds the sentential forms by its length, so it generates enough longer
+     * for shrinking grammars to reach every short word.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"=,S=aS,S=,S=b", "=,S=Ab,A=,A=a", "=,S=aSb,S=", "=,S=AB,A=,B=,A=aA,B=bB",
+                            "=,S=ABC,A=,B=A,C=Bc", "=,S=SS,S=(S),S=", "=,S=aSb,S=ab", "=,S=SS,S=(S),S=()",
+                            "=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc", "=,S=ABC,AB=BA,BC=CB,BA=AB,CB=BC,A=a,B=b,C=c"})
+    void agreesWithGenerator(String grammar) {
+        final int length = 6;
+        final boolean contracting = !Grammar.parse(grammar).isNoncontracting();
+        final Set<String> generated = generator.generate(generator.read(grammar), contracting ? 2 * length + 2 : length)
+                .filter(word -> word.length() <= length)
+                .collect(Collectors.toSet());
+        final Predicate<String> language = compile(grammar);
+        final String alphabet = Grammar.parse(grammar).productions()
+                .flatMapToInt(rule -> rule[1].chars())
+                .filter(chr -> chr < 'A' || chr > 'Z')
+                .distinct()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+        for (String word : words(alphabet, length))
+            assertEquals(generated.contains(word), language.test(word), word);
+    }
+
+    private static List<String> words(String alphabet, int length) {
+        final List<String> words = new ArrayList<>();
+        words.add("");
+        for (int index = 0; index < words.size(); index++)
+            if (words.get(index).length() < length)
+                for (char chr : alphabet.toCharArray())
+                    words.add(words.get(index) + chr);
+        return words;
+    }
+}
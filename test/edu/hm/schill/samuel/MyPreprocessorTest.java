@@ -0,0 +1,175 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import edu.hm.cs.rs.compiler.toys.base.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MyPreprocessorTest {
+    /**
+     * Mostly comment delimiters, plus a char beyond the table columns.
+     */
+    private static final String ALPHABET = "//**/ a\n*/\u00e4";
+
+    /**
+     * The State machine of the original MyPreprocessor, one char at a time.
+     */
+    private static final class Baseline {
+        private int state;
+        private final StringBuilder output = new StringBuilder();
+
+        Baseline(int state) {
+            this.state = state;
+        }
+
+        void process(char chr) {
+            switch (state) {
+                case MyPreprocessor.CODE:
+                    if (chr == '/')
+                        state = MyPreprocessor.EXPECT_COMMENT;
+                    else
+                        output.append(chr);
+                    break;
+                case MyPreprocessor.EXPECT_COMMENT:
+                    if (chr == '/')
+                        state = MyPreprocessor.SIMPLE_COMMENT;
+                    else if (chr == '*')
+                        state = MyPreprocessor.BLOCK_COMMENT;
+                    else {
+                        output.append('/').append(chr);
+                        state = MyPreprocessor.CODE;
+                    }
+                    break;
+                case MyPreprocessor.SIMPLE_COMMENT:
+                    if (chr == '\n') {
+                        output.append(chr);
+                        state = MyPreprocessor.CODE;
+                    }
+                    break;
+                case MyPreprocessor.BLOCK_COMMENT:
+                    if (chr == '\n')
+                        output.append(chr);
+                    else if (chr == '*')
+                        state = MyPreprocessor.EXPECT_BLOCK_END;
+                    break;
+                default:
+                    if (chr == '/') {
+                        output.append(' ');
+                        state = MyPreprocessor.CODE;
+                    } else
+                        state = MyPreprocessor.BLOCK_COMMENT;
+            }
+        }
+
+        /**
+         * The output after the finalization actions, or null if the input ended inside a comment.
+         */
+        String finish() {
+            if (state == MyPreprocessor.EXPECT_COMMENT)
+                return output + "/";
+            return state == MyPreprocessor.CODE ? output.toString() : null;
+        }
+    }
+
+    private static Baseline baseline(int state, String text) {
+        final Baseline baseline = new Baseline(state);
+        for (char chr : text.toCharArray())
+            baseline.process(chr);
+        return baseline;
+    }
+
+    private static String random(Random random, int length) {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return text.toString();
+    }
+
+    /**
+     * Runs process(Source).
+     * @return The output, or null on a LexicalError.
+     */
+    private static String viaSource(MyPreprocessor preprocessor, String text) {
+        final Source source = new Source();
+        for (char chr : text.toCharArray())
+            source.append(chr);
+        try {
+            final Source result = preprocessor.process(source);
+            final StringBuilder output = new StringBuilder();
+            while (result.hasMore())
+                output.append(result.getNextChar());
+            return output.toString();
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs process(char[]...) on the text split at the given indices, then finish.
+     * @return The output, or null on a LexicalError.
+     */
+    private static String viaChars(MyPreprocessor preprocessor, String text, int... splits) {
+        final char[] input = ("<" + text + ">").toCharArray();
+        final char[] output = new char[text.length() + splits.length + 2];
+        int offset = 0;
+        int from = 1;
+        for (int split : splits) {
+            offset = preprocessor.process(input, from, split + 1, output, offset);
+            from = split + 1;
+        }
+        offset = preprocessor.process(input, from, text.length() + 1, output, offset);
+        try {
+            return new String(output, 0, preprocessor.finish(output, offset));
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    @Test
+    void agreesWithBaseline() {
+        final Random random = new Random(14);
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        for (int round = 0; round < 20_000; round++) {
+            final String text = random(random, random.nextInt(30));
+            final String expected = baseline(MyPreprocessor.CODE, text).finish();
+            assertEquals(expected, viaSource(preprocessor, text), text);
+            assertEquals(expected, viaChars(preprocessor, text), text);
+            final int split = random.nextInt(text.length() + 1);
+            assertEquals(expected, viaChars(preprocessor, text, split, Math.max(split, text.length() - 1)), text);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {MyPreprocessor.CODE, MyPreprocessor.EXPECT_COMMENT, MyPreprocessor.SIMPLE_COMMENT,
+                         MyPreprocessor.BLOCK_COMMENT, MyPreprocessor.EXPECT_BLOCK_END})
+    void resumesFromEveryState(int state) {
+        final Random random = new Random(state);
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        for (int round = 0; round < 20_000; round++) {
+            final String text = random(random, random.nextInt(20));
+            final Baseline expected = baseline(state, text);
+            preprocessor.resume(state);
+            final char[] output = new char[text.length() + 2];
+            final int offset = preprocessor.process(text.toCharArray(), 0, text.length(), output, 0);
+            assertEquals(expected.state, preprocessor.state(), text);
+            assertEquals(expected.output.toString(), new String(output, 0, offset), text);
+            preprocessor.resume(state);
+            assertEquals(expected.finish(), viaChars(preprocessor, text, text.length() / 2), text);
+            assertEquals(MyPreprocessor.CODE, preprocessor.state());
+        }
+    }
+
+    @Test
+    void startsOverAfterLexicalError() {
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        assertNull(viaSource(preprocessor, "a /* b"));
+        assertEquals(MyPreprocessor.CODE, preprocessor.state());
+        assertEquals("a / b", viaSource(preprocessor, "a / b"));
+    }
+}
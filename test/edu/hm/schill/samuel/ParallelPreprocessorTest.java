@@ -0,0 +1,81 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelPreprocessorTest {
+    /**
+     * Mostly comment delimiters, so that chunk boundaries split them in every possible way.
+     */
+    private static final String ALPHABET = "//**/ a\n*/";
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The output of MyPreprocessor, or null if it throws.
+     */
+    private static String expected(String text) {
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        final char[] output = new char[text.length() + 2];
+        try {
+            return new String(output, 0, preprocessor.finish(output, preprocessor.process(text.toCharArray(), 0,
+                                                                                         text.length(), output, 0)));
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64})
+    void agreesWithMyPreprocessor(int chunkSize) throws IOException, LexicalError {
+        final Random random = new Random(chunkSize);
+        final Path input = directory.resolve("in");
+        final Path output = directory.resolve("out");
+        try (ParallelPreprocessor preprocessor = new ParallelPreprocessor(3, chunkSize)) {
+            for (int round = 0; round < 2000; round++) {
+                final StringBuilder text = new StringBuilder();
+                for (int length = random.nextInt(40); text.length() < length; )
+                    text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                final String expected = expected(text.toString());
+                if (expected == null)
+                    continue;
+                Files.write(input, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+                preprocessor.process(input, output);
+                assertEquals(expected, new String(Files.readAllBytes(output), StandardCharsets.ISO_8859_1),
+                             text.toString());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a /* b", "a /* b *", "/*", "/* // */ /* /"})
+    void rejectsUnterminatedComment(String text) throws IOException {
+        final Path input = directory.resolve("in");
+        final Path output = directory.resolve("out");
+        final Path missing = directory.resolve("missing");
+        final byte[] old = "old output".getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(input, text.getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(output, old);
+        for (int chunkSize : new int[] {1, 2, 3, 7})
+            try (ParallelPreprocessor preprocessor = new ParallelPreprocessor(2, chunkSize)) {
+                assertThrows(LexicalError.class, () -> preprocessor.process(input, output));
+                assertArrayEquals(old, Files.readAllBytes(output));
+                assertThrows(LexicalError.class, () -> preprocessor.process(input, missing));
+                assertFalse(Files.exists(missing));
+            }
+    }
+}
@@ -0,0 +1,104 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.schill.samuel.MyParserGenerator.Output;
+import edu.hm.schill.samuel.MyParserGenerator.Strategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParserCompilerTest {
+    private static final String GRAMMAR = "=,S=aSb,S=c";
+
+    @TempDir
+    Path directory;
+
+    private List<Path> classFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void recoversFromCorruptClassFiles() throws Exception {
+        new ParserCompiler(Strategy.RECURSIVE, directory).compile(GRAMMAR);
+        final List<Path> files = classFiles();
+        final List<byte[]> contents = new ArrayList<>();
+        for (Path file : files)
+            contents.add(Files.readAllBytes(file));
+        for (int corrupt = 0; corrupt < files.size(); corrupt++) {
+            final byte[] content = contents.get(corrupt);
+            Files.write(files.get(corrupt), Arrays.copyOf(content, content.length / 2));
+            final CompiledParser parser = new ParserCompiler(Strategy.RECURSIVE, directory).compile(GRAMMAR);
+            assertEquals("S[a, S[c], b]", String.valueOf(parser.parse("acb")), files.get(corrupt).toString());
+            assertThrows(Exception.class, () -> parser.parse("ab"));
+            assertEquals(files, classFiles());
+            assertArrayEquals(content, Files.readAllBytes(files.get(corrupt)));
+        }
+        Files.write(files.get(0), new byte[] {(byte) 0xCA, (byte) 0xFE});
+        assertEquals("S[c]", String.valueOf(new ParserCompiler(Strategy.RECURSIVE, directory).compile(GRAMMAR)
+                                                    .parse("c")));
+        assertEquals(1, entries().size());
+    }
+
+    @Test
+    void buildsConcurrentRequestsOnce() throws Exception {
+        final ParserCompiler compiler = new ParserCompiler(Strategy.TABLE, Output.EVENTS, directory);
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<CompiledParser>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                // other separators, same key
+                final String grammar = thread % 2 == 0 ? GRAMMAR : ":;S:aSb;S:c";
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return compiler.compile(grammar);
+                }));
+            }
+            start.countDown();
+            final CompiledParser first = results.get(0).get();
+            for (Future<CompiledParser> result : results)
+                assertSame(first, result.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, entries().size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final ParserCompiler compiler = new ParserCompiler(Strategy.RECURSIVE, Output.NODES, null, 2);
+        final CompiledParser first = compiler.compile("=,S=a");
+        final CompiledParser second = compiler.compile("=,S=b");
+        assertSame(first, compiler.compile("=,S=a"));
+        compiler.compile("=,S=c");
+        assertSame(first, compiler.compile("=,S=a"));
+        assertNotSame(second, compiler.compile("=,S=b"));
+        assertThrows(IllegalArgumentException.class, () -> new ParserCompiler(Strategy.RECURSIVE, Output.NODES, null, 0));
+    }
+}
@@ -0,0 +1,77 @@
+package edu.hm.schill.samuel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RuleMatcherTest {
+    private static byte[][] bytes(String... patterns) {
+        final byte[][] result = new byte[patterns.length][];
+        for (int pattern = 0; pattern < patterns.length; pattern++)
+            result[pattern] = patterns[pattern].getBytes(StandardCharsets.US_ASCII);
+        return result;
+    }
+
+    /**
+     * All occurrences found with indexOf, as "pattern index", sorted.
+     */
+    private static List<String> naive(String form, String... patterns) {
+        final List<String> result = new ArrayList<>();
+        for (int pattern = 0; pattern < patterns.length; pattern++)
+            for (int index = form.indexOf(patterns[pattern]); index >= 0;
+                 index = index < form.length() ? form.indexOf(patterns[pattern], index + 1) : -1)
+                result.add(pattern + " " + index);
+        result.sort(null);
+        return result;
+    }
+
+    private static List<String> matches(RuleMatcher matcher, String form) {
+        final List<String> result = new ArrayList<>();
+        matcher.forEachMatch(form.getBytes(StandardCharsets.US_ASCII), (pattern, index) -> result.add(pattern + " " + index));
+        result.sort(null);
+        return result;
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiterString = " ", value = {
+        "aaaa a,aa,aaa",
+        "abababa aba,bab,ab",
+        "xabcabc abc,bc,c,xabc",
+        "abc ,b",
+        "'' a,",
+        "S aS,S,SS,bS",
+        "aaBBcc aB,aBB,BB,Bc,c,cc,BBc"})
+    void findsOverlappingPatterns(String form, String patterns) {
+        final String[] split = patterns.split(",", -1);
+        assertEquals(naive(form, split), matches(new RuleMatcher(bytes(split)), form), form + " " + patterns);
+    }
+
+    @Test
+    void agreesWithIndexOf() {
+        final Random random = new Random(4);
+        for (int round = 0; round < 2000; round++) {
+            final String[] patterns = new String[1 + random.nextInt(8)];
+            for (int pattern = 0; pattern < patterns.length; pattern++)
+                patterns[pattern] = random(random, random.nextInt(5));
+            final RuleMatcher matcher = new RuleMatcher(bytes(patterns));
+            for (int form = 0; form < 10; form++) {
+                final String text = random(random, random.nextInt(20));
+                assertEquals(naive(text, patterns), matches(matcher, text), text + " " + String.join(",", patterns));
+            }
+        }
+    }
+
+    private static String random(Random random, int length) {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append("abS".charAt(random.nextInt(3)));
+        return text.toString();
+    }
+}
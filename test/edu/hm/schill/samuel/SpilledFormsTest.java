@@ -0,0 +1,90 @@
+package edu.hm.schill.samuel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpilledFormsTest {
+    @TempDir
+    Path directory;
+
+    private final MyLanguageGenerator memory = new MyLanguageGenerator(2, 0);
+    private MyLanguageGenerator spilled;
+
+    @AfterEach
+    void close() {
+        memory.close();
+        if (spilled != null)
+            spilled.close();
+    }
+
+    private MyLanguageGenerator spilled() {
+        if (spilled == null)
+            spilled = new MyLanguageGenerator(2, directory, SpilledForms.MIN_BUDGET);
+        return spilled;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(path -> !path.equals(directory)).map(Path::toString).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compares with the in-memory generator at the smallest budget. In the last two grammars every rule
+     * matches at almost every position, so each form has many more expansions than rules.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiterString = " ", value = {
+        "=,S=Sa,S=x 8",
+        "=,S=aSb,S=ab,S=c 11",
+        "=,S=aBC,S=aSBC,CB=BC,aB=ab,bB=bb,bC=bc,cC=cc 12",
+        "=,S=AB,A=aA,A=a,B=bB,B=b,A=B 7",
+        "=,S=SS,S=(S),S=() 10",
+        "=,S=ABC,AB=BA,BC=CB,A=a,B=b,C=c,S=SS 6",
+        "=,S=AAAAA,A=a,A=b,A=c,A=d,A=e,A=f,A=g,A=h 5",
+        "=,S=AAAAAAAAAA,A=a,A=b 10"})
+    void agreesWithMemory(String grammar, int length) throws IOException {
+        for (int upto = 0; upto <= length; upto++) {
+            final List<String> expected = memory.generate(Grammar.parse(grammar), upto).collect(Collectors.toList());
+            try (Stream<String> words = spilled().generate(Grammar.parse(grammar), upto)) {
+                assertEquals(expected, words.collect(Collectors.toList()), grammar + " " + upto);
+            }
+        }
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void deletesFilesWhenConsumed() throws IOException {
+        final Iterator<String> words = spilled().generate(Grammar.parse("=,S=aSb,S=ab,S=c,S=SS"), 12).iterator();
+        long count = 0;
+        for (; words.hasNext(); words.next())
+            count++;
+        assertTrue(count > 0);
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void deletesFilesWhenClosedEarly() throws IOException {
+        try (Stream<String> words = spilled().generate(Grammar.parse("=,S=aSb,S=ab,S=c,S=SS"), 12)) {
+            final Iterator<String> iterator = words.iterator();
+            for (int count = 0; count < 3; count++)
+                iterator.next();
+            assertTrue(!files().isEmpty());
+        }
+        assertEquals(List.of(), files());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCursorTest {
+    private static final DenseScanner SCANNER = MyScanner.compiled();
+    private static final String ALPHABET = "intpra1 \n:=+*;#";
+
+    /**
+     * The tokens of a scan, one line per token, or null if the input is invalid.
+     */
+    private static List<String> expected(String input) {
+        try {
+            final List<String> result = new ArrayList<>();
+            for (DenseScanner.Token token : SCANNER.scan(input))
+                result.add(token.getName() + " " + token.getAttribute());
+            return result;
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 1024})
+    void agreesWithScan(int capacity) {
+        final Random random = new Random(capacity);
+        final TokenCursor cursor = new TokenCursor(SCANNER, capacity);
+        for (int round = 0; round < 10_000; round++) {
+            final StringBuilder text = new StringBuilder();
+            for (int length = random.nextInt(30); text.length() < length; )
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            final String input = "x" + text + "y";
+            final List<String> expected = expected(text.toString());
+            List<String> actual = new ArrayList<>();
+            cursor.reset(input.toCharArray(), 1, input.length() - 1);
+            try {
+                while (cursor.next()) {
+                    final String lexeme = cursor.lexeme();
+                    assertTrue(cursor.lexemeEquals(lexeme));
+                    assertEquals(lexeme, input.substring(cursor.start(), cursor.end()));
+                    final boolean attributed = cursor.name().equals("identifier") || cursor.name().equals("numeral");
+                    actual.add(cursor.name() + " " + (attributed ? lexeme : null));
+                }
+            } catch (LexicalError error) {
+                actual = null;
+            }
+            assertEquals(expected, actual, input);
+        }
+    }
+
+    @Test
+    void deliversTokensBeforeTheError() throws LexicalError {
+        final TokenCursor cursor = new TokenCursor(SCANNER, 2).reset("a b c # d".toCharArray(), 0, 9);
+        for (String lexeme : new String[] {"a", "b", "c"}) {
+            assertTrue(cursor.next());
+            assertEquals(lexeme, cursor.lexeme());
+        }
+        assertThrows(LexicalError.class, cursor::next);
+        assertFalse(cursor.reset(new char[0], 0, 0).next());
+    }
+}
@@ -0,0 +1,121 @@
+package edu.hm.schill.samuel;
+
+import edu.hm.cs.rs.compiler.toys.base.LexicalError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenPipelineTest {
+    private static final DenseScanner SCANNER = MyScanner.compiled();
+    private static final String ALPHABET = "ab1 \n\n  /*;:=+*/#";
+
+    /**
+     * Hands out at most one char per read, so that every token and comment is split across reads.
+     */
+    private static final class Trickle extends Reader {
+        private final Reader reader;
+
+        Trickle(String text) {
+            reader = new StringReader(text);
+        }
+
+        @Override public int read(char[] buffer, int offset, int length) throws IOException {
+            return reader.read(buffer, offset, Math.min(1, length));
+        }
+
+        @Override public void close() {
+        }
+    }
+
+    /**
+     * Preprocesses and scans a text in one piece.
+     * @return One line per token with kind, offsets and lexeme, or null if the text is invalid.
+     */
+    private static List<String> expected(String text) {
+        final MyPreprocessor preprocessor = new MyPreprocessor();
+        final char[] output = new char[text.length() + 2];
+        try {
+            final int length = preprocessor.finish(output, preprocessor.process(text.toCharArray(), 0, text.length(),
+                                                                                  output, 0));
+            final List<String> result = new ArrayList<>();
+            final TokenBuffer buffer = new TokenBuffer(16);
+            for (int position = 0; position < length; ) {
+                buffer.clear();
+                position = SCANNER.scan(output, position, length, buffer);
+                for (int token = 0; token < buffer.size(); token++)
+                    result.add(buffer.kind(token) + " " + buffer.start(token) + " " + buffer.end(token) + " "
+                               + new String(output, buffer.start(token), buffer.end(token) - buffer.start(token)));
+            }
+            return result;
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    private static List<String> actual(TokenPipeline pipeline) throws IOException {
+        final List<String> result = new ArrayList<>();
+        try {
+            while (pipeline.next())
+                result.add(pipeline.kind() + " " + pipeline.start() + " " + pipeline.end() + " " + pipeline.lexeme());
+            return result;
+        } catch (LexicalError error) {
+            return null;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void agreesWithPreprocessAndScan(int bufferSize) throws IOException {
+        final Random random = new Random(bufferSize);
+        for (int round = 0; round < 5_000; round++) {
+            final StringBuilder text = new StringBuilder();
+            for (int length = random.nextInt(40); text.length() < length; )
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            final List<String> expected = expected(text.toString());
+            for (int capacity = 1; capacity <= 3; capacity++) {
+                final String message = text + " " + capacity;
+                assertEquals(expected, actual(new TokenPipeline(SCANNER, new StringReader(text.toString()),
+                                                                bufferSize, capacity)), message);
+                assertEquals(expected, actual(new TokenPipeline(SCANNER, new Trickle(text.toString()),
+                                                                bufferSize, capacity)), message);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 8192})
+    void dropsLongIgnoredRuns(int bufferSize) throws IOException {
+        final String text = "int a;" + " ".repeat(50_000) + "a\n" + "\n".repeat(50_000)
+                            + ":= /*" + "\n".repeat(50_000) + "*/ 1" + "// x\n".repeat(10_000) + "\t;"
+                            + "  \n".repeat(10_000);
+        final List<String> expected = expected(text);
+        assertEquals(7, expected.size());
+        assertEquals(expected, actual(new TokenPipeline(SCANNER, new StringReader(text), bufferSize, 2)));
+        assertEquals(expected, actual(new TokenPipeline(SCANNER, new Trickle(text), bufferSize, 1)));
+    }
+
+    @Test
+    void rejectsBadInput() throws IOException, LexicalError {
+        for (String text : new String[] {"a /* b", "a; #", "a" + " ".repeat(10_000) + "#"}) {
+            final TokenPipeline pipeline = new TokenPipeline(SCANNER, new StringReader(text), 2, 1);
+            while (true)
+                try {
+                    if (!pipeline.next())
+                        throw new AssertionError(text);
+                } catch (LexicalError error) {
+                    break;
+                }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new TokenPipeline(SCANNER, new StringReader(""), 0, 1));
+    }
+}